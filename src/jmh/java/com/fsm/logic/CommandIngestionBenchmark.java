@@ -0,0 +1,96 @@
+package com.fsm.logic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import com.fsm.logic.clock.ZeroDelayClock;
+
+/**
+ * Cost of button presses through the text and the typed API, and of the inbox shared by several producers and the
+ * elevator thread. Every pressed button is released right after the inbox is drained, as if the floor was served, so
+ * producers keep adding new buttons instead of hitting already pressed ones.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommandIngestionBenchmark {
+
+    private static final int LEVELS = 20;
+
+    @State(Scope.Benchmark)
+    public static class SharedElevator {
+        Elevator elevator;
+
+        @Setup
+        public void setUp() {
+            elevator = new Elevator(LEVELS, 3, 1, 3000, 5000, ZeroDelayClock.INSTANCE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+        final String[] commands = new String[LEVELS];
+        int next;
+
+        @Setup
+        public void setUp() {
+            for (int i = 0; i < LEVELS; i++) {
+                commands[i] = String.valueOf(i + 1);
+            }
+        }
+
+        int nextFloor() {
+            next = next == LEVELS ? 1 : next + 1;
+            return next;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void textInternalCommand(SharedElevator shared, Producer producer) {
+        int floor = producer.nextFloor();
+        shared.elevator.addInternalCommand(producer.commands[floor - 1]);
+        serve(shared.elevator);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void typedInternalCommand(SharedElevator shared, Producer producer) {
+        shared.elevator.addInternalCommand(producer.nextFloor());
+        serve(shared.elevator);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void typedExternalCommand(SharedElevator shared, Producer producer) {
+        shared.elevator.addExternalCommand(producer.nextFloor());
+        serve(shared.elevator);
+    }
+
+    @Benchmark
+    @Group("inbox")
+    @GroupThreads(3)
+    public void producers(SharedElevator shared, Producer producer) {
+        shared.elevator.addExternalCommand(producer.nextFloor());
+    }
+
+    @Benchmark
+    @Group("inbox")
+    @GroupThreads(1)
+    public void elevatorThread(SharedElevator shared) {
+        serve(shared.elevator);
+    }
+
+    private static void serve(Elevator elevator) {
+        elevator.drainCommands();
+        elevator.internalFloorsButtons.clear();
+        elevator.externalFloorsButtons.clear();
+    }
+}
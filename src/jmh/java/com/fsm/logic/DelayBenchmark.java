@@ -0,0 +1,46 @@
+package com.fsm.logic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import com.fsm.logic.delay.InterruptDelay;
+import com.fsm.logic.delay.WheelDelay;
+
+/**
+ * Cost of creating a delay and interrupting it before its end, which is what happens on every press during IDLE and
+ * CLOSING states. The timer wheel delays of the real time clock are compared with delays parking the waiting thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DelayBenchmark {
+
+    @Benchmark
+    public boolean timedDelay() {
+        WheelDelay delay = WheelDelay.getWheelDelay(TimeUnit.MINUTES.toMillis(1));
+        delay.interrupt();
+        return delay.waitForDelay();
+    }
+
+    @Benchmark
+    public boolean infinitiveDelay() {
+        WheelDelay delay = WheelDelay.getInfinitiveWheelDelay();
+        delay.interrupt();
+        return delay.waitForDelay();
+    }
+
+    @Benchmark
+    public boolean parkingDelay() {
+        InterruptDelay delay = InterruptDelay.getInterruptDelay(TimeUnit.MINUTES.toMillis(1));
+        delay.interrupt();
+        return delay.waitForDelay();
+    }
+
+    @Benchmark
+    public boolean infinitiveParkingDelay() {
+        InterruptDelay delay = InterruptDelay.getInfinitiveInterruptDelay();
+        delay.interrupt();
+        return delay.waitForDelay();
+    }
+}
@@ -0,0 +1,48 @@
+package com.fsm.logic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.clock.ZeroDelayClock;
+
+/**
+ * Cost of one state transition without waiting: every delay of {@link ZeroDelayClock} ends immediately
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ElevatorStateBenchmark {
+
+    private static final int LEVELS = 20;
+    private static final int CURRENT_LEVEL = 10;
+
+    @Param({"IDLE", "CLOSING", "OPEN", "OPENING", "MOVING_UP", "MOVING_DOWN", "INIT", "CLOSE"})
+    public ElevatorState state;
+
+    private Elevator elevator;
+    private Direction direction;
+
+    @Setup
+    public void setUp() {
+        elevator = new Elevator(LEVELS, 3, 1, 3000, 5000, ZeroDelayClock.INSTANCE);
+        // buttons on both sides of the current level, so every state has something to decide
+        elevator.internalFloorsButtons.add(CURRENT_LEVEL - 5);
+        elevator.externalFloorsButtons.add(CURRENT_LEVEL + 5);
+        direction = state == ElevatorState.MOVING_DOWN ? Direction.DOWN : Direction.UP;
+    }
+
+    @Benchmark
+    public ElevatorState next() {
+        // moving states change the level, keep the elevator at the same place for every invocation
+        elevator.currentLevel = CURRENT_LEVEL;
+        elevator.direction = direction;
+        return state.next(elevator);
+    }
+}
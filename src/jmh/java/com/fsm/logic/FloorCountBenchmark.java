@@ -0,0 +1,57 @@
+package com.fsm.logic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.clock.ZeroDelayClock;
+
+/**
+ * Cost of transitions which look for the next pressed floor, depending on the number of floors. Every tenth floor is
+ * pressed, so the number of pending buttons grows together with the building, and the elevator stands in the middle
+ * of the longest gap without buttons.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class FloorCountBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int levels;
+
+    @Param({"IDLE", "MOVING_UP", "MOVING_DOWN", "CLOSE"})
+    public ElevatorState state;
+
+    private Elevator elevator;
+    private Direction direction;
+    private int currentLevel;
+
+    @Setup
+    public void setUp() {
+        elevator = new Elevator(levels, 3, 1, 3000, 5000, ZeroDelayClock.INSTANCE);
+        for (int level = 1; level <= levels; level += 10) {
+            elevator.internalFloorsButtons.add(level);
+            elevator.externalFloorsButtons.add(level);
+        }
+        // the lowest and the highest floors are pressed, the middle is empty
+        currentLevel = levels / 2;
+        for (int level = currentLevel - levels / 4; level <= currentLevel + levels / 4; level++) {
+            elevator.internalFloorsButtons.remove(level);
+            elevator.externalFloorsButtons.remove(level);
+        }
+        direction = state == ElevatorState.MOVING_DOWN ? Direction.DOWN : Direction.UP;
+    }
+
+    @Benchmark
+    public ElevatorState next() {
+        elevator.currentLevel = currentLevel;
+        elevator.direction = direction;
+        return state.next(elevator);
+    }
+}
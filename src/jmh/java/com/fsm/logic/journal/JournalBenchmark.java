@@ -0,0 +1,58 @@
+package com.fsm.logic.journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.ZeroDelayClock;
+
+/**
+ * Append throughput of the journal from the control thread alone and from all available threads at once. Every
+ * iteration writes a new file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JournalBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Journal {
+        Path file;
+        CommandJournal journal;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            file = Files.createTempFile("elevator", ".journal");
+            journal = new CommandJournal(file, new Elevator(20, 3, 1, 3000, 5000, ZeroDelayClock.INSTANCE));
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            journal.close();
+            Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void transitionSingleWriter(Journal journal) {
+        journal.journal.onStateChanged(ElevatorState.MOVING_UP, 7);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void commandAllWriters(Journal journal) {
+        journal.journal.onExternalCommand(7);
+    }
+}
@@ -0,0 +1,74 @@
+package com.fsm.logic.parking;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorGroup;
+import com.fsm.logic.SchedulingPolicy;
+import com.fsm.logic.SchedulingStrategy;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.traffic.TrafficGenerator;
+import com.fsm.logic.traffic.TrafficProfile;
+import com.fsm.logic.traffic.TrafficReport;
+
+/**
+ * Wait times of an elevator which stays where it stopped last and of one which parks where the demand model expects
+ * the next call: one car in 20 levels serves eight hours of 60 passengers per hour under {@link SimulatedClock}, and
+ * the model learns while the passengers come. Passengers are seeded, so both cars serve exactly the same passengers.
+ * Waits are reported as secondary results in milliseconds, the primary result is the cost of the simulation itself.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ParkingBenchmark {
+
+    private static final int LEVELS = 20;
+    private static final long BUCKET_IN_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long DURATION_IN_MS = TimeUnit.HOURS.toMillis(8);
+
+    @Param({"false", "true"})
+    public boolean parking;
+
+    @Param
+    public TrafficProfile profile;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Passengers {
+        public long waitMean;
+        public long waitP99;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            waitMean = 0;
+            waitP99 = 0;
+        }
+    }
+
+    @Benchmark
+    public TrafficReport simulate(Passengers passengers) {
+        SimulatedClock clock = new SimulatedClock();
+        DemandModel demand = new DemandModel(clock, LEVELS, BUCKET_IN_MS, 7);
+        SchedulingStrategy strategy =
+                parking ? new ParkingStrategy(SchedulingPolicy.LOOK, demand, clock) : SchedulingPolicy.LOOK;
+        Elevator elevator = new Elevator(LEVELS, 3, 1.5f, 2000, 3000, clock, strategy);
+        elevator.addListener(demand);
+        TrafficGenerator generator = new TrafficGenerator(new ElevatorGroup(elevator), profile, 60, 1);
+        generator.schedule(clock, DURATION_IN_MS);
+        clock.run(elevator);
+        // every invocation gives the same report, so the last one is kept
+        TrafficReport report = generator.getReport();
+        passengers.waitMean = Math.round(report.getWaitTime().getMean());
+        passengers.waitP99 = report.getWaitTime().getP99();
+        return report;
+    }
+}
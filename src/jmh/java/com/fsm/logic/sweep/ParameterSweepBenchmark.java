@@ -0,0 +1,38 @@
+package com.fsm.logic.sweep;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import com.fsm.logic.traffic.TrafficProfile;
+
+/**
+ * Scaling of the parameter sweep with its workers: 4 configurations of 2 cars in 12 levels, 8 runs of each. Runs
+ * don't share anything, so the time should fall nearly in proportion to the number of workers, up to the number of
+ * cores.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ParameterSweepBenchmark {
+
+    private static final int RUNS = 8;
+
+    private final ParameterSweep sweep =
+            new ParameterSweep(12, 2, TrafficProfile.LUNCH, 300, TimeUnit.MINUTES.toMillis(20));
+    private final List<ElevatorParameters> configurations = ElevatorParameters.grid(new float[] {3},
+            new float[] {1, 4}, new long[] {1000, 3000}, new long[] {3000});
+
+    @Param({"1", "2", "4"})
+    public int workers;
+
+    @Benchmark
+    public List<SweepResult> sweep() {
+        return sweep.run(configurations, RUNS, 1, workers);
+    }
+}
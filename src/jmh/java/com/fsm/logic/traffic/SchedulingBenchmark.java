@@ -0,0 +1,73 @@
+package com.fsm.logic.traffic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorGroup;
+import com.fsm.logic.SchedulingPolicy;
+import com.fsm.logic.clock.SimulatedClock;
+
+/**
+ * Wait and ride times of scheduling policies: 4 cars in 20 levels serve two hours of 600 passengers per hour under
+ * {@link SimulatedClock}. Passengers are seeded, so every policy serves exactly the same passengers and differences
+ * come from the policies only. Times of passengers are reported as secondary results in milliseconds, the primary
+ * result is the cost of the simulation itself.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class SchedulingBenchmark {
+
+    private static final long DURATION_IN_MS = TimeUnit.HOURS.toMillis(2);
+
+    @Param
+    public SchedulingPolicy policy;
+
+    @Param
+    public TrafficProfile profile;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Passengers {
+        public long waitMean;
+        public long waitP99;
+        public long rideMean;
+        public long rideP99;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            waitMean = 0;
+            waitP99 = 0;
+            rideMean = 0;
+            rideP99 = 0;
+        }
+    }
+
+    @Benchmark
+    public TrafficReport simulate(Passengers passengers) {
+        SimulatedClock clock = new SimulatedClock();
+        Elevator[] elevators = new Elevator[4];
+        for (int i = 0; i < elevators.length; i++) {
+            elevators[i] = new Elevator(20, 3, 1.5f, 2000, 3000, clock, policy);
+        }
+        TrafficGenerator generator = new TrafficGenerator(new ElevatorGroup(elevators), profile, 600, 1);
+        generator.schedule(clock, DURATION_IN_MS);
+        clock.run(elevators);
+        // every invocation gives the same report, so the last one is kept
+        TrafficReport report = generator.getReport();
+        passengers.waitMean = Math.round(report.getWaitTime().getMean());
+        passengers.waitP99 = report.getWaitTime().getP99();
+        passengers.rideMean = Math.round(report.getRideTime().getMean());
+        passengers.rideP99 = report.getRideTime().getP99();
+        return report;
+    }
+}
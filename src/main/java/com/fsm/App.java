@@ -1,6 +1,16 @@
 package com.fsm;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -8,8 +18,18 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import com.fsm.gateway.CommandGateway;
 import com.fsm.gui.ElevatorDashboard;
+import com.fsm.headless.BatchingStatusWriter;
+import com.fsm.headless.HeadlessController;
 import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorGroup;
+import com.fsm.logic.journal.CommandJournal;
+import com.fsm.logic.metrics.ElevatorMetrics;
+import com.fsm.logic.snapshot.ElevatorSnapshot;
+import com.fsm.logic.snapshot.SnapshotWriter;
+import com.fsm.logic.traffic.TrafficGenerator;
+import com.fsm.logic.traffic.TrafficProfile;
 
 public class App {
 
@@ -29,6 +49,23 @@ public class App {
         cmdOptions.addOption(Option.builder().argName("openDoorDelayTime=value").longOpt("openDoorDelayTime")
                 .numberOfArgs(2).valueSeparator()
                 .desc("The delay (in seconds) between when the door was open and will be closed").required().build());
+        cmdOptions.addOption(Option.builder().longOpt("headless")
+                .desc("Run without GUI, commands are read from the input, states are written to the output").build());
+        cmdOptions.addOption(Option.builder().argName("input=value").longOpt("input").numberOfArgs(2)
+                .valueSeparator().desc("File with commands for headless mode (standard input by default)").build());
+        cmdOptions.addOption(Option.builder().argName("journal=value").longOpt("journal").numberOfArgs(2)
+                .valueSeparator().desc("File to record commands and state transitions to").build());
+        cmdOptions.addOption(Option.builder().argName("snapshot=value").longOpt("snapshot").numberOfArgs(2)
+                .valueSeparator().desc("File to restore the state from on start and to save it to every second")
+                .build());
+        cmdOptions.addOption(Option.builder().argName("gateway=value").longOpt("gateway").numberOfArgs(2)
+                .valueSeparator().desc("Local port to accept commands from panels and to push states to").build());
+        cmdOptions.addOption(Option.builder().argName("traffic=value").longOpt("traffic").numberOfArgs(2)
+                .valueSeparator().desc("Generate passengers: uniform, up_peak, down_peak or lunch").build());
+        cmdOptions.addOption(Option.builder().argName("rate=value").longOpt("rate").numberOfArgs(2)
+                .valueSeparator().desc("Generated passengers per hour (500 by default)").build());
+        cmdOptions.addOption(Option.builder().argName("duration=value").longOpt("duration").numberOfArgs(2)
+                .valueSeparator().desc("Time (in minutes) of passenger generation (60 by default)").build());
 
         CommandLineParser parser = new DefaultParser();
 
@@ -78,8 +115,8 @@ public class App {
         }
 
         // check params
-        if (levelsNumber > 20 || levelsNumber < 5) {
-            System.out.println("--levels value should be between 5 and 20 (including)");
+        if (levelsNumber < 2) {
+            System.out.println("--levels value should be at least 2");
             return;
         }
         if (levelHeight <= 0) {
@@ -99,11 +136,66 @@ public class App {
             return;
         }
 
+        TrafficProfile trafficProfile = null;
+        double trafficRate;
+        long trafficDuration;
+        try {
+            if (cmd.hasOption("traffic")) {
+                trafficProfile = TrafficProfile.valueOf(cmd.getOptionValue("traffic").toUpperCase());
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("--traffic should be one of uniform, up_peak, down_peak or lunch");
+            return;
+        }
+        try {
+            trafficRate = Double.valueOf(cmd.getOptionValue("rate", "500"));
+        } catch (NumberFormatException e) {
+            System.out.println("--rate should be a number");
+            return;
+        }
+        try {
+            trafficDuration = Long.valueOf(cmd.getOptionValue("duration", "60"));
+        } catch (NumberFormatException e) {
+            System.out.println("--duration should be a number");
+            return;
+        }
+        if (trafficRate <= 0) {
+            System.out.println("--rate value should be more than zero");
+            return;
+        }
+        if (trafficDuration <= 0) {
+            System.out.println("--duration value should be more than zero");
+            return;
+        }
+        TrafficSettings traffic =
+                trafficProfile == null ? null : new TrafficSettings(trafficProfile, trafficRate, trafficDuration);
+        Integer gatewayPort = null;
+        try {
+            if (cmd.hasOption("gateway")) {
+                gatewayPort = Integer.valueOf(cmd.getOptionValue("gateway"));
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("--gateway should be a number");
+            return;
+        }
+
+        if (cmd.hasOption("headless")) {
+            runHeadless(levelsNumber, levelHeight, speed, doorMoveTime * 1000, openDoorDelayTime * 1000,
+                    cmd.getOptionValue("input"), cmd.getOptionValue("journal"), cmd.getOptionValue("snapshot"),
+                    traffic, gatewayPort);
+            return;
+        }
+
         ElevatorDashboard dashboard = new ElevatorDashboard(levelsNumber);
 
         Elevator elevator =
                 new Elevator(levelsNumber, levelHeight, speed, doorMoveTime * 1000, openDoorDelayTime * 1000,
                         dashboard::deselectLevelButtons, dashboard::setStatusText, dashboard::deselectOpenButton);
+        startSnapshots(elevator, cmd.getOptionValue("snapshot"));
+        startJournal(elevator, cmd.getOptionValue("journal"));
+        registerMetrics(elevator);
+        startTraffic(elevator, traffic);
+        startGateway(elevator, gatewayPort);
 
         dashboard.start(e -> elevator.addInternalCommand(e.getActionCommand()),
                 e -> elevator.addExternalCommand(e.getActionCommand()));
@@ -111,4 +203,119 @@ public class App {
         elevator.run();
     }
 
+    private static void runHeadless(int levelsNumber, float levelHeight, float speed, long doorMoveTimeInMs,
+            long openDoorDelayTimeInMs, String inputFile, String journalFile, String snapshotFile,
+            TrafficSettings traffic, Integer gatewayPort) throws IOException {
+        InputStream input = inputFile == null ? System.in : Files.newInputStream(Paths.get(inputFile));
+        BatchingStatusWriter statusWriter = new BatchingStatusWriter(new OutputStreamWriter(System.out, UTF_8));
+
+        Elevator elevator = new Elevator(levelsNumber, levelHeight, speed, doorMoveTimeInMs, openDoorDelayTimeInMs,
+                level -> {}, statusWriter, () -> {});
+        startSnapshots(elevator, snapshotFile);
+        startJournal(elevator, journalFile);
+        registerMetrics(elevator);
+        startTraffic(elevator, traffic);
+        startGateway(elevator, gatewayPort);
+
+        HeadlessController controller = new HeadlessController(elevator, System.err::println);
+        Thread inputThread = new Thread(() -> controller.readCommands(new InputStreamReader(input, UTF_8)),
+                "command-reader");
+        inputThread.setDaemon(true);
+        inputThread.start();
+
+        elevator.run();
+    }
+
+    private static void startTraffic(Elevator elevator, TrafficSettings traffic) {
+        if (traffic == null) {
+            return;
+        }
+        TrafficGenerator generator =
+                new TrafficGenerator(new ElevatorGroup(elevator), traffic.profile, traffic.passengersPerHour, 1);
+        Thread generatorThread = new Thread(() -> {
+            try {
+                generator.run(TimeUnit.MINUTES.toMillis(traffic.durationInMinutes));
+                // passengers who have already arrived are still riding
+                while (generator.getReport().getDelivered() < generator.getReport().getArrived()) {
+                    TimeUnit.SECONDS.sleep(1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.println(generator.getReport());
+        }, "traffic-generator");
+        generatorThread.setDaemon(true);
+        generatorThread.start();
+    }
+
+    private static void registerMetrics(Elevator elevator) {
+        ElevatorMetrics metrics = new ElevatorMetrics(elevator);
+        elevator.addListener(metrics);
+        try {
+            metrics.registerMBeans("elevator");
+        } catch (JMException e) {
+            System.err.println("Can't register metrics: " + e.getMessage());
+        }
+    }
+
+    private static void startJournal(Elevator elevator, String journalFile) throws IOException {
+        if (journalFile == null) {
+            return;
+        }
+        CommandJournal journal = new CommandJournal(Paths.get(journalFile), elevator);
+        elevator.addListener(journal);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Can't close journal: " + e.getMessage());
+            }
+        }, "journal-closer"));
+    }
+
+    private static void startGateway(Elevator elevator, Integer gatewayPort) throws IOException {
+        if (gatewayPort == null) {
+            return;
+        }
+        CommandGateway gateway = new CommandGateway(elevator,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), gatewayPort), System.err::println);
+        System.err.println("Command gateway listens " + gateway.getAddress());
+    }
+
+    private static void startSnapshots(Elevator elevator, String snapshotFile) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            ElevatorSnapshot snapshot = SnapshotWriter.read(Paths.get(snapshotFile));
+            if (snapshot != null) {
+                elevator.restore(snapshot);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // the snapshot is replaced by the first one written
+            System.err.println("Can't restore snapshot, starting from the initial state: " + e.getMessage());
+        }
+        SnapshotWriter writer = SnapshotWriter.start(Paths.get(snapshotFile), elevator, TimeUnit.SECONDS.toMillis(1),
+                System.err::println);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Can't write snapshot: " + e.getMessage());
+            }
+        }, "snapshot-closer"));
+    }
+
+    private static class TrafficSettings {
+        final TrafficProfile profile;
+        final double passengersPerHour;
+        final long durationInMinutes;
+
+        TrafficSettings(TrafficProfile profile, double passengersPerHour, long durationInMinutes) {
+            this.profile = profile;
+            this.passengersPerHour = passengersPerHour;
+            this.durationInMinutes = durationInMinutes;
+        }
+    }
+
 }
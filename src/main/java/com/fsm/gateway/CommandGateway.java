@@ -0,0 +1,337 @@
+package com.fsm.gateway;
+
+import static com.fsm.logic.FloorSet.NONE;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.ElevatorListener;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.FloorSet;
+import com.fsm.logic.ServiceButton;
+import com.fsm.logic.event.StateEventHandler;
+import com.fsm.logic.event.StateEventRing;
+
+/**
+ * Socket gateway between hall and car panels and the elevator. A single thread serves all connections with a
+ * selector: commands read from every ready connection are collected into a batch, where presses of the same button by
+ * several panels count once, and the batch is sent to the elevator before the next select. State changes are read
+ * from the elevator events on the same thread and written to subscribed panels. Frames are described in
+ * {@link Frame}.
+ * <p>
+ * A panel which doesn't read its state frames doesn't hold anyone: when its output buffer is full, the following
+ * frames are dropped and only the latest state is sent after the buffer is drained.
+ */
+public class CommandGateway implements Closeable {
+
+    private static final int INPUT_BUFFER_SIZE = 64 * Frame.SIZE;
+    private static final int OUTPUT_BUFFER_SIZE = 512 * Frame.SIZE;
+
+    private final Elevator elevator;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final StateEventRing.Reader events;
+    private final Consumer<String> errorConsumer;
+    // every transition wakes the selector up to push the state
+    final ElevatorListener wakeUpListener;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // accessed by the gateway thread only
+    private final List<Connection> subscribers = new ArrayList<>();
+    private final FloorSet internalBatch;
+    private final FloorSet externalBatch;
+    private boolean openBatch;
+    private final StatePusher statePusher = new StatePusher();
+
+    /**
+     * Bind the gateway and start its thread. Should be created before the elevator is started.
+     *
+     * @param elevator
+     *            - elevator receiving the commands
+     * @param address
+     *            - local address to listen, port zero means any free port
+     * @param errorConsumer
+     *            - receives errors which stop the gateway, called on the gateway thread
+     * @throws IOException
+     *             - throw when the address can't be bound
+     */
+    public CommandGateway(@Nonnull Elevator elevator, @Nonnull SocketAddress address,
+            @Nonnull Consumer<String> errorConsumer) throws IOException {
+        this.elevator = elevator;
+        this.errorConsumer = errorConsumer;
+        this.internalBatch = new FloorSet(elevator.getNumberOfLevels());
+        this.externalBatch = new FloorSet(elevator.getNumberOfLevels());
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        this.events = elevator.getEvents().newReader();
+        this.wakeUpListener = (state, level) -> {
+            if (!closed) {
+                selector.wakeup();
+            }
+        };
+        elevator.addListener(wakeUpListener);
+        this.thread = new Thread(this::serve, "command-gateway");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return address the gateway listens
+     */
+    @Nonnull
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Stop the gateway thread and close all connections
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        elevator.removeListener(wakeUpListener);
+        selector.wakeup();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void serve() {
+        try {
+            while (!closed) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                flush(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        // the panel has gone, others are served as usual
+                        disconnect(key);
+                    }
+                }
+                sendBatch();
+                events.poll(statePusher);
+            }
+        } catch (IOException e) {
+            errorConsumer.accept("Command gateway has stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                errorConsumer.accept("Can't close command gateway: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    private void read(@Nonnull SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer input = connection.input;
+        int read;
+        while ((read = channel.read(input)) > 0) {
+            input.flip();
+            int offset = 0;
+            for (; input.limit() - offset >= Frame.SIZE; offset += Frame.SIZE) {
+                decode(key, connection, input, offset);
+            }
+            input.position(offset);
+            // an incomplete frame is kept for the next read
+            input.compact();
+        }
+        if (read < 0) {
+            disconnect(key);
+        }
+    }
+
+    private void decode(@Nonnull SelectionKey key, @Nonnull Connection connection, @Nonnull ByteBuffer input,
+            int offset) {
+        byte type = Frame.getType(input, offset);
+        int value = Frame.getValue(input, offset);
+        switch (type) {
+            case Frame.INTERNAL_COMMAND:
+            case Frame.EXTERNAL_COMMAND:
+                if (value < 1 || value > elevator.getNumberOfLevels()) {
+                    reject(key, connection, type, value);
+                } else {
+                    (type == Frame.INTERNAL_COMMAND ? internalBatch : externalBatch).add(value);
+                }
+                break;
+            case Frame.OPEN_COMMAND:
+                openBatch = true;
+                break;
+            case Frame.SUBSCRIBE:
+                if (!connection.subscribed) {
+                    connection.subscribed = true;
+                    subscribers.add(connection);
+                    connection.key = key;
+                    // the panel starts from the current state instead of waiting for the next transition
+                    if (connection.output.remaining() >= Frame.SIZE) {
+                        statePusher.putLatest(connection.output);
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    } else {
+                        connection.stale = true;
+                    }
+                }
+                break;
+            case Frame.UNSUBSCRIBE:
+                if (connection.subscribed) {
+                    connection.subscribed = false;
+                    subscribers.remove(connection);
+                }
+                break;
+            default:
+                reject(key, connection, type, value);
+        }
+    }
+
+    private void reject(@Nonnull SelectionKey key, @Nonnull Connection connection, byte type, int value) {
+        if (connection.output.remaining() >= Frame.SIZE) {
+            Frame.put(connection.output, Frame.ERROR, type, Frame.NO_DIRECTION, value);
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void sendBatch() {
+        for (int floor = internalBatch.first(); floor != NONE; floor = internalBatch.higher(floor)) {
+            elevator.addInternalCommand(floor);
+        }
+        for (int floor = externalBatch.first(); floor != NONE; floor = externalBatch.higher(floor)) {
+            elevator.addExternalCommand(floor);
+        }
+        if (openBatch) {
+            elevator.addInternalCommand(ServiceButton.OPEN);
+        }
+        internalBatch.clear();
+        externalBatch.clear();
+        openBatch = false;
+    }
+
+    private void flush(@Nonnull SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer output = connection.output;
+        output.flip();
+        ((SocketChannel) key.channel()).write(output);
+        output.compact();
+        if (connection.stale && output.remaining() >= Frame.SIZE) {
+            connection.stale = false;
+            statePusher.putLatest(output);
+        }
+        boolean pending = output.position() > 0;
+        key.interestOps(pending ? key.interestOps() | SelectionKey.OP_WRITE
+                : key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+
+    private void disconnect(@Nonnull SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        if (connection != null && connection.subscribed) {
+            connection.subscribed = false;
+            subscribers.remove(connection);
+        }
+        closeQuietly(key);
+    }
+
+    private static void closeQuietly(@Nullable SelectionKey key) {
+        if (key == null) {
+            return;
+        }
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // nothing to do with a broken connection
+        }
+    }
+
+    private static class Connection {
+        final ByteBuffer input = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+        final ByteBuffer output = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+        SelectionKey key;
+        boolean subscribed;
+        // state frames were dropped, the latest one should be sent when there is room
+        boolean stale;
+    }
+
+    /**
+     * Appends state frames to output buffers of subscribers
+     */
+    private class StatePusher implements StateEventHandler {
+        private byte latestState = (byte) ElevatorState.INIT.ordinal();
+        private byte latestDirection = Frame.NO_DIRECTION;
+        private int latestLevel;
+
+        @Override
+        public void onEvent(int level, @Nonnull ElevatorState state, @Nullable Direction direction, long nanoTime) {
+            latestState = (byte) state.ordinal();
+            latestDirection = direction == null ? Frame.NO_DIRECTION : direction == Direction.UP ? Frame.UP
+                    : Frame.DOWN;
+            latestLevel = level;
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                Connection connection = subscribers.get(i);
+                if (connection.output.remaining() < Frame.SIZE) {
+                    connection.stale = true;
+                    continue;
+                }
+                putLatest(connection.output);
+                try {
+                    flush(connection.key);
+                } catch (IOException e) {
+                    disconnect(connection.key);
+                }
+            }
+        }
+
+        void putLatest(@Nonnull ByteBuffer output) {
+            Frame.put(output, Frame.STATE, latestState, latestDirection, latestLevel);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.fsm.gateway;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
+/**
+ * Binary frames of the gateway protocol. Every frame has {@link #SIZE} bytes in network byte order: type, argument,
+ * direction, reserved byte and int value.
+ * <p>
+ * Panels send {@link #INTERNAL_COMMAND} and {@link #EXTERNAL_COMMAND} with the floor as value, {@link #OPEN_COMMAND},
+ * and {@link #SUBSCRIBE}/{@link #UNSUBSCRIBE} to start and stop receiving {@link #STATE} frames. A state frame has
+ * the state ordinal as argument, direction ({@link #NO_DIRECTION}, {@link #UP} or {@link #DOWN}) and the level as
+ * value. A rejected command is answered by {@link #ERROR} frame with the command type as argument and its value.
+ */
+public final class Frame {
+
+    public static final int SIZE = 8;
+
+    // panel frames
+    public static final byte INTERNAL_COMMAND = 1;
+    public static final byte EXTERNAL_COMMAND = 2;
+    public static final byte OPEN_COMMAND = 3;
+    public static final byte SUBSCRIBE = 4;
+    public static final byte UNSUBSCRIBE = 5;
+
+    // gateway frames
+    public static final byte STATE = 16;
+    public static final byte ERROR = 17;
+
+    // directions of state frame
+    public static final byte NO_DIRECTION = 0;
+    public static final byte UP = 1;
+    public static final byte DOWN = 2;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int ARGUMENT_OFFSET = 1;
+    private static final int DIRECTION_OFFSET = 2;
+    private static final int VALUE_OFFSET = 4;
+
+    private Frame() {
+    }
+
+    /**
+     * Write frame at the buffer position, the position is moved after it
+     *
+     * @param buffer
+     *            - buffer with at least {@link #SIZE} bytes remaining
+     * @param type
+     *            - frame type
+     * @param argument
+     *            - frame argument
+     * @param direction
+     *            - direction of state frame, zero for other frames
+     * @param value
+     *            - frame value
+     */
+    public static void put(@Nonnull ByteBuffer buffer, byte type, byte argument, byte direction, int value) {
+        buffer.put(type).put(argument).put(direction).put((byte) 0).putInt(value);
+    }
+
+    public static byte getType(@Nonnull ByteBuffer buffer, int offset) {
+        return buffer.get(offset + TYPE_OFFSET);
+    }
+
+    public static byte getArgument(@Nonnull ByteBuffer buffer, int offset) {
+        return buffer.get(offset + ARGUMENT_OFFSET);
+    }
+
+    public static byte getDirection(@Nonnull ByteBuffer buffer, int offset) {
+        return buffer.get(offset + DIRECTION_OFFSET);
+    }
+
+    public static int getValue(@Nonnull ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + VALUE_OFFSET);
+    }
+}
@@ -0,0 +1,113 @@
+package com.fsm.gui;
+
+import static com.fsm.logic.FloorSet.NONE;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import com.fsm.logic.FloorSet;
+
+/**
+ * Collects dashboard updates from any thread and applies them on the Event Dispatch Thread in batches, at most
+ * {@code framesPerSecond} times per second. Only the latest status text is shown, and every level is deselected once
+ * per batch however many times it was requested, so a fast elevator doesn't flood the EDT. Requesting an update never
+ * blocks: it sets pending state and schedules a batch if none is scheduled yet.
+ */
+class DashboardUpdater {
+
+    /**
+     * Components updated by the batches, called on the EDT only
+     */
+    interface Target {
+        void setStatusText(@Nonnull String text);
+
+        void deselectLevel(int level);
+
+        void deselectOpenButton();
+    }
+
+    private final Target target;
+    private final long frameIntervalInNanos;
+
+    private final AtomicReference<String> pendingStatusText = new AtomicReference<>();
+    private final FloorSet pendingDeselectedLevels;
+    private final AtomicBoolean pendingOpenButtonDeselection = new AtomicBoolean();
+    private final AtomicBoolean batchScheduled = new AtomicBoolean();
+
+    // accessed on the EDT only
+    private long lastBatchTime;
+    private Timer batchTimer;
+
+    DashboardUpdater(int levelNumber, @Nonnull Target target, int framesPerSecond) {
+        this.target = target;
+        this.frameIntervalInNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+        this.pendingDeselectedLevels = new FloorSet(levelNumber);
+        this.lastBatchTime = System.nanoTime() - frameIntervalInNanos;
+    }
+
+    void setStatusText(@Nonnull String text) {
+        pendingStatusText.set(text);
+        scheduleBatch();
+    }
+
+    void deselectLevel(int level) {
+        pendingDeselectedLevels.add(level);
+        scheduleBatch();
+    }
+
+    void deselectOpenButton() {
+        pendingOpenButtonDeselection.set(true);
+        scheduleBatch();
+    }
+
+    /**
+     * Cancel pending deselection of the level, should be called on the EDT
+     *
+     * @param level
+     *            - required level
+     * @return true if the level was waiting for deselection
+     */
+    boolean cancelLevelDeselection(int level) {
+        return pendingDeselectedLevels.remove(level);
+    }
+
+    private void scheduleBatch() {
+        if (batchScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::applyBatchOnTime);
+        }
+    }
+
+    private void applyBatchOnTime() {
+        long delay = lastBatchTime + frameIntervalInNanos - System.nanoTime();
+        if (delay <= 0) {
+            applyBatch();
+            return;
+        }
+        if (batchTimer == null) {
+            batchTimer = new Timer(0, e -> applyBatch());
+            batchTimer.setRepeats(false);
+        }
+        batchTimer.setInitialDelay((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(delay)));
+        batchTimer.restart();
+    }
+
+    private void applyBatch() {
+        lastBatchTime = System.nanoTime();
+        // updates requested from now on schedule the next batch
+        batchScheduled.set(false);
+        String statusText = pendingStatusText.getAndSet(null);
+        if (statusText != null) {
+            target.setStatusText(statusText);
+        }
+        for (int level = pendingDeselectedLevels.first(); level != NONE; level = pendingDeselectedLevels.first()) {
+            if (pendingDeselectedLevels.remove(level)) {
+                target.deselectLevel(level);
+            }
+        }
+        if (pendingOpenButtonDeselection.getAndSet(false)) {
+            target.deselectOpenButton();
+        }
+    }
+}
@@ -4,37 +4,61 @@ import static com.fsm.logic.Elevator.OPEN_COMMAND;
 import java.awt.BorderLayout;
 import java.awt.CardLayout;
 import java.awt.Container;
-import java.awt.GridLayout;
 import java.awt.HeadlessException;
 import java.awt.event.ActionListener;
-import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.BorderFactory;
+import javax.swing.Box;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.JToggleButton;
+import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
 import javax.swing.WindowConstants;
 
+/**
+ * Elevator dashboard. Its update methods can be called from any thread, the updates are applied on the Event Dispatch
+ * Thread in batches at most {@link #MAX_FRAMES_PER_SECOND} times per second.
+ */
 public class ElevatorDashboard extends JFrame {
 
-    private static final int MAX_LEVEL_NUMBER = 20;
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_FRAMES_PER_SECOND = 30;
 
     private final int levelNumber;
+    private final transient DashboardUpdater updater;
 
     private ActionListener internalButtonsListener;
     private ActionListener externalButtonsListener;
 
-    private JToggleButton[] internalLevelButtons;
-    private JToggleButton[] externalLevelButtons;
+    private LevelButtonsList internalLevelButtons;
+    private LevelButtonsList externalLevelButtons;
     private JToggleButton openButton;
 
     private JLabel statusField;
 
     public ElevatorDashboard(int levelNumber) throws HeadlessException {
         this.levelNumber = levelNumber;
+        this.updater = new DashboardUpdater(levelNumber, new DashboardUpdater.Target() {
+            @Override
+            public void setStatusText(@Nonnull String text) {
+                statusField.setText(text);
+            }
+
+            @Override
+            public void deselectLevel(int level) {
+                internalLevelButtons.deselectLevel(level);
+                externalLevelButtons.deselectLevel(level);
+            }
+
+            @Override
+            public void deselectOpenButton() {
+                openButton.setSelected(false);
+            }
+        }, MAX_FRAMES_PER_SECOND);
     }
 
     /**
@@ -47,8 +71,14 @@ public class ElevatorDashboard extends JFrame {
      */
     public void start(@Nonnull ActionListener internalButtonsListener,
             @Nonnull ActionListener externalButtonsListener) {
-        this.internalButtonsListener = internalButtonsListener;
-        this.externalButtonsListener = externalButtonsListener;
+        this.internalButtonsListener = e -> {
+            cancelLevelDeselection(e.getSource(), e.getActionCommand());
+            internalButtonsListener.actionPerformed(e);
+        };
+        this.externalButtonsListener = e -> {
+            cancelLevelDeselection(e.getSource(), e.getActionCommand());
+            externalButtonsListener.actionPerformed(e);
+        };
 
         setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         addComponentToPane(getContentPane());
@@ -64,15 +94,14 @@ public class ElevatorDashboard extends JFrame {
      *            - required level
      */
     public void deselectLevelButtons(int levelNumber) {
-        internalLevelButtons[levelNumber - 1].setSelected(false);
-        externalLevelButtons[levelNumber - 1].setSelected(false);
+        updater.deselectLevel(levelNumber);
     }
 
     /**
      * Deselect emergency open button
      */
     public void deselectOpenButton() {
-        openButton.setSelected(false);
+        updater.deselectOpenButton();
     }
 
     /**
@@ -82,25 +111,36 @@ public class ElevatorDashboard extends JFrame {
      *            - new text
      */
     public void setStatusText(@Nonnull String text) {
-        statusField.setText(text);
+        updater.setStatusText(text);
+    }
+
+    private void cancelLevelDeselection(Object source, String command) {
+        if (!(source instanceof LevelButtonsList)) {
+            return;
+        }
+        // the button has been pressed again after its level was served, so it should stay selected,
+        // while the same button of the other list is deselected at once
+        int level = Integer.parseInt(command);
+        if (updater.cancelLevelDeselection(level)) {
+            (source == internalLevelButtons ? externalLevelButtons : internalLevelButtons).deselectLevel(level);
+        }
     }
 
     private void addComponentToPane(@Nonnull Container pane) {
-        JPanel internalButtonsPanel = new JPanel(new GridLayout(11, 2));
+        JPanel internalButtonsPanel = new JPanel(new BorderLayout());
 
-        internalLevelButtons = generateLevelButtons(levelNumber, internalButtonsListener);
-        Stream.of(internalLevelButtons).forEach(internalButtonsPanel::add);
+        internalLevelButtons = new LevelButtonsList(levelNumber, internalButtonsListener);
+        internalButtonsPanel.add(generateScrollPane(internalLevelButtons), BorderLayout.CENTER);
 
         openButton = generateButton("open", internalButtonsListener, OPEN_COMMAND);
-        internalButtonsPanel.add(openButton);
+        internalButtonsPanel.add(openButton, BorderLayout.SOUTH);
 
-        JPanel externalButtonsPanel = new JPanel(new GridLayout(11, 2));
+        JPanel externalButtonsPanel = new JPanel(new BorderLayout());
 
-        externalLevelButtons = generateLevelButtons(levelNumber, externalButtonsListener);
-        Stream.of(externalLevelButtons).forEach(externalButtonsPanel::add);
-        JToggleButton hiddenButton = generateButton("open", (e) -> {});
-        hiddenButton.setVisible(false);
-        externalButtonsPanel.add(hiddenButton);
+        externalLevelButtons = new LevelButtonsList(levelNumber, externalButtonsListener);
+        externalButtonsPanel.add(generateScrollPane(externalLevelButtons), BorderLayout.CENTER);
+        // keep both lists of the same height
+        externalButtonsPanel.add(Box.createVerticalStrut(openButton.getPreferredSize().height), BorderLayout.SOUTH);
 
         JPanel statusPanel = new JPanel();
         statusField = new JLabel("Status");
@@ -128,20 +168,9 @@ public class ElevatorDashboard extends JFrame {
     }
 
     @Nonnull
-    private static JToggleButton[] generateLevelButtons(int buttonsNumber, @Nonnull ActionListener actionListener) {
-        JToggleButton[] buttons = new JToggleButton[MAX_LEVEL_NUMBER];
-        for (int i = 0; i < MAX_LEVEL_NUMBER; i++) {
-            buttons[i] = generateButton(String.valueOf(i + 1), actionListener);
-            if (i >= buttonsNumber) {
-                buttons[i].setEnabled(false);
-            }
-        }
-        return buttons;
-    }
-
-    @Nonnull
-    private static JToggleButton generateButton(@Nonnull String name, @Nonnull ActionListener actionListener) {
-        return generateButton(name, actionListener, null);
+    private static JScrollPane generateScrollPane(@Nonnull LevelButtonsList levelButtons) {
+        return new JScrollPane(levelButtons, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
     }
 
     @Nonnull
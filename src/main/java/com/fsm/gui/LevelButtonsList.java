@@ -0,0 +1,100 @@
+package com.fsm.gui;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.BitSet;
+import javax.annotation.Nonnull;
+import javax.swing.AbstractListModel;
+import javax.swing.JList;
+import javax.swing.JToggleButton;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+
+/**
+ * Scrollable list of level buttons. Buttons are painted by a single renderer, so only visible levels cost anything
+ * and the number of levels isn't limited by the number of Swing components.
+ */
+class LevelButtonsList extends JList<Integer> {
+
+    private static final long serialVersionUID = 1L;
+    private static final int VISIBLE_LEVELS = 10;
+
+    private final BitSet pressedLevels = new BitSet();
+
+    LevelButtonsList(int levelNumber, @Nonnull ActionListener actionListener) {
+        super(new LevelsModel(levelNumber));
+        setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        setVisibleRowCount(VISIBLE_LEVELS);
+        setCellRenderer(new ButtonRenderer());
+        // all cells have the same size, the list doesn't have to measure each of them
+        setPrototypeCellValue(levelNumber);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = locationToIndex(e.getPoint());
+                if (index < 0 || !getCellBounds(index, index).contains(e.getPoint())) {
+                    return;
+                }
+                int level = getModel().getElementAt(index);
+                pressedLevels.set(level);
+                repaintLevel(level);
+                actionListener.actionPerformed(
+                        new ActionEvent(LevelButtonsList.this, ActionEvent.ACTION_PERFORMED, String.valueOf(level)));
+            }
+        });
+    }
+
+    /**
+     * Deselect button of required level
+     *
+     * @param level
+     *            - required level
+     */
+    void deselectLevel(int level) {
+        pressedLevels.clear(level);
+        repaintLevel(level);
+    }
+
+    private void repaintLevel(int level) {
+        int index = level - 1;
+        if (index < getModel().getSize()) {
+            repaint(getCellBounds(index, index));
+        }
+    }
+
+    private static class LevelsModel extends AbstractListModel<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final int levelNumber;
+
+        LevelsModel(int levelNumber) {
+            this.levelNumber = levelNumber;
+        }
+
+        @Override
+        public int getSize() {
+            return levelNumber;
+        }
+
+        @Override
+        public Integer getElementAt(int index) {
+            return index + 1;
+        }
+    }
+
+    private class ButtonRenderer implements ListCellRenderer<Integer> {
+        private final JToggleButton button = new JToggleButton();
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Integer> list, Integer level, int index,
+                boolean isSelected, boolean cellHasFocus) {
+            // list selection is ignored, the button is selected while its level is pressed
+            button.setText(String.valueOf(level));
+            button.setSelected(pressedLevels.get(level));
+            return button;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.fsm.headless;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+
+/**
+ * Line-oriented status output. Lines are queued by the caller without any I/O, and written by a separate thread in
+ * batches: everything accumulated since the previous write goes out with one flush.
+ */
+public class BatchingStatusWriter implements Consumer<String>, Closeable {
+
+    private static final String END_OF_OUTPUT = new String("end of output");
+
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private final BufferedWriter writer;
+    private final Thread writerThread;
+
+    public BatchingStatusWriter(@Nonnull Writer output) {
+        this.writer = new BufferedWriter(output);
+        this.writerThread = new Thread(this::writeLines, "status-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queue status line
+     *
+     * @param line
+     *            - line without line separator
+     */
+    @Override
+    public void accept(@Nonnull String line) {
+        lines.add(line);
+    }
+
+    /**
+     * Write all queued lines and stop the writer
+     */
+    @Override
+    public void close() throws IOException {
+        lines.add(END_OF_OUTPUT);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.flush();
+    }
+
+    private void writeLines() {
+        List<String> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(lines.take());
+                lines.drainTo(batch);
+                for (String line : batch) {
+                    // noinspection StringEquality
+                    if (line == END_OF_OUTPUT) {
+                        writer.flush();
+                        return;
+                    }
+                    writer.write(line);
+                    writer.newLine();
+                }
+                writer.flush();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.fsm.headless;
+
+import static com.fsm.logic.Elevator.OPEN_COMMAND;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator;
+
+/**
+ * Feeds commands read from a stream into the elevator, one command per line:
+ * <ul>
+ * <li>{@code i <floor>} - internal button</li>
+ * <li>{@code e <floor>} - external button</li>
+ * <li>{@code o} - internal open button</li>
+ * </ul>
+ * Empty lines and lines started with {@code #} are ignored.
+ */
+public class HeadlessController {
+
+    private final Elevator elevator;
+    private final Consumer<String> errorConsumer;
+
+    public HeadlessController(@Nonnull Elevator elevator, @Nonnull Consumer<String> errorConsumer) {
+        this.elevator = elevator;
+        this.errorConsumer = errorConsumer;
+    }
+
+    /**
+     * Read commands until the end of the stream
+     *
+     * @param input
+     *            - commands stream
+     */
+    public void readCommands(@Nonnull Reader input) {
+        try (BufferedReader reader = new BufferedReader(input)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    executeCommand(line.trim());
+                } catch (IllegalArgumentException e) {
+                    errorConsumer.accept(e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void executeCommand(@Nonnull String line) throws IllegalArgumentException {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return;
+        }
+        String[] parts = line.split("\\s+");
+        switch (parts[0].toLowerCase()) {
+            case "i":
+                elevator.addInternalCommand(getArgument(parts, line));
+                break;
+            case "e":
+                elevator.addExternalCommand(getArgument(parts, line));
+                break;
+            case OPEN_COMMAND:
+                if (parts.length != 1) {
+                    throw new IllegalArgumentException("Unexpected format of command " + line);
+                }
+                elevator.addInternalCommand(OPEN_COMMAND);
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected command " + line);
+        }
+    }
+
+    @Nonnull
+    private static String getArgument(@Nonnull String[] parts, @Nonnull String line) {
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Unexpected format of command " + line);
+        }
+        return parts[1];
+    }
+}
@@ -0,0 +1,104 @@
+package com.fsm.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of commands from any number of threads to the elevator thread. A command is a single int
+ * holding its type and floor, so offering and polling never allocate. Every slot has a sequence number telling
+ * whether it is free for the producer which has claimed it, or written and ready for the consumer.
+ */
+final class CommandInbox {
+
+    static final int EMPTY = -1;
+
+    static final int INTERNAL = 1;
+    static final int EXTERNAL = 2;
+    static final int OPEN = 3;
+
+    private static final int TYPE_BITS = 2;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    /**
+     * The highest floor which fits into a command
+     */
+    static final int MAX_FLOOR = Integer.MAX_VALUE >>> TYPE_BITS;
+
+    private final int mask;
+    private final int[] commands;
+    // slot is free for the producer at position p when its sequence is p, and ready for the consumer when it is p + 1
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // accessed by the consumer only
+    private long head;
+
+    /**
+     * @param capacity
+     *            - maximal number of commands waiting for the consumer, should be power of two
+     */
+    CommandInbox(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity should be power of two, but was " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.commands = new int[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add command, can be called by any thread
+     *
+     * @param command
+     *            - command created by {@link #command(int, int)}
+     * @return false if the inbox is full
+     */
+    boolean offer(int command) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    commands[index] = command;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // the consumer hasn't taken the command written a lap ago
+                return false;
+            }
+            position = tail.get();
+        }
+    }
+
+    /**
+     * Take the oldest command, should be called by the consumer only
+     *
+     * @return command or {@link #EMPTY}
+     */
+    int poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return EMPTY;
+        }
+        int command = commands[index];
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return command;
+    }
+
+    static int command(int type, int floor) {
+        return floor << TYPE_BITS | type;
+    }
+
+    static int typeOf(int command) {
+        return command & TYPE_MASK;
+    }
+
+    static int floorOf(int command) {
+        return command >>> TYPE_BITS;
+    }
+}
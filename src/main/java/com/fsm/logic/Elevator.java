@@ -1,12 +1,19 @@
 package com.fsm.logic;
 
+import static com.fsm.logic.FloorSet.NONE;
 import static java.lang.String.format;
-import java.util.NavigableSet;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.Arrays;
 import java.util.function.Consumer;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.clock.Clock;
+import com.fsm.logic.clock.RealTimeClock;
 import com.fsm.logic.delay.Delay;
 import com.fsm.logic.delay.MockDelay;
+import com.fsm.logic.delay.WakeUpSignal;
+import com.fsm.logic.event.StateEventHandler;
+import com.fsm.logic.event.StateEventRing;
+import com.fsm.logic.snapshot.ElevatorSnapshot;
 
 /**
  * The class is a model of simplified elevator (only one service internal button). As source I use elevator from house
@@ -16,117 +23,690 @@ public class Elevator implements Runnable {
 
     public static final String OPEN_COMMAND = "o";
 
+    private static final int EVENTS_CAPACITY = 1024;
+    private static final int INBOX_CAPACITY = 4096;
+    private static final ElevatorState[] STATES = ElevatorState.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     // elevator params
-    private final int numberOfLevels;
+    final int numberOfLevels;
+    private final float levelHeightInMeter;
+    private final float speedInMeterPerSecond;
     final long levelPassingTimeInMs;
     final long doorMoveTimeInMs;
     final long openDoorTimeInMs;
+    final Clock clock;
+    final SchedulingStrategy strategy;
+    @Nullable
+    final MotionPlanner motionPlanner;
 
-    // callbacks
-    private final Consumer<String> printStatusCallback;
-    private final Consumer<Integer> disableLevelButtonCallback;
-    private final Runnable disableOpenButtonCallback;
+    // observers
+    private final StateEventRing events = new StateEventRing(EVENTS_CAPACITY);
+    @Nullable
+    private final CallbacksHandler callbacksHandler;
+    private volatile ElevatorListener[] listeners = new ElevatorListener[0];
 
-    // elevator state
-    private ElevatorState state;
+    // elevator state, read by threads sending commands to decide which wait they interrupt
+    private volatile ElevatorState state;
     int currentLevel;
+    volatile boolean stopped = false;
+    // state, direction and level of the last transition packed together, so other threads see them consistent
+    private volatile long lastTransition;
 
-    // buttons state
-    final NavigableSet<Integer> internalFloorsButtons = new ConcurrentSkipListSet<>();
-    final NavigableSet<Integer> externalFloorsButtons = new ConcurrentSkipListSet<>();
+    // buttons state, commands wait in the inbox until the elevator thread applies them to the buttons
+    private final CommandInbox inbox = new CommandInbox(INBOX_CAPACITY);
+    final FloorSet internalFloorsButtons;
+    final FloorSet externalFloorsButtons;
     volatile boolean openButtonPressed = false;
+    // commands which didn't fit into the inbox, applied by their senders and reported by the elevator thread
+    private final FloorSet overflowedInternalCommands;
+    private final FloorSet overflowedExternalCommands;
+    private volatile boolean openCommandOverflowed;
 
     // state specific variables
     Direction direction;
-    long closingTimeSpent;
+    long closingStartTime;
+    // read by snapshot() from other threads
+    volatile long closingTimeSpent;
+
+    // level where the planned trip ends, and the flag set by calls which land ahead of the car during the trip
+    volatile int targetLevel = NONE;
+    volatile boolean tripReplanRequested;
 
-    // these delay are not null to get rid from synchronization blocks (no need to check null values)
-    volatile Delay idleInterruptDelay = new MockDelay();
-    volatile Delay closingInterruptDelay = new MockDelay();
+    // waits of IDLE and CLOSING are woken up by stable signals, so senders never see a delay being replaced
+    final WakeUpSignal idleSignal = new WakeUpSignal();
+    final WakeUpSignal openSignal = new WakeUpSignal();
+    // this delay is not null to get rid from synchronization blocks (no need to check null values)
+    volatile Delay movingInterruptDelay = new MockDelay();
+
+    // non-blocking driving by step(), the delay of the waiting state is checked instead of awaited
+    private boolean stepping;
+    @Nullable
+    private StepDelay pendingDelay;
+    private Step pendingStep;
+    @Nullable
+    private StateEventRing.Subscription callbacksSubscription;
+    @Nullable
+    private volatile Runnable wakeUpHandler;
 
     public Elevator(int numberOfLevels, float levelHeightInMeter, float speedInMeterPerSecond, long doorMoveTimeInMs,
             long openDoorDelayTimeInMs, @Nonnull Consumer<Integer> disableLevelButtonCallback,
             @Nonnull Consumer<String> printStatusConsumer, @Nonnull Runnable disableOpenButtonCallback) {
+        this(numberOfLevels, levelHeightInMeter, speedInMeterPerSecond, doorMoveTimeInMs, openDoorDelayTimeInMs,
+                disableLevelButtonCallback, printStatusConsumer, disableOpenButtonCallback, RealTimeClock.INSTANCE);
+    }
+
+    public Elevator(int numberOfLevels, float levelHeightInMeter, float speedInMeterPerSecond, long doorMoveTimeInMs,
+            long openDoorDelayTimeInMs, @Nonnull Consumer<Integer> disableLevelButtonCallback,
+            @Nonnull Consumer<String> printStatusConsumer, @Nonnull Runnable disableOpenButtonCallback,
+            @Nonnull Clock clock) {
+        this(numberOfLevels, levelHeightInMeter, speedInMeterPerSecond, doorMoveTimeInMs, openDoorDelayTimeInMs,
+                new CallbacksHandler(numberOfLevels, disableLevelButtonCallback, printStatusConsumer,
+                        disableOpenButtonCallback),
+                clock, SchedulingPolicy.COLLECTIVE_DOWN, 0);
+    }
+
+    /**
+     * Create elevator without callbacks, its changes can be observed by listeners and events subscribers
+     */
+    public Elevator(int numberOfLevels, float levelHeightInMeter, float speedInMeterPerSecond, long doorMoveTimeInMs,
+            long openDoorDelayTimeInMs, @Nonnull Clock clock) {
+        this(numberOfLevels, levelHeightInMeter, speedInMeterPerSecond, doorMoveTimeInMs, openDoorDelayTimeInMs,
+                clock, SchedulingPolicy.COLLECTIVE_DOWN, 0);
+    }
+
+    /**
+     * Create elevator without callbacks, which goes where the strategy decides
+     */
+    public Elevator(int numberOfLevels, float levelHeightInMeter, float speedInMeterPerSecond, long doorMoveTimeInMs,
+            long openDoorDelayTimeInMs, @Nonnull Clock clock, @Nonnull SchedulingStrategy strategy) {
+        this(numberOfLevels, levelHeightInMeter, speedInMeterPerSecond, doorMoveTimeInMs, openDoorDelayTimeInMs,
+                null, clock, strategy, 0);
+    }
+
+    /**
+     * Create elevator without callbacks, which goes where the strategy decides and accelerates and decelerates with the
+     * given acceleration. Trips between stops are planned as a whole instead of passing levels one by one.
+     *
+     * @param accelerationInMeterPerSecond2
+     *            - acceleration of the car, zero means constant speed with passing levels one by one
+     */
+    public Elevator(int numberOfLevels, float levelHeightInMeter, float speedInMeterPerSecond, long doorMoveTimeInMs,
+            long openDoorDelayTimeInMs, @Nonnull Clock clock, @Nonnull SchedulingStrategy strategy,
+            float accelerationInMeterPerSecond2) {
+        this(numberOfLevels, levelHeightInMeter, speedInMeterPerSecond, doorMoveTimeInMs, openDoorDelayTimeInMs,
+                null, clock, strategy, accelerationInMeterPerSecond2);
+    }
+
+    private Elevator(int numberOfLevels, float levelHeightInMeter, float speedInMeterPerSecond,
+            long doorMoveTimeInMs, long openDoorDelayTimeInMs, @Nullable CallbacksHandler callbacksHandler,
+            @Nonnull Clock clock, @Nonnull SchedulingStrategy strategy, float accelerationInMeterPerSecond2) {
+        if (accelerationInMeterPerSecond2 < 0) {
+            throw new IllegalArgumentException("Acceleration should not be negative, but was "
+                    + accelerationInMeterPerSecond2);
+        }
+        if (numberOfLevels > CommandInbox.MAX_FLOOR) {
+            throw new IllegalArgumentException("Number of levels should not exceed " + CommandInbox.MAX_FLOOR
+                    + ", but was " + numberOfLevels);
+        }
         this.levelPassingTimeInMs = (long) (levelHeightInMeter * 1000 / speedInMeterPerSecond);
         this.numberOfLevels = numberOfLevels;
+        this.levelHeightInMeter = levelHeightInMeter;
+        this.speedInMeterPerSecond = speedInMeterPerSecond;
         this.doorMoveTimeInMs = doorMoveTimeInMs;
         this.openDoorTimeInMs = openDoorDelayTimeInMs;
+        this.clock = clock;
+        this.strategy = strategy;
+        this.motionPlanner = accelerationInMeterPerSecond2 == 0 ? null
+                : new MotionPlanner(accelerationInMeterPerSecond2, speedInMeterPerSecond, levelHeightInMeter);
+
+        this.internalFloorsButtons = new FloorSet(numberOfLevels);
+        this.externalFloorsButtons = new FloorSet(numberOfLevels);
+        this.overflowedInternalCommands = new FloorSet(numberOfLevels);
+        this.overflowedExternalCommands = new FloorSet(numberOfLevels);
 
         this.state = ElevatorState.INIT;
+        this.lastTransition = packTransition(state, null, 0);
 
-        this.printStatusCallback = printStatusConsumer;
-        this.disableLevelButtonCallback = disableLevelButtonCallback;
-        this.disableOpenButtonCallback = disableOpenButtonCallback;
+        this.callbacksHandler = callbacksHandler;
+        if (callbacksHandler != null) {
+            // the subscriber thread which reads the elevator is started later
+            callbacksHandler.elevator = this;
+        }
     }
 
+    /**
+     * Run the elevator on the current thread until it is stopped, waiting for delays of the states on this thread.
+     * The blocking counterpart of {@link #step()}.
+     */
     @Override
     public void run() {
-        // noinspection InfiniteLoopStatement
-        while (true) {
-            printStatusCallback.accept(format("Level: %d State: %s", currentLevel, state));
-            state = state.next(this);
-            // reset service button
-            openButtonPressed = false;
-            disableOpenButtonCallback.run();
+        // callbacks are called on their own thread, so slow consumers don't delay the elevator
+        StateEventRing.Subscription callbacksSubscription =
+                callbacksHandler == null ? null : events.subscribe(callbacksHandler, "elevator-callbacks");
+        try {
+            while (!stopped) {
+                startState();
+                Delay delay = state.enter(this);
+                finishState(delay != null && delay.waitForDelay());
+            }
+        } finally {
+            if (callbacksSubscription != null) {
+                callbacksSubscription.close();
+            }
+        }
+    }
+
+    /**
+     * Advance the elevator through the states which don't wait, up to the first one which does, and return without
+     * waiting. The returned step tells when the elevator should be stepped again: at its deadline, or earlier when a
+     * command interrupts the wait and the wake-up handler is called. Stepping before that does nothing, so spurious
+     * calls are harmless. Should not be called by two threads at once, or for an elevator started by {@link #run()}.
+     * <p>
+     * Deadlines are measured by the clock of the elevator, so the clock should flow by itself, like the real time one.
+     *
+     * @return the state the elevator waits in, with its deadline and wake condition
+     */
+    @Nonnull
+    public Step step() {
+        stepping = true;
+        if (callbacksHandler != null && callbacksSubscription == null && !stopped) {
+            // stepping threads are usually pooled platform ones, a platform subscriber per car would outnumber them
+            callbacksSubscription =
+                    events.subscribe(callbacksHandler, Thread.ofVirtual().name("elevator-callbacks"));
+        }
+        StepDelay delay = pendingDelay;
+        if (delay != null) {
+            if (!delay.isOver(clock.currentTimeMillis())) {
+                return pendingStep;
+            }
+            pendingDelay = null;
+            finishState(delay.isInterrupted());
+        }
+        while (!stopped) {
+            startState();
+            delay = (StepDelay) state.enter(this);
+            if (delay == null || delay.isOver(clock.currentTimeMillis())) {
+                finishState(delay != null && delay.isInterrupted());
+                continue;
+            }
+            pendingDelay = delay;
+            pendingStep = new Step(state, delay.getDeadlineInMs(), delay.isInterruptible());
+            return pendingStep;
+        }
+        if (callbacksSubscription != null) {
+            callbacksSubscription.close();
+            callbacksSubscription = null;
+        }
+        return Step.STOPPED;
+    }
+
+    /**
+     * Set handler called when a command interrupts the wait of a stepped elevator, so the driver can step it before
+     * the deadline. The handler is called by the thread which sent the command and should be short.
+     *
+     * @param handler
+     *            - wake-up handler, null to remove it
+     */
+    public void setWakeUpHandler(@Nullable Runnable handler) {
+        wakeUpHandler = handler;
+    }
+
+    public int getNumberOfLevels() {
+        return numberOfLevels;
+    }
+
+    public float getLevelHeightInMeter() {
+        return levelHeightInMeter;
+    }
+
+    public float getSpeedInMeterPerSecond() {
+        return speedInMeterPerSecond;
+    }
+
+    public long getDoorMoveTimeInMs() {
+        return doorMoveTimeInMs;
+    }
+
+    public long getOpenDoorTimeInMs() {
+        return openDoorTimeInMs;
+    }
+
+    @Nonnull
+    public Clock getClock() {
+        return clock;
+    }
+
+    @Nonnull
+    public SchedulingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return ring of state changes, which can be read by any number of subscribers
+     */
+    @Nonnull
+    public StateEventRing getEvents() {
+        return events;
+    }
+
+    /**
+     * Add synchronous listener. Should be called before the elevator is started.
+     *
+     * @param listener
+     *            - new listener
+     */
+    public synchronized void addListener(@Nonnull ElevatorListener listener) {
+        ElevatorListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    /**
+     * Remove listener added by {@link #addListener(ElevatorListener)}. A transition which is being reported may
+     * still call it.
+     *
+     * @param listener
+     *            - listener to remove
+     * @return false if the listener hasn't been added
+     */
+    public synchronized boolean removeListener(@Nonnull ElevatorListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                ElevatorListener[] newListeners = new ElevatorListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+                listeners = newListeners;
+                return true;
+            }
         }
+        return false;
     }
 
     /**
-     * Set internal button using received command
+     * Take snapshot of the state at the last transition together with pressed buttons. Can be called by any thread,
+     * commands which haven't been applied to the buttons yet are not included.
+     *
+     * @return snapshot which can be restored by {@link #restore(ElevatorSnapshot)}
+     */
+    @Nonnull
+    public ElevatorSnapshot snapshot() {
+        long transition = lastTransition;
+        return new ElevatorSnapshot(numberOfLevels, (int) transition, STATES[(int) (transition >>> 40)],
+                direction(transition), internalFloorsButtons, externalFloorsButtons, openButtonPressed,
+                closingTimeSpent);
+    }
+
+    /**
+     * Continue from the snapshot instead of the initial state. Should be called before the elevator is started.
+     *
+     * @param snapshot
+     *            - snapshot of elevator with the same number of levels
+     * @throws IllegalArgumentException
+     *             - throw when the snapshot is taken from elevator with other number of levels
+     */
+    public void restore(@Nonnull ElevatorSnapshot snapshot) throws IllegalArgumentException {
+        if (snapshot.getNumberOfLevels() != numberOfLevels) {
+            throw new IllegalArgumentException(format("Snapshot of %d levels can't be restored to %d levels",
+                    snapshot.getNumberOfLevels(), numberOfLevels));
+        }
+        currentLevel = snapshot.getLevel();
+        direction = snapshot.getDirection();
+        closingTimeSpent = snapshot.getClosingTimeSpent();
+        openButtonPressed = snapshot.isOpenButtonPressed();
+        internalFloorsButtons.clear();
+        externalFloorsButtons.clear();
+        for (int floor : snapshot.getInternalFloors()) {
+            internalFloorsButtons.add(floor);
+        }
+        for (int floor : snapshot.getExternalFloors()) {
+            externalFloorsButtons.add(floor);
+        }
+        state = snapshot.getState();
+        lastTransition = packTransition(state, direction, currentLevel);
+    }
+
+    /**
+     * Stop the elevator after current state. Idle elevator is stopped immediately.
+     */
+    public void stop() {
+        stopped = true;
+        idleSignal.signal();
+    }
+
+    /**
+     * Set internal button using received command. Adapter of the typed API for text sources like the GUI.
      * 
      * @param command
-     *            - new command
+     *            - new command, floor number or {@link #OPEN_COMMAND}
      * @throws IllegalArgumentException
      *             - throw when command getting out from required diapason
      */
     public void addInternalCommand(@Nonnull String command) throws IllegalArgumentException {
         if (command.toLowerCase().equals(OPEN_COMMAND)) {
-            if (state == ElevatorState.CLOSING) {
-                openButtonPressed = true;
-                closingInterruptDelay.interrupt();
-            }
+            addInternalCommand(ServiceButton.OPEN);
         } else {
-            internalFloorsButtons.add(getFloorNumberFromCommand(command));
-            if (state == ElevatorState.IDLE) {
-                idleInterruptDelay.interrupt();
-            }
-
+            addInternalCommand(getFloorNumberFromCommand(command));
         }
     }
 
     /**
-     * Set external button using received command
+     * Set external button using received command. Adapter of the typed API for text sources like the GUI.
      *
      * @param command
-     *            - new command
+     *            - new command, floor number
      * @throws IllegalArgumentException
      *             - throw when command getting out from required diapason
      */
     public void addExternalCommand(@Nonnull String command) throws IllegalArgumentException {
-        externalFloorsButtons.add(getFloorNumberFromCommand(command));
-        if (state == ElevatorState.IDLE) {
-            idleInterruptDelay.interrupt();
+        addExternalCommand(getFloorNumberFromCommand(command));
+    }
+
+    /**
+     * Press internal floor button. Can be called by any thread, nothing is allocated.
+     *
+     * @param floor
+     *            - floor number
+     * @throws IllegalArgumentException
+     *             - throw when floor getting out from required diapason
+     */
+    public void addInternalCommand(int floor) throws IllegalArgumentException {
+        checkFloor(floor);
+        for (ElevatorListener listener : listeners) {
+            listener.onInternalCommand(floor);
+        }
+        if (!inbox.offer(CommandInbox.command(CommandInbox.INTERNAL, floor))) {
+            // the elevator thread is far behind, the set is safe to update directly
+            internalFloorsButtons.add(floor);
+            overflowedInternalCommands.add(floor);
+        }
+        wakeUp(floor);
+    }
+
+    /**
+     * Press external (hall) button. Can be called by any thread, nothing is allocated.
+     *
+     * @param floor
+     *            - floor number
+     * @throws IllegalArgumentException
+     *             - throw when floor getting out from required diapason
+     */
+    public void addExternalCommand(int floor) throws IllegalArgumentException {
+        checkFloor(floor);
+        for (ElevatorListener listener : listeners) {
+            listener.onExternalCommand(floor);
+        }
+        if (!inbox.offer(CommandInbox.command(CommandInbox.EXTERNAL, floor))) {
+            externalFloorsButtons.add(floor);
+            overflowedExternalCommands.add(floor);
         }
+        wakeUp(floor);
     }
 
-    void disableCurrentLevelButtons() {
-        disableLevelButtonCallback.accept(currentLevel);
+    /**
+     * Press internal service button. Can be called by any thread, nothing is allocated.
+     *
+     * @param button
+     *            - pressed button
+     */
+    public void addInternalCommand(@Nonnull ServiceButton button) {
+        for (ElevatorListener listener : listeners) {
+            listener.onOpenCommand();
+        }
+        // the button works only while the door is closing
+        if (state == ElevatorState.CLOSING) {
+            if (!inbox.offer(CommandInbox.command(CommandInbox.OPEN, 0))) {
+                openButtonPressed = true;
+                openCommandOverflowed = true;
+            }
+            if (openSignal.signal()) {
+                onDelayInterrupted(ElevatorState.CLOSING);
+            }
+        }
     }
 
-    private int getFloorNumberFromCommand(@Nonnull String command) throws IllegalArgumentException {
-        try {
-            int floor = Integer.parseInt(command);
-            if (floor < 1 && floor > numberOfLevels) {
-                throw new IllegalArgumentException(
-                        format("Wrong floor number %d. Should be between 1 and %d", floor, numberOfLevels));
+    @Nonnull
+    ElevatorState getState() {
+        return state;
+    }
+
+    /**
+     * Announce the current state to observers and apply waiting commands before the state starts
+     */
+    private void startState() {
+        lastTransition = packTransition(state, direction, currentLevel);
+        if (callbacksHandler != null && state == ElevatorState.OPENING) {
+            callbacksHandler.openedLevels.add(currentLevel);
+        }
+        events.publish(currentLevel, state, direction, clock.nanoTime());
+        for (ElevatorListener listener : listeners) {
+            listener.onStateChanged(state, currentLevel);
+        }
+        drainCommands();
+    }
+
+    private void finishState(boolean interrupted) {
+        state = state.complete(this, interrupted);
+        // reset service button
+        openButtonPressed = false;
+    }
+
+    @Nonnull
+    Delay getUninterruptedDelay(long timeoutInMs) {
+        return stepping ? new StepDelay(this, clock.currentTimeMillis() + timeoutInMs, false)
+                : clock.getUninterruptedDelay(timeoutInMs);
+    }
+
+    @Nonnull
+    Delay getInterruptDelay(long timeoutInMs) {
+        return stepping ? new StepDelay(this, clock.currentTimeMillis() + timeoutInMs, true)
+                : clock.getInterruptDelay(timeoutInMs);
+    }
+
+    @Nonnull
+    Delay getInfinitiveInterruptDelay() {
+        return stepping ? new StepDelay(this, Step.NO_DEADLINE, true) : clock.getInfinitiveInterruptDelay();
+    }
+
+    @Nonnull
+    Delay getIdleDelay(long timeoutInMs) {
+        return stepping ? new StepDelay(this, clock.currentTimeMillis() + timeoutInMs, true)
+                : clock.getIdleDelay(timeoutInMs);
+    }
+
+    /**
+     * Called by a stepped delay when a command interrupts it
+     */
+    void onStepDelayInterrupted() {
+        Runnable handler = wakeUpHandler;
+        if (handler != null) {
+            handler.run();
+        }
+    }
+
+    /**
+     * Apply commands waiting in the inbox to the buttons. Called by the elevator thread between transitions and after
+     * every wait which may be interrupted by a command, at most a full inbox at once. Commands which didn't fit into
+     * the inbox are already applied, they are only reported to the listeners.
+     */
+    void drainCommands() {
+        for (int i = 0; i < INBOX_CAPACITY; i++) {
+            int command = inbox.poll();
+            if (command == CommandInbox.EMPTY) {
+                break;
             }
-            return floor;
+            int floor = CommandInbox.floorOf(command);
+            switch (CommandInbox.typeOf(command)) {
+                case CommandInbox.INTERNAL:
+                    internalFloorsButtons.add(floor);
+                    for (ElevatorListener listener : listeners) {
+                        listener.onInternalCommandApplied(floor);
+                    }
+                    break;
+                case CommandInbox.EXTERNAL:
+                    externalFloorsButtons.add(floor);
+                    for (ElevatorListener listener : listeners) {
+                        listener.onExternalCommandApplied(floor);
+                    }
+                    break;
+                default:
+                    // pressed while the door was closing, ignored if the door is already closed
+                    if (state == ElevatorState.CLOSING) {
+                        openButtonPressed = true;
+                        for (ElevatorListener listener : listeners) {
+                            listener.onOpenCommandApplied();
+                        }
+                    }
+            }
+        }
+        reportOverflowedCommands();
+    }
+
+    private void reportOverflowedCommands() {
+        for (int floor = overflowedInternalCommands.first(); floor != NONE;
+                floor = overflowedInternalCommands.higher(floor)) {
+            if (overflowedInternalCommands.remove(floor)) {
+                for (ElevatorListener listener : listeners) {
+                    listener.onInternalCommandApplied(floor);
+                }
+            }
+        }
+        for (int floor = overflowedExternalCommands.first(); floor != NONE;
+                floor = overflowedExternalCommands.higher(floor)) {
+            if (overflowedExternalCommands.remove(floor)) {
+                for (ElevatorListener listener : listeners) {
+                    listener.onExternalCommandApplied(floor);
+                }
+            }
+        }
+        if (openCommandOverflowed) {
+            openCommandOverflowed = false;
+            if (state == ElevatorState.CLOSING) {
+                for (ElevatorListener listener : listeners) {
+                    listener.onOpenCommandApplied();
+                }
+            }
+        }
+    }
+
+    /**
+     * Interrupt the wait which the new floor command may end. The command is offered before, so the elevator thread
+     * either sees it in the inbox before it starts waiting, or is interrupted. The idle signal is sent whatever the
+     * state is, an elevator which isn't idle only takes a newer key when it becomes idle.
+     */
+    private void wakeUp(int floor) {
+        if (idleSignal.signal()) {
+            onDelayInterrupted(ElevatorState.IDLE);
+        }
+        interruptTripIfAhead(floor);
+    }
+
+    /**
+     * Make the moving elevator re-plan its trip if the floor is between the car and the end of the trip. Before the
+     * first trip is planned nothing is interrupted, the planning drains the command anyway.
+     */
+    private void interruptTripIfAhead(int floor) {
+        ElevatorState currentState = state;
+        if (motionPlanner == null
+                || currentState != ElevatorState.MOVING_UP && currentState != ElevatorState.MOVING_DOWN) {
+            return;
+        }
+        int target = targetLevel;
+        // the car may have passed many levels since the trip started, so it is compared with the car position
+        double position = motionPlanner.getPositionAt(clock.nanoTime());
+        boolean ahead = currentState == ElevatorState.MOVING_UP
+                ? floor > position && (target == NONE || floor < target)
+                : floor < position && (target == NONE || floor > target);
+        if (ahead) {
+            tripReplanRequested = true;
+            if (movingInterruptDelay.interrupt()) {
+                onDelayInterrupted(currentState);
+            }
+        }
+    }
+
+    private void onDelayInterrupted(@Nonnull ElevatorState interruptedState) {
+        for (ElevatorListener listener : listeners) {
+            listener.onDelayInterrupted(interruptedState);
+        }
+    }
+
+    int getFloorNumberFromCommand(@Nonnull String command) throws IllegalArgumentException {
+        int floor;
+        try {
+            floor = Integer.parseInt(command);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Unexpected format of command " + command, e);
         }
+        checkFloor(floor);
+        return floor;
     }
 
-    enum Direction {
+    private static long packTransition(@Nonnull ElevatorState state, @Nullable Direction direction, int level) {
+        return (long) state.ordinal() << 40 | (direction == null ? 0L : direction.ordinal() + 1L) << 32
+                | (level & 0xFFFFFFFFL);
+    }
+
+    @Nullable
+    private static Direction direction(long transition) {
+        int direction = (int) (transition >>> 32) & 0xFF;
+        return direction == 0 ? null : DIRECTIONS[direction - 1];
+    }
+
+    private void checkFloor(int floor) throws IllegalArgumentException {
+        if (floor < 1 || floor > numberOfLevels) {
+            throw new IllegalArgumentException(
+                    format("Wrong floor number %d. Should be between 1 and %d", floor, numberOfLevels));
+        }
+    }
+
+    public enum Direction {
         UP, DOWN
     }
+
+    /**
+     * Calls callbacks passed to the constructor, formatting the status on the subscriber thread. Levels where the door
+     * has opened are also kept in a set, so their buttons are released even if the subscriber loses the events.
+     */
+    private static class CallbacksHandler implements StateEventHandler {
+        private final Consumer<Integer> disableLevelButtonCallback;
+        private final Consumer<String> printStatusCallback;
+        private final Runnable disableOpenButtonCallback;
+        // added by the elevator thread before the OPENING event is published, removed by the subscriber
+        private final FloorSet openedLevels;
+        private Elevator elevator;
+
+        CallbacksHandler(int numberOfLevels, @Nonnull Consumer<Integer> disableLevelButtonCallback,
+                @Nonnull Consumer<String> printStatusCallback, @Nonnull Runnable disableOpenButtonCallback) {
+            this.disableLevelButtonCallback = disableLevelButtonCallback;
+            this.printStatusCallback = printStatusCallback;
+            this.disableOpenButtonCallback = disableOpenButtonCallback;
+            this.openedLevels = new FloorSet(numberOfLevels);
+        }
+
+        @Override
+        public void onEvent(int level, @Nonnull ElevatorState state, @Nullable Direction direction, long nanoTime) {
+            printStatusCallback.accept(format("Level: %d State: %s", level, state));
+            if (state == ElevatorState.OPENING) {
+                openedLevels.remove(level);
+                disableLevelButtonCallback.accept(level);
+            }
+            // service button is reset on every transition
+            disableOpenButtonCallback.run();
+        }
+
+        @Override
+        public void onEventsLost(long count) {
+            // the lost events may have opened the door at levels whose buttons are still selected
+            for (int level = openedLevels.first(); level != FloorSet.NONE; level = openedLevels.higher(level)) {
+                if (openedLevels.remove(level)) {
+                    disableLevelButtonCallback.accept(level);
+                }
+            }
+            long transition = elevator.lastTransition;
+            printStatusCallback.accept(format("Level: %d State: %s", (int) transition,
+                    STATES[(int) (transition >>> 40)]));
+            disableOpenButtonCallback.run();
+        }
+    }
 }
@@ -0,0 +1,228 @@
+package com.fsm.logic;
+
+import static com.fsm.logic.Elevator.Direction.DOWN;
+import static com.fsm.logic.Elevator.Direction.UP;
+import static com.fsm.logic.FloorSet.NONE;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator.Direction;
+
+/**
+ * Group controller of several elevators sharing external (hall) buttons. Every external call is assigned to exactly
+ * one elevator, the one with the lowest estimated time to arrive. Assignments are kept per floor in an atomic array,
+ * so calls to different floors never contend and there are no locks at all. An assignment lasts until the assigned
+ * elevator opens the door at the floor.
+ */
+public class ElevatorGroup {
+
+    private final Elevator[] elevators;
+    // index + 1 of elevator assigned to the floor, zero if the floor isn't waiting for an elevator
+    private final AtomicIntegerArray assignedElevators;
+
+    public ElevatorGroup(@Nonnull Elevator... elevators) {
+        if (elevators.length == 0) {
+            throw new IllegalArgumentException("Group should contain at least one elevator");
+        }
+        this.elevators = elevators.clone();
+        int maxLevel = 0;
+        for (Elevator elevator : elevators) {
+            maxLevel = Math.max(maxLevel, elevator.numberOfLevels);
+        }
+        this.assignedElevators = new AtomicIntegerArray(maxLevel + 1);
+        for (int i = 0; i < elevators.length; i++) {
+            int assigned = i + 1;
+            elevators[i].addListener((state, level) -> {
+                if (state == ElevatorState.OPENING) {
+                    assignedElevators.compareAndSet(level, assigned, 0);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return number of elevators in the group
+     */
+    public int size() {
+        return elevators.length;
+    }
+
+    /**
+     * @param index
+     *            - elevator index
+     * @return elevator of the group
+     */
+    @Nonnull
+    public Elevator getElevator(int index) {
+        return elevators[index];
+    }
+
+    /**
+     * Set internal button of required elevator
+     *
+     * @param index
+     *            - elevator index
+     * @param command
+     *            - new command
+     * @throws IllegalArgumentException
+     *             - throw when command getting out from required diapason
+     */
+    public void addInternalCommand(int index, @Nonnull String command) throws IllegalArgumentException {
+        elevators[index].addInternalCommand(command);
+    }
+
+    /**
+     * Press internal floor button of required elevator
+     *
+     * @param index
+     *            - elevator index
+     * @param floor
+     *            - floor number
+     * @throws IllegalArgumentException
+     *             - throw when floor getting out from required diapason
+     */
+    public void addInternalCommand(int index, int floor) throws IllegalArgumentException {
+        elevators[index].addInternalCommand(floor);
+    }
+
+    /**
+     * Assign external call to the elevator with the lowest estimated time to arrive. Repeated calls to the floor
+     * which is still waiting for assigned elevator are ignored.
+     *
+     * @param command
+     *            - new command
+     * @return index of the elevator serving the call
+     * @throws IllegalArgumentException
+     *             - throw when command getting out from required diapason
+     */
+    public int addExternalCommand(@Nonnull String command) throws IllegalArgumentException {
+        int floor;
+        try {
+            floor = Integer.parseInt(command);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unexpected format of command " + command, e);
+        }
+        return addExternalCommand(floor);
+    }
+
+    /**
+     * Assign external call to the elevator with the lowest estimated time to arrive. Repeated calls to the floor
+     * which is still waiting for assigned elevator are ignored.
+     *
+     * @param floor
+     *            - floor number
+     * @return index of the elevator serving the call
+     * @throws IllegalArgumentException
+     *             - throw when floor getting out from required diapason or no elevator reaches the floor
+     */
+    public int addExternalCommand(int floor) throws IllegalArgumentException {
+        if (floor < 1 || floor >= assignedElevators.length()) {
+            throw new IllegalArgumentException(String.format("Wrong floor number %d. Should be between 1 and %d",
+                    floor, assignedElevators.length() - 1));
+        }
+        int assigned = assignedElevators.get(floor);
+        while (true) {
+            if (assigned != 0) {
+                // the floor is already waiting for an elevator
+                return assigned - 1;
+            }
+            int best = findFastestElevator(floor);
+            if (assignedElevators.compareAndSet(floor, 0, best + 1)) {
+                try {
+                    elevators[best].addExternalCommand(floor);
+                } catch (IllegalArgumentException e) {
+                    // release the floor, otherwise later calls would wait for a car which never comes
+                    assignedElevators.compareAndSet(floor, best + 1, 0);
+                    throw e;
+                }
+                return best;
+            }
+            // concurrent call to the same floor, check its assignment
+            assigned = assignedElevators.get(floor);
+        }
+    }
+
+    private int findFastestElevator(int floor) throws IllegalArgumentException {
+        int best = -1;
+        long bestTime = Long.MAX_VALUE;
+        for (int i = 0; i < elevators.length; i++) {
+            if (elevators[i].numberOfLevels < floor) {
+                continue;
+            }
+            long time = estimateTimeToArrive(elevators[i], floor);
+            if (time < bestTime) {
+                best = i;
+                bestTime = time;
+            }
+        }
+        if (best < 0) {
+            throw new IllegalArgumentException(String.format("No elevator of the group reaches floor %d", floor));
+        }
+        return best;
+    }
+
+    /**
+     * Estimate time which elevator needs to reach the floor, taking into account levels it passes and stops on
+     * pressed buttons. The estimation uses unsynchronized view of the elevator state, so it may be slightly outdated.
+     *
+     * @param elevator
+     *            - elevator
+     * @param floor
+     *            - required floor
+     * @return estimated time in milliseconds
+     */
+    static long estimateTimeToArrive(@Nonnull Elevator elevator, int floor) {
+        int level = elevator.currentLevel;
+        Direction direction = elevator.direction;
+        ElevatorState state = elevator.getState();
+        boolean moving = state == ElevatorState.MOVING_UP || state == ElevatorState.MOVING_DOWN;
+        long stopTime = 2 * elevator.doorMoveTimeInMs + elevator.openDoorTimeInMs;
+
+        long time = 0;
+        if (state == ElevatorState.OPENING || state == ElevatorState.OPEN || state == ElevatorState.CLOSING) {
+            // the door has to be closed before any movement
+            time += elevator.doorMoveTimeInMs + elevator.openDoorTimeInMs;
+        }
+
+        int passedLevels;
+        int stops;
+        if (direction == UP && (floor < level || floor == level && moving)) {
+            // the elevator reaches the top of its route first and then goes down
+            int top = Math.max(level, highestPressedFloor(elevator));
+            passedLevels = (top - level) + (top - floor);
+            stops = countPressedFloors(elevator, floor + 1, top);
+        } else if (direction == DOWN && (floor > level || floor == level && moving)) {
+            int lowest = lowestPressedFloor(elevator);
+            int bottom = lowest == NONE ? level : Math.min(level, lowest);
+            passedLevels = (level - bottom) + (floor - bottom);
+            stops = countPressedFloors(elevator, bottom, floor - 1);
+        } else {
+            passedLevels = Math.abs(floor - level);
+            stops = direction == null ? 0
+                    : countPressedFloors(elevator, Math.min(level, floor) + 1, Math.max(level, floor) - 1);
+        }
+        return time + passedLevels * elevator.levelPassingTimeInMs + stops * stopTime;
+    }
+
+    private static int highestPressedFloor(@Nonnull Elevator elevator) {
+        return Math.max(elevator.internalFloorsButtons.last(), elevator.externalFloorsButtons.last());
+    }
+
+    private static int lowestPressedFloor(@Nonnull Elevator elevator) {
+        return nextPressedFloor(elevator, -1);
+    }
+
+    private static int countPressedFloors(@Nonnull Elevator elevator, int from, int to) {
+        int count = 0;
+        for (int floor = nextPressedFloor(elevator, from - 1); floor != NONE && floor <= to;
+                floor = nextPressedFloor(elevator, floor)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int nextPressedFloor(@Nonnull Elevator elevator, int floor) {
+        int internal = elevator.internalFloorsButtons.higher(floor);
+        int external = elevator.externalFloorsButtons.higher(floor);
+        return internal == NONE || external == NONE ? Math.max(internal, external) : Math.min(internal, external);
+    }
+}
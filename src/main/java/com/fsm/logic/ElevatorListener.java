@@ -0,0 +1,79 @@
+package com.fsm.logic;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Synchronous observer of the elevator. State changes are reported on the elevator thread, commands on the threads
+ * which sent them. It is intended for simulations and
+ * instrumentation which need exact order and time of the changes, so it should be fast and must never block or wait
+ * for the elevator. Other observers should subscribe to {@link Elevator#getEvents()}.
+ */
+public interface ElevatorListener {
+
+    /**
+     * Elevator has entered new state
+     *
+     * @param state
+     *            - new state
+     * @param level
+     *            - current level
+     */
+    void onStateChanged(@Nonnull ElevatorState state, int level);
+
+    /**
+     * Internal floor button has been pressed, called on the thread which sent the command
+     *
+     * @param floor
+     *            - pressed floor
+     */
+    default void onInternalCommand(int floor) {
+    }
+
+    /**
+     * External floor button has been pressed, called on the thread which sent the command
+     *
+     * @param floor
+     *            - pressed floor
+     */
+    default void onExternalCommand(int floor) {
+    }
+
+    /**
+     * Internal open button has been pressed, called on the thread which sent the command
+     */
+    default void onOpenCommand() {
+    }
+
+    /**
+     * Internal floor command has been taken from the inbox and applied to the buttons, called on the elevator thread
+     *
+     * @param floor
+     *            - pressed floor
+     */
+    default void onInternalCommandApplied(int floor) {
+    }
+
+    /**
+     * External floor command has been taken from the inbox and applied to the buttons, called on the elevator thread
+     *
+     * @param floor
+     *            - pressed floor
+     */
+    default void onExternalCommandApplied(int floor) {
+    }
+
+    /**
+     * Open command has been applied while the door was closing, called on the elevator thread
+     */
+    default void onOpenCommandApplied() {
+    }
+
+    /**
+     * Command has interrupted the wait of the state, called on the thread which sent the command
+     *
+     * @param state
+     *            - state whose wait has been interrupted
+     */
+    default void onDelayInterrupted(@Nonnull ElevatorState state) {
+    }
+}
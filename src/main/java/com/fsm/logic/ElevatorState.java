@@ -2,13 +2,13 @@ package com.fsm.logic;
 
 import static com.fsm.logic.Elevator.Direction.DOWN;
 import static com.fsm.logic.Elevator.Direction.UP;
-import static com.fsm.logic.delay.InterruptDelay.getInfinitiveInterruptDelay;
-import static com.fsm.logic.delay.InterruptDelay.getInterruptDelay;
 import static java.lang.Math.min;
-import java.util.NavigableSet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
-import com.fsm.logic.delay.UninterruptedDelay;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.delay.Delay;
 
 public enum ElevatorState {
 
@@ -23,12 +23,17 @@ public enum ElevatorState {
     CLOSE("CLOSE");
     // @formatter:on
 
-    private Function<Elevator, ElevatorState> nextSupplier;
+    private static final Function<Elevator, Delay> NO_WAIT = (elevator) -> null;
+
+    // the state starts waiting when it is entered and decides the next state when the wait is over
+    private Function<Elevator, Delay> enter;
+    private Completion complete;
     private final String displayValue;
 
     static {
-        // initialize nextSupplier here to avoid illegal forward reference
-        CLOSE.nextSupplier = (elevator) -> {
+        // initialize enter and complete here to avoid illegal forward reference
+        CLOSE.enter = NO_WAIT;
+        CLOSE.complete = (elevator, interrupted) -> {
             // in this state we have to keep direction if exists pushed buttons on current direction,
             // otherwise state should be changed to IDLE, and of course we should open the door if current level
             // buttons has been pressed
@@ -37,113 +42,130 @@ public enum ElevatorState {
                 return OPENING;
             }
 
-            if ((elevator.direction == UP) &&
-                    (elevator.internalFloorsButtons.higher(elevator.currentLevel) != null
-                    || elevator.externalFloorsButtons.higher(elevator.currentLevel) != null)) {
+            Direction direction = elevator.direction == null ? null
+                    : elevator.strategy.continueDirection(elevator.currentLevel, elevator.direction,
+                            elevator.internalFloorsButtons, elevator.externalFloorsButtons);
+            if (direction == UP) {
                 return MOVING_UP;
             }
-
-            if (elevator.direction == DOWN &&
-                    (elevator.internalFloorsButtons.floor(elevator.currentLevel) != null
-                    || elevator.externalFloorsButtons.floor(elevator.currentLevel) != null)) {
+            if (direction == DOWN) {
                 return MOVING_DOWN;
             }
             elevator.direction = null;
             return IDLE;
         };
 
-        IDLE.nextSupplier = (elevator) -> {
+        IDLE.enter = (elevator) -> {
+            FloorSet internalButtons = elevator.internalFloorsButtons;
+            FloorSet externalButtons = elevator.externalFloorsButtons;
+
+            // the delay is armed before the buttons are checked: commands sent before are in the inbox already,
+            // and commands sent after either move the signal past the key or interrupt the delay
+            long timeout = elevator.strategy.getIdleTimeoutInMs(elevator.currentLevel);
+            Delay delay = timeout == SchedulingStrategy.NO_TIMEOUT ? elevator.getInfinitiveInterruptDelay()
+                    : elevator.getIdleDelay(timeout);
+            long key = elevator.idleSignal.arm(delay);
+            elevator.drainCommands();
+            // we shouldn't wait buttons if someone was pressed, or the strategy moves the elevator without them
+            if (internalButtons.isEmpty() && externalButtons.isEmpty() && !elevator.stopped
+                    && !elevator.idleSignal.isSignalledSince(key) && elevator.strategy
+                            .chooseDirection(elevator.currentLevel, internalButtons, externalButtons) == null) {
+                return delay;
+            }
+            return null;
+        };
+        IDLE.complete = (elevator, interrupted) -> {
             // in this state we should decide in which direction elevator should move
             // in case is current level buttons has been pressed, we should immediately open the door,
-            // otherwise we should move towards to pressed buttons (with priority of internal buttons)
-            NavigableSet<Integer> internalButtons = elevator.internalFloorsButtons;
-            NavigableSet<Integer> externalButtons = elevator.externalFloorsButtons;
-
-            // initialize delay timer here to avoid concurrent race collision
-            elevator.idleInterruptDelay = getInfinitiveInterruptDelay();
-            // we shouldn't wait buttons if someone was pressed
-            if (internalButtons.isEmpty() && externalButtons.isEmpty()) {
-                elevator.idleInterruptDelay.waitForDelay();
-            }
+            // otherwise we should move in the direction chosen by the strategy
+            FloorSet internalButtons = elevator.internalFloorsButtons;
+            FloorSet externalButtons = elevator.externalFloorsButtons;
+            elevator.idleSignal.disarm();
+            elevator.drainCommands();
             int currentLevel = elevator.currentLevel;
             if (internalButtons.contains(currentLevel) || externalButtons.contains(currentLevel)) {
                 return OPENING;
-            } else if (internalButtons.floor(currentLevel) != null) {
-                return MOVING_DOWN;
-            } else if (internalButtons.higher(currentLevel) != null) {
+            }
+            Direction direction = elevator.strategy.chooseDirection(currentLevel, internalButtons, externalButtons);
+            if (direction == UP) {
                 return MOVING_UP;
-            } else if (externalButtons.floor(currentLevel) != null) {
+            } else if (direction == DOWN) {
                 return MOVING_DOWN;
-            } else if (externalButtons.higher(currentLevel) != null) {
-                return MOVING_UP;
             } else {
-                // wouldn't happen
-                throw new IllegalStateException("Unexpected elevator state");
+                // woken up without pressed buttons (the elevator is stopping, or the strategy still keeps it here
+                // after the idle timeout), wait again
+                return IDLE;
             }
         };
 
-        CLOSING.nextSupplier = (elevator) -> {
+        CLOSING.enter = (elevator) -> {
             // this state is closing the door, can be interrupted by emergency open button
+            elevator.closingStartTime = elevator.clock.nanoTime();
+            Delay delay = elevator.getInterruptDelay(elevator.doorMoveTimeInMs);
+            long key = elevator.openSignal.arm(delay);
+            elevator.drainCommands();
+            return elevator.openButtonPressed || elevator.openSignal.isSignalledSince(key) ? null : delay;
+        };
+        CLOSING.complete = (elevator, interrupted) -> {
             // in case when state was interrupted we should return opening state, otherwise close
-            boolean wasInterrupted;
-            long closingStart = System.currentTimeMillis();
-            elevator.closingInterruptDelay = getInterruptDelay(elevator.doorMoveTimeInMs);
-            wasInterrupted = elevator.openButtonPressed || elevator.closingInterruptDelay.waitForDelay();
             // for situation when door wasn't closing completely, we have to save spent time value
-            // to set it as delay value for opening state
-            elevator.closingTimeSpent =
-                    min(System.currentTimeMillis() - closingStart, elevator.doorMoveTimeInMs);
-            return wasInterrupted ? OPENING : CLOSE;
+            // to set it as delay value for opening state, measured by monotonic time which wall clock
+            // adjustments don't shift
+            elevator.closingTimeSpent = min(
+                    TimeUnit.NANOSECONDS.toMillis(elevator.clock.nanoTime() - elevator.closingStartTime),
+                    elevator.doorMoveTimeInMs);
+            // the open command which interrupted the door is applied while the door is still closing
+            elevator.openSignal.disarm();
+            elevator.drainCommands();
+            return interrupted || elevator.openButtonPressed ? OPENING : CLOSE;
         };
 
-        OPEN.nextSupplier = (elevator) -> {
-            new UninterruptedDelay(elevator.openDoorTimeInMs).waitForDelay();
-            return CLOSING;
-        };
+        OPEN.enter = (elevator) -> elevator.getUninterruptedDelay(elevator.openDoorTimeInMs);
+        OPEN.complete = (elevator, interrupted) -> CLOSING;
 
-        OPENING.nextSupplier = (elevator) -> {
-            elevator.disableCurrentLevelButtons();
+        OPENING.enter = (elevator) -> {
             elevator.externalFloorsButtons.remove(elevator.currentLevel);
             elevator.internalFloorsButtons.remove(elevator.currentLevel);
-            new UninterruptedDelay(
-                    elevator.closingTimeSpent == 0 ? elevator.doorMoveTimeInMs : elevator.closingTimeSpent)
-                            .waitForDelay();
-            return OPEN;
+            return elevator.getUninterruptedDelay(
+                    elevator.closingTimeSpent == 0 ? elevator.doorMoveTimeInMs : elevator.closingTimeSpent);
         };
+        OPENING.complete = (elevator, interrupted) -> OPEN;
 
-        MOVING_UP.nextSupplier = (elevator) -> {
-            // when elevator moving up, it should be stopped only if current level is equals to highest required level,
-            // otherwise it should keep going
+        MOVING_UP.enter = (elevator) -> {
             elevator.direction = UP;
-            new UninterruptedDelay(elevator.levelPassingTimeInMs).waitForDelay();
-
-            NavigableSet<Integer> internalButtons = elevator.internalFloorsButtons;
-            NavigableSet<Integer> externalButtons = elevator.externalFloorsButtons;
-            int currentLevel = ++elevator.currentLevel;
-
-            if (internalButtons.contains(currentLevel) || ((internalButtons.higher(currentLevel) == null)
-                    && externalButtons.contains(currentLevel) && (externalButtons.higher(currentLevel) == null))) {
-                return OPENING;
-            } else {
-                return MOVING_UP;
+            if (elevator.motionPlanner != null) {
+                return elevator.motionPlanner.startTrip(elevator);
+            }
+            // without a planner the elevator passes levels one by one at constant speed
+            return elevator.getUninterruptedDelay(elevator.levelPassingTimeInMs);
+        };
+        MOVING_UP.complete = (elevator, interrupted) -> {
+            if (elevator.motionPlanner != null) {
+                return elevator.motionPlanner.finishTrip(elevator, MOVING_UP, interrupted);
             }
+            elevator.currentLevel++;
+            elevator.drainCommands();
+            return arrive(elevator, MOVING_UP);
         };
 
-        MOVING_DOWN.nextSupplier = (elevator) -> {
-            // when elevator moving down, it should stop on every required level
+        MOVING_DOWN.enter = (elevator) -> {
             elevator.direction = DOWN;
-            new UninterruptedDelay(elevator.levelPassingTimeInMs).waitForDelay();
-
-            elevator.currentLevel--;
-            if (elevator.internalFloorsButtons.contains(elevator.currentLevel) ||
-                    elevator.externalFloorsButtons.contains(elevator.currentLevel)) {
-                return OPENING;
-            } else {
-                return MOVING_DOWN;
+            if (elevator.motionPlanner != null) {
+                return elevator.motionPlanner.startTrip(elevator);
             }
+            return elevator.getUninterruptedDelay(elevator.levelPassingTimeInMs);
+        };
+        MOVING_DOWN.complete = (elevator, interrupted) -> {
+            if (elevator.motionPlanner != null) {
+                return elevator.motionPlanner.finishTrip(elevator, MOVING_DOWN, interrupted);
+            }
+            elevator.currentLevel--;
+            elevator.drainCommands();
+            return arrive(elevator, MOVING_DOWN);
         };
 
-        INIT.nextSupplier = (elevator) -> {
+        INIT.enter = NO_WAIT;
+        INIT.complete = (elevator, interrupted) -> {
             elevator.currentLevel = 1;
             return IDLE;
         };
@@ -158,8 +180,63 @@ public enum ElevatorState {
         return displayValue;
     }
 
+    /**
+     * Pass the state from its start to the next state, waiting for the delay of the state on the current thread
+     *
+     * @param elevator
+     *            - elevator in this state
+     * @return the next state
+     */
     @Nonnull
     ElevatorState next(@Nonnull Elevator elevator) {
-        return nextSupplier.apply(elevator);
+        Delay delay = enter(elevator);
+        return complete(elevator, delay != null && delay.waitForDelay());
+    }
+
+    /**
+     * Start the state without waiting
+     *
+     * @param elevator
+     *            - elevator in this state
+     * @return delay which should be over before {@link #complete(Elevator, boolean)} is called, or null if the state
+     *         doesn't wait
+     */
+    @Nullable
+    Delay enter(@Nonnull Elevator elevator) {
+        return enter.apply(elevator);
+    }
+
+    /**
+     * Finish the state after its delay
+     *
+     * @param elevator
+     *            - elevator in this state
+     * @param interrupted
+     *            - true if the delay of the state was interrupted
+     * @return the next state
+     */
+    @Nonnull
+    ElevatorState complete(@Nonnull Elevator elevator, boolean interrupted) {
+        return complete.complete(elevator, interrupted);
+    }
+
+    @Nonnull
+    static ElevatorState arrive(@Nonnull Elevator elevator, @Nonnull ElevatorState moving) {
+        // the strategy decides whether the elevator stops at the reached level or keeps going,
+        // the elevator which shouldn't keep going stands with the closed door and decides again
+        FloorSet internalButtons = elevator.internalFloorsButtons;
+        FloorSet externalButtons = elevator.externalFloorsButtons;
+        int currentLevel = elevator.currentLevel;
+        if (elevator.strategy.shouldStop(currentLevel, elevator.direction, internalButtons, externalButtons)) {
+            return OPENING;
+        }
+        Direction direction =
+                elevator.strategy.continueDirection(currentLevel, elevator.direction, internalButtons, externalButtons);
+        return direction == elevator.direction ? moving : CLOSE;
+    }
+
+    private interface Completion {
+        @Nonnull
+        ElevatorState complete(@Nonnull Elevator elevator, boolean interrupted);
     }
 }
@@ -0,0 +1,291 @@
+package com.fsm.logic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free set of floor numbers stored as a bitmask, one bit per floor. Offers the same queries as
+ * {@link java.util.NavigableSet} does, but works with primitive values: queries return {@link #NONE} instead of
+ * {@code null}, and nothing is allocated on press, release or lookup.
+ * <p>
+ * A summary bitmask keeps one bit per non-empty word of floors, so lookups skip empty words at once and their cost
+ * doesn't depend on the number of floors or pressed buttons (up to 4096 floors the summary is a single word). The
+ * summary bit is set after the floor bit and cleared only by {@link #remove(int)} and {@link #clear()}, which re-check
+ * the word and set the bit again if a floor has been pressed meanwhile. Lookups never clear summary bits, so a thread
+ * which presses a floor and then wakes up the thread releasing floors is always seen by it, while other readers may
+ * miss the press for a moment, as if they read the set before it. A summary bit left over by concurrent press and
+ * release only makes lookups check an empty word until the next release in the word.
+ */
+public final class FloorSet {
+
+    public static final int NONE = -1;
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BIT_INDEX_MASK = (1 << ADDRESS_BITS_PER_WORD) - 1;
+
+    private final int maxFloor;
+    private final AtomicLongArray words;
+    // bit is set when corresponding word may contain floors
+    private final AtomicLongArray summary;
+
+    /**
+     * @param maxFloor
+     *            - the highest floor number which can be stored, the lowest one is zero
+     */
+    public FloorSet(int maxFloor) {
+        if (maxFloor < 0) {
+            throw new IllegalArgumentException("Max floor should not be negative, but was " + maxFloor);
+        }
+        this.maxFloor = maxFloor;
+        this.words = new AtomicLongArray((maxFloor >>> ADDRESS_BITS_PER_WORD) + 1);
+        this.summary = new AtomicLongArray((words.length() >>> ADDRESS_BITS_PER_WORD) + 1);
+    }
+
+    /**
+     * @return the highest floor number which can be stored
+     */
+    public int getMaxFloor() {
+        return maxFloor;
+    }
+
+    /**
+     * Add floor to the set
+     *
+     * @param floor
+     *            - floor number
+     * @return true if the set didn't contain the floor
+     */
+    public boolean add(int floor) {
+        checkFloor(floor);
+        int index = floor >>> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << (floor & BIT_INDEX_MASK);
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+        setSummaryBit(index);
+        return true;
+    }
+
+    /**
+     * Remove floor from the set
+     *
+     * @param floor
+     *            - floor number
+     * @return true if the set contained the floor
+     */
+    public boolean remove(int floor) {
+        checkFloor(floor);
+        int index = floor >>> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << (floor & BIT_INDEX_MASK);
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) == 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word & ~mask));
+        if (word == mask) {
+            clearSummaryBitIfEmpty(index);
+        }
+        return true;
+    }
+
+    /**
+     * Remove all floors
+     */
+    public void clear() {
+        for (int i = 0; i < words.length(); i++) {
+            if (words.getAndSet(i, 0) != 0) {
+                clearSummaryBitIfEmpty(i);
+            }
+        }
+    }
+
+    public boolean contains(int floor) {
+        if (floor < 0 || floor > maxFloor) {
+            return false;
+        }
+        return (words.get(floor >>> ADDRESS_BITS_PER_WORD) & (1L << (floor & BIT_INDEX_MASK))) != 0;
+    }
+
+    public boolean isEmpty() {
+        return ceiling(0) == NONE;
+    }
+
+    /**
+     * @return number of floors in the set
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < words.length(); i++) {
+            size += Long.bitCount(words.get(i));
+        }
+        return size;
+    }
+
+    /**
+     * @return the lowest floor in the set, or {@link #NONE} if the set is empty
+     */
+    public int first() {
+        return ceiling(0);
+    }
+
+    /**
+     * @return the highest floor in the set, or {@link #NONE} if the set is empty
+     */
+    public int last() {
+        return floor(maxFloor);
+    }
+
+    /**
+     * @param floor
+     *            - floor number
+     * @return the lowest floor in the set strictly higher than the given one, or {@link #NONE} if there is no such
+     *         floor
+     */
+    public int higher(int floor) {
+        return floor == Integer.MAX_VALUE ? NONE : ceiling(floor + 1);
+    }
+
+    /**
+     * @param floor
+     *            - floor number
+     * @return the lowest floor in the set higher than or equal to the given one, or {@link #NONE} if there is no such
+     *         floor
+     */
+    public int ceiling(int floor) {
+        if (floor > maxFloor) {
+            return NONE;
+        }
+        floor = Math.max(floor, 0);
+        int index = floor >>> ADDRESS_BITS_PER_WORD;
+        long word = words.get(index) & (-1L << (floor & BIT_INDEX_MASK));
+        while (word == 0) {
+            index = nextSummaryBit(index + 1);
+            if (index == NONE) {
+                return NONE;
+            }
+            word = words.get(index);
+        }
+        return (index << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @param floor
+     *            - floor number
+     * @return the highest floor in the set strictly lower than the given one, or {@link #NONE} if there is no such
+     *         floor
+     */
+    public int lower(int floor) {
+        return floor == Integer.MIN_VALUE ? NONE : floor(floor - 1);
+    }
+
+    /**
+     * @param floor
+     *            - floor number
+     * @return the highest floor in the set lower than or equal to the given one, or {@link #NONE} if there is no such
+     *         floor
+     */
+    public int floor(int floor) {
+        if (floor < 0) {
+            return NONE;
+        }
+        floor = Math.min(floor, maxFloor);
+        int index = floor >>> ADDRESS_BITS_PER_WORD;
+        long word = words.get(index) & (-1L >>> (BIT_INDEX_MASK - (floor & BIT_INDEX_MASK)));
+        while (word == 0) {
+            index = previousSummaryBit(index - 1);
+            if (index == NONE) {
+                return NONE;
+            }
+            word = words.get(index);
+        }
+        return (index << ADDRESS_BITS_PER_WORD) + BIT_INDEX_MASK - Long.numberOfLeadingZeros(word);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int floor = first(); floor != NONE; floor = higher(floor)) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(floor);
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * @return index of the first word starting from the given one which may contain floors, or {@link #NONE}
+     */
+    private int nextSummaryBit(int wordIndex) {
+        if (wordIndex >= words.length()) {
+            return NONE;
+        }
+        int index = wordIndex >>> ADDRESS_BITS_PER_WORD;
+        long word = summary.get(index) & (-1L << (wordIndex & BIT_INDEX_MASK));
+        while (word == 0) {
+            if (++index == summary.length()) {
+                return NONE;
+            }
+            word = summary.get(index);
+        }
+        return (index << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @return index of the last word up to the given one which may contain floors, or {@link #NONE}
+     */
+    private int previousSummaryBit(int wordIndex) {
+        if (wordIndex < 0) {
+            return NONE;
+        }
+        int index = wordIndex >>> ADDRESS_BITS_PER_WORD;
+        long word = summary.get(index) & (-1L >>> (BIT_INDEX_MASK - (wordIndex & BIT_INDEX_MASK)));
+        while (word == 0) {
+            if (--index < 0) {
+                return NONE;
+            }
+            word = summary.get(index);
+        }
+        return (index << ADDRESS_BITS_PER_WORD) + BIT_INDEX_MASK - Long.numberOfLeadingZeros(word);
+    }
+
+    private void setSummaryBit(int wordIndex) {
+        int index = wordIndex >>> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << (wordIndex & BIT_INDEX_MASK);
+        long word;
+        do {
+            word = summary.get(index);
+            if ((word & mask) != 0) {
+                return;
+            }
+        } while (!summary.compareAndSet(index, word, word | mask));
+    }
+
+    private void clearSummaryBitIfEmpty(int wordIndex) {
+        int index = wordIndex >>> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << (wordIndex & BIT_INDEX_MASK);
+        long word;
+        do {
+            word = summary.get(index);
+            if ((word & mask) == 0) {
+                return;
+            }
+        } while (!summary.compareAndSet(index, word, word & ~mask));
+        // a floor could be pressed while the bit was cleared
+        if (words.get(wordIndex) != 0) {
+            setSummaryBit(wordIndex);
+        }
+    }
+
+    private void checkFloor(int floor) {
+        if (floor < 0 || floor > maxFloor) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong floor number %d. Should be between 0 and %d", floor, maxFloor));
+        }
+    }
+}
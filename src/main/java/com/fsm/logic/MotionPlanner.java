@@ -0,0 +1,284 @@
+package com.fsm.logic;
+
+import static com.fsm.logic.Elevator.Direction.UP;
+import static com.fsm.logic.FloorSet.NONE;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.delay.Delay;
+
+/**
+ * Moves the elevator from stop to stop with constant acceleration, cruise at the maximal speed and constant
+ * deceleration, instead of passing levels one by one at constant speed. A trip to the next stop is one interruptible
+ * wait. A call ahead of the car interrupts it, and the trip is re-planned from the reached position and speed: the
+ * car stops at the new level if it still can decelerate in time.
+ * <p>
+ * Position and speed of the car are kept between trips, so one planner serves exactly one elevator and is accessed by
+ * its thread only, except {@link #getPositionAt(long)} which can be called by any thread.
+ */
+final class MotionPlanner {
+
+    private static final double EPSILON = 1e-9;
+
+    private final double acceleration;
+    private final double maxSpeed;
+    private final double levelHeight;
+
+    // position in levels and speed in meters per second of the car
+    private double position;
+    private double speed;
+
+    // the current trip, read by threads sending commands to find where the car is
+    private volatile Trip trip;
+    private int tripTarget;
+
+    /**
+     * @param accelerationInMeterPerSecond2
+     *            - acceleration and deceleration of the car
+     * @param maxSpeedInMeterPerSecond
+     *            - cruise speed
+     * @param levelHeightInMeter
+     *            - distance between levels
+     */
+    MotionPlanner(double accelerationInMeterPerSecond2, double maxSpeedInMeterPerSecond, double levelHeightInMeter) {
+        this.acceleration = accelerationInMeterPerSecond2;
+        this.maxSpeed = maxSpeedInMeterPerSecond;
+        this.levelHeight = levelHeightInMeter;
+    }
+
+    /**
+     * Plan the trip of the elevator towards the next stop in its direction
+     *
+     * @param elevator
+     *            - moving elevator
+     * @return delay which lasts until the end of the trip, interrupted by calls ahead of the car
+     */
+    @Nonnull
+    Delay startTrip(@Nonnull Elevator elevator) {
+        if (speed == 0) {
+            position = elevator.currentLevel;
+        }
+        Delay delay;
+        do {
+            // a call which comes after the flag is cleared is either seen by the plan or sets the flag again
+            elevator.tripReplanRequested = false;
+            elevator.drainCommands();
+            tripTarget = findTarget(elevator, elevator.direction);
+            elevator.targetLevel = tripTarget;
+            plan(Math.abs(tripTarget - position) * levelHeight, elevator.direction, elevator.clock.nanoTime());
+            long durationInMs = (long) Math.ceil(getDuration() * TimeUnit.SECONDS.toMillis(1));
+            delay = elevator.getInterruptDelay(durationInMs);
+            elevator.movingInterruptDelay = delay;
+            if (elevator.tripReplanRequested) {
+                delay.interrupt();
+            }
+        } while (elevator.tripReplanRequested);
+        return delay;
+    }
+
+    /**
+     * Move the elevator along the planned trip
+     *
+     * @param elevator
+     *            - moving elevator
+     * @param moving
+     *            - current moving state
+     * @param interrupted
+     *            - true if the trip was interrupted before its end
+     * @return the next state
+     */
+    @Nonnull
+    ElevatorState finishTrip(@Nonnull Elevator elevator, @Nonnull ElevatorState moving, boolean interrupted) {
+        if (interrupted) {
+            Trip current = trip;
+            double elapsed = current.getElapsed(elevator.clock.nanoTime());
+            position = current.getPositionAt(elapsed);
+            speed = current.getSpeedAt(elapsed);
+            // a call which comes at the end of the trip finds the car already standing at the target
+            if (elapsed < current.getDuration() && Math.abs(tripTarget - position) > EPSILON) {
+                // the last passed level
+                elevator.currentLevel = (int) (current.direction == UP ? Math.floor(position + EPSILON)
+                        : Math.ceil(position - EPSILON));
+                return moving;
+            }
+        }
+        elevator.drainCommands();
+        position = tripTarget;
+        speed = 0;
+        elevator.currentLevel = tripTarget;
+        elevator.targetLevel = NONE;
+        return ElevatorState.arrive(elevator, moving);
+    }
+
+    /**
+     * Find where the car is during the current trip. Can be called by any thread.
+     *
+     * @param nanoTime
+     *            - time of the clock of the elevator in nanoseconds
+     * @return position of the car in levels, NaN before the first trip
+     */
+    double getPositionAt(long nanoTime) {
+        Trip current = trip;
+        return current == null ? Double.NaN : current.getPositionAt(current.getElapsed(nanoTime));
+    }
+
+    /**
+     * @return the nearest level in the direction where the car can stop and the strategy wants it to stop or to turn
+     */
+    private int findTarget(Elevator elevator, Direction direction) {
+        SchedulingStrategy strategy = elevator.strategy;
+        FloorSet internalButtons = elevator.internalFloorsButtons;
+        FloorSet externalButtons = elevator.externalFloorsButtons;
+        double brakingLevels = speed * speed / (2 * acceleration) / levelHeight;
+        int level;
+        if (direction == UP) {
+            level = (int) Math.ceil(position + brakingLevels - EPSILON);
+            if (level <= position + EPSILON) {
+                level++;
+            }
+            for (; level < elevator.numberOfLevels; level++) {
+                Direction turn = strategy.continueDirection(level, direction, internalButtons, externalButtons);
+                if (turn != direction || strategy.shouldStop(level, direction, internalButtons, externalButtons)) {
+                    return level;
+                }
+            }
+            return elevator.numberOfLevels;
+        }
+        level = (int) Math.floor(position - brakingLevels + EPSILON);
+        if (level >= position - EPSILON) {
+            level--;
+        }
+        for (; level > 1; level--) {
+            Direction turn = strategy.continueDirection(level, direction, internalButtons, externalButtons);
+            if (turn != direction || strategy.shouldStop(level, direction, internalButtons, externalButtons)) {
+                return level;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Plan trip upwards from the current position and speed to a stop
+     *
+     * @param distance
+     *            - distance to the stop in meters
+     */
+    void plan(double distance) {
+        plan(distance, UP, 0);
+    }
+
+    /**
+     * Plan trip from the current position and speed to a stop
+     *
+     * @param distance
+     *            - distance to the stop in meters
+     * @param direction
+     *            - direction of the trip
+     * @param startTime
+     *            - time of the clock when the trip starts in nanoseconds
+     */
+    private void plan(double distance, @Nonnull Direction direction, long startTime) {
+        double accelerationDistance = (maxSpeed * maxSpeed - speed * speed) / (2 * acceleration);
+        double decelerationDistance = maxSpeed * maxSpeed / (2 * acceleration);
+        double peakSpeed;
+        double cruiseTime;
+        if (accelerationDistance + decelerationDistance <= distance) {
+            peakSpeed = maxSpeed;
+            cruiseTime = (distance - accelerationDistance - decelerationDistance) / maxSpeed;
+        } else {
+            // the car starts braking before it reaches the maximal speed
+            peakSpeed = Math.max(Math.sqrt(acceleration * distance + speed * speed / 2), speed);
+            cruiseTime = 0;
+        }
+        trip = new Trip(position, direction, startTime, speed, peakSpeed, cruiseTime);
+    }
+
+    /**
+     * @return duration of the planned trip in seconds
+     */
+    double getDuration() {
+        return trip.getDuration();
+    }
+
+    /**
+     * @param time
+     *            - time from the start of the planned trip in seconds
+     * @return distance travelled in meters
+     */
+    double getDistanceAt(double time) {
+        return trip.getDistanceAt(time);
+    }
+
+    /**
+     * @param time
+     *            - time from the start of the planned trip in seconds
+     * @return speed in meters per second
+     */
+    double getSpeedAt(double time) {
+        return trip.getSpeedAt(time);
+    }
+
+    /**
+     * Phases of a planned trip. Trips are immutable, so other threads can read the published one safely.
+     */
+    private final class Trip {
+        private final double startPosition;
+        private final Direction direction;
+        private final long startTime;
+        private final double startSpeed;
+        private final double peakSpeed;
+        private final double accelerationTime;
+        private final double cruiseTime;
+        private final double decelerationTime;
+
+        Trip(double startPosition, @Nonnull Direction direction, long startTime, double startSpeed, double peakSpeed,
+                double cruiseTime) {
+            this.startPosition = startPosition;
+            this.direction = direction;
+            this.startTime = startTime;
+            this.startSpeed = startSpeed;
+            this.peakSpeed = peakSpeed;
+            this.accelerationTime = (peakSpeed - startSpeed) / acceleration;
+            this.cruiseTime = cruiseTime;
+            this.decelerationTime = peakSpeed / acceleration;
+        }
+
+        double getDuration() {
+            return accelerationTime + cruiseTime + decelerationTime;
+        }
+
+        /**
+         * @return time from the start of the trip in seconds, not longer than the trip
+         */
+        double getElapsed(long nanoTime) {
+            return Math.min((double) (nanoTime - startTime) / TimeUnit.SECONDS.toNanos(1), getDuration());
+        }
+
+        double getPositionAt(double time) {
+            return startPosition + (direction == UP ? 1 : -1) * getDistanceAt(time) / levelHeight;
+        }
+
+        double getDistanceAt(double time) {
+            if (time < accelerationTime) {
+                return startSpeed * time + acceleration * time * time / 2;
+            }
+            double distance = (startSpeed + peakSpeed) / 2 * accelerationTime;
+            if (time < accelerationTime + cruiseTime) {
+                return distance + peakSpeed * (time - accelerationTime);
+            }
+            double brakingTime = Math.min(time - accelerationTime - cruiseTime, decelerationTime);
+            distance += peakSpeed * cruiseTime;
+            return distance + peakSpeed * brakingTime - acceleration * brakingTime * brakingTime / 2;
+        }
+
+        double getSpeedAt(double time) {
+            if (time < accelerationTime) {
+                return startSpeed + acceleration * time;
+            }
+            if (time < accelerationTime + cruiseTime) {
+                return peakSpeed;
+            }
+            return Math.max(peakSpeed - acceleration * (time - accelerationTime - cruiseTime), 0);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.fsm.logic;
+
+import static com.fsm.logic.Elevator.Direction.DOWN;
+import static com.fsm.logic.Elevator.Direction.UP;
+import static com.fsm.logic.FloorSet.NONE;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator.Direction;
+
+/**
+ * Standard scheduling strategies
+ */
+public enum SchedulingPolicy implements SchedulingStrategy {
+
+    /**
+     * Elevator of the house where I live: internal buttons take priority when the elevator is idle, and external
+     * buttons are served only on the way down, unless the external button is the highest one.
+     */
+    COLLECTIVE_DOWN {
+        @Nullable
+        @Override
+        public Direction chooseDirection(int level, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            if (internalButtons.floor(level) != NONE) {
+                return DOWN;
+            } else if (internalButtons.higher(level) != NONE) {
+                return UP;
+            } else if (externalButtons.floor(level) != NONE) {
+                return DOWN;
+            } else if (externalButtons.higher(level) != NONE) {
+                return UP;
+            }
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Direction continueDirection(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            // keep direction while there are pressed buttons on the way, otherwise become idle and choose again
+            if (direction == UP) {
+                return internalButtons.higher(level) != NONE || externalButtons.higher(level) != NONE ? UP : null;
+            }
+            return internalButtons.floor(level) != NONE || externalButtons.floor(level) != NONE ? DOWN : null;
+        }
+
+        @Override
+        public boolean shouldStop(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            if (direction == DOWN) {
+                return internalButtons.contains(level) || externalButtons.contains(level);
+            }
+            return internalButtons.contains(level) || internalButtons.higher(level) == NONE
+                    && externalButtons.contains(level) && externalButtons.higher(level) == NONE;
+        }
+    },
+
+    /**
+     * Elevator algorithm: the elevator stops at every pressed level and travels to the end of the shaft before
+     * reversing, while there are pressed buttons
+     */
+    SCAN {
+        @Nullable
+        @Override
+        public Direction chooseDirection(int level, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            return towardsAnyButton(level, internalButtons, externalButtons);
+        }
+
+        @Nullable
+        @Override
+        public Direction continueDirection(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            if (internalButtons.isEmpty() && externalButtons.isEmpty()) {
+                return null;
+            }
+            if (direction == UP) {
+                return level < internalButtons.getMaxFloor() ? UP : DOWN;
+            }
+            return level > LOWEST_LEVEL ? DOWN : UP;
+        }
+
+        @Override
+        public boolean shouldStop(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            return isPressed(level, internalButtons, externalButtons);
+        }
+    },
+
+    /**
+     * The elevator stops at every pressed level and reverses as soon as there are no pressed buttons ahead
+     */
+    LOOK {
+        @Nullable
+        @Override
+        public Direction chooseDirection(int level, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            return towardsNearestButton(level, internalButtons, externalButtons);
+        }
+
+        @Nullable
+        @Override
+        public Direction continueDirection(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            boolean above = internalButtons.higher(level) != NONE || externalButtons.higher(level) != NONE;
+            boolean below = internalButtons.lower(level) != NONE || externalButtons.lower(level) != NONE;
+            if (direction == UP) {
+                return above ? UP : below ? DOWN : null;
+            }
+            return below ? DOWN : above ? UP : null;
+        }
+
+        @Override
+        public boolean shouldStop(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            return isPressed(level, internalButtons, externalButtons);
+        }
+    },
+
+    /**
+     * The elevator always goes to the nearest pressed level, wherever it is, and stops at every pressed level
+     */
+    NEAREST_CALL {
+        @Nullable
+        @Override
+        public Direction chooseDirection(int level, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            return towardsNearestButton(level, internalButtons, externalButtons);
+        }
+
+        @Nullable
+        @Override
+        public Direction continueDirection(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            return towardsNearestButton(level, internalButtons, externalButtons);
+        }
+
+        @Override
+        public boolean shouldStop(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+                @Nonnull FloorSet externalButtons) {
+            return isPressed(level, internalButtons, externalButtons);
+        }
+    };
+
+    private static final int LOWEST_LEVEL = 1;
+
+    private static boolean isPressed(int level, FloorSet internalButtons, FloorSet externalButtons) {
+        return internalButtons.contains(level) || externalButtons.contains(level);
+    }
+
+    private static Direction towardsAnyButton(int level, FloorSet internalButtons, FloorSet externalButtons) {
+        if (internalButtons.higher(level) != NONE || externalButtons.higher(level) != NONE) {
+            return UP;
+        }
+        if (internalButtons.lower(level) != NONE || externalButtons.lower(level) != NONE) {
+            return DOWN;
+        }
+        return null;
+    }
+
+    private static Direction towardsNearestButton(int level, FloorSet internalButtons, FloorSet externalButtons) {
+        int above = nearest(internalButtons.higher(level), externalButtons.higher(level), level);
+        int below = nearest(internalButtons.lower(level), externalButtons.lower(level), level);
+        if (above == NONE) {
+            return below == NONE ? null : DOWN;
+        }
+        if (below == NONE) {
+            return UP;
+        }
+        return above - level <= level - below ? UP : DOWN;
+    }
+
+    private static int nearest(int first, int second, int level) {
+        if (first == NONE || second == NONE) {
+            return Math.max(first, second);
+        }
+        return Math.abs(first - level) <= Math.abs(second - level) ? first : second;
+    }
+}
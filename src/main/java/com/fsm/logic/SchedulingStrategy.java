@@ -0,0 +1,80 @@
+package com.fsm.logic;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator.Direction;
+
+/**
+ * Direction and stop decisions of an elevator. The states of {@link ElevatorState} handle doors and movement and ask
+ * the strategy where to go. Pressed buttons of the current level always open the door of a standing elevator, so the
+ * strategy decides only about other levels.
+ * <p>
+ * Methods are called on the elevator thread while buttons may be pressed concurrently, so they should work with
+ * whatever they see in the button sets.
+ */
+public interface SchedulingStrategy {
+
+    /**
+     * Idle timeout of a strategy whose choice without pressed buttons doesn't change with time
+     */
+    long NO_TIMEOUT = Long.MAX_VALUE;
+
+    /**
+     * Choose direction of an idle elevator. Also called without pressed buttons before the elevator starts waiting
+     * for them, so the strategy may move the elevator somewhere else meanwhile.
+     *
+     * @param level
+     *            - current level
+     * @param internalButtons
+     *            - pressed internal buttons
+     * @param externalButtons
+     *            - pressed external buttons
+     * @return direction to move, or null to stay idle
+     */
+    @Nullable
+    Direction chooseDirection(int level, @Nonnull FloorSet internalButtons, @Nonnull FloorSet externalButtons);
+
+    /**
+     * Time an idle elevator without pressed buttons waits for them before {@link #chooseDirection} is asked again
+     *
+     * @param level
+     *            - current level
+     * @return timeout in milliseconds, or {@link #NO_TIMEOUT} to wait until a button is pressed
+     */
+    default long getIdleTimeoutInMs(int level) {
+        return NO_TIMEOUT;
+    }
+
+    /**
+     * Choose direction of an elevator which has closed the door or is passing a level without stopping
+     *
+     * @param level
+     *            - current level
+     * @param direction
+     *            - direction of the last movement
+     * @param internalButtons
+     *            - pressed internal buttons
+     * @param externalButtons
+     *            - pressed external buttons
+     * @return direction to move, or null to become idle
+     */
+    @Nullable
+    Direction continueDirection(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+            @Nonnull FloorSet externalButtons);
+
+    /**
+     * Decide if a moving elevator should stop and open the door
+     *
+     * @param level
+     *            - level which the elevator has reached
+     * @param direction
+     *            - direction of the movement
+     * @param internalButtons
+     *            - pressed internal buttons
+     * @param externalButtons
+     *            - pressed external buttons
+     * @return true if the elevator should stop at the level
+     */
+    boolean shouldStop(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+            @Nonnull FloorSet externalButtons);
+}
@@ -0,0 +1,12 @@
+package com.fsm.logic;
+
+/**
+ * Internal buttons which don't select a floor
+ */
+public enum ServiceButton {
+
+    /**
+     * Opens the closing door again
+     */
+    OPEN
+}
@@ -0,0 +1,68 @@
+package com.fsm.logic;
+
+import javax.annotation.Nullable;
+
+/**
+ * Result of {@link Elevator#step()}: the state in which the elevator waits, the clock time when the wait ends and
+ * whether a command may end it earlier. The elevator should be stepped again at the deadline, or when its wake-up
+ * handler is called.
+ */
+public final class Step {
+
+    /**
+     * Deadline of a wait which lasts until a command comes
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    static final Step STOPPED = new Step(null, NO_DEADLINE, false);
+
+    @Nullable
+    private final ElevatorState state;
+    private final long deadlineInMs;
+    private final boolean interruptible;
+
+    Step(@Nullable ElevatorState state, long deadlineInMs, boolean interruptible) {
+        this.state = state;
+        this.deadlineInMs = deadlineInMs;
+        this.interruptible = interruptible;
+    }
+
+    /**
+     * @return state in which the elevator waits, null if the elevator is stopped
+     */
+    @Nullable
+    public ElevatorState getState() {
+        return state;
+    }
+
+    /**
+     * @return clock time in milliseconds when the elevator should be stepped again, or {@link #NO_DEADLINE} if only a
+     *         command can wake it up
+     */
+    public long getDeadlineInMs() {
+        return deadlineInMs;
+    }
+
+    /**
+     * @return true if a command may end the wait before the deadline
+     */
+    public boolean isInterruptible() {
+        return interruptible;
+    }
+
+    /**
+     * @return true if the elevator is stopped and will never wait again
+     */
+    public boolean isStopped() {
+        return state == null;
+    }
+
+    @Override
+    public String toString() {
+        if (state == null) {
+            return "Stopped";
+        }
+        return state + (deadlineInMs == NO_DEADLINE ? " until command"
+                : " until " + deadlineInMs + (interruptible ? " ms or command" : " ms"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.fsm.logic;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nonnull;
+import com.fsm.logic.delay.Delay;
+
+/**
+ * Delay of an elevator driven by {@link Elevator#step()}. Nobody waits for it: the driver compares its deadline with
+ * the clock, and an interrupt calls the wake-up handler of the elevator, so the driver steps it before the deadline.
+ */
+final class StepDelay implements Delay {
+
+    private final Elevator elevator;
+    private final long deadlineInMs;
+    private final boolean interruptible;
+    private final AtomicBoolean interrupted = new AtomicBoolean();
+
+    /**
+     * @param elevator
+     *            - stepped elevator
+     * @param deadlineInMs
+     *            - clock time of the delay end, {@link Step#NO_DEADLINE} for delay which lasts until interrupted
+     * @param interruptible
+     *            - true if commands may end the delay before its deadline
+     */
+    StepDelay(@Nonnull Elevator elevator, long deadlineInMs, boolean interruptible) {
+        this.elevator = elevator;
+        this.deadlineInMs = deadlineInMs;
+        this.interruptible = interruptible;
+    }
+
+    long getDeadlineInMs() {
+        return deadlineInMs;
+    }
+
+    boolean isInterruptible() {
+        return interruptible;
+    }
+
+    boolean isInterrupted() {
+        return interrupted.get();
+    }
+
+    /**
+     * @param nowInMs
+     *            - current clock time
+     * @return true if the delay is interrupted or its deadline has come
+     */
+    boolean isOver(long nowInMs) {
+        return interrupted.get() || nowInMs >= deadlineInMs;
+    }
+
+    @Override
+    public boolean waitForDelay() {
+        throw new UnsupportedOperationException("Stepped delay is checked by the driver instead of being awaited");
+    }
+
+    @Override
+    public boolean interrupt() {
+        if (!interruptible) {
+            throw new UnsupportedOperationException("Trying to interrupt uninterruptible delay");
+        }
+        if (!interrupted.compareAndSet(false, true)) {
+            return false;
+        }
+        elevator.onStepDelayInterrupted();
+        return true;
+    }
+}
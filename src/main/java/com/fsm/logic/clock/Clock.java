@@ -0,0 +1,65 @@
+package com.fsm.logic.clock;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import com.fsm.logic.delay.Delay;
+
+/**
+ * Source of time and delays for the elevator. Every wait of the state machine goes through the clock, so the same
+ * states can be driven either by wall time or by simulated time.
+ */
+public interface Clock {
+
+    /**
+     * @return current time in milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * @return current time in nanoseconds, only differences between two values are meaningful
+     */
+    default long nanoTime() {
+        return TimeUnit.MILLISECONDS.toNanos(currentTimeMillis());
+    }
+
+    /**
+     * Create delay which can't be interrupted
+     * 
+     * @param timeoutInMs
+     *            - delay duration
+     * @return new delay
+     */
+    @Nonnull
+    Delay getUninterruptedDelay(long timeoutInMs);
+
+    /**
+     * Create delay which can be interrupted before its end
+     * 
+     * @param timeoutInMs
+     *            - delay duration
+     * @return new delay
+     */
+    @Nonnull
+    Delay getInterruptDelay(long timeoutInMs);
+
+    /**
+     * Create delay which lasts until it will be interrupted
+     * 
+     * @return new delay
+     */
+    @Nonnull
+    Delay getInfinitiveInterruptDelay();
+
+    /**
+     * Create delay of an idle elevator which waits for commands but re-evaluates where to stand when the timeout ends.
+     * The elevator has nothing to do meanwhile, so a simulation may end during the delay.
+     * 
+     * @param timeoutInMs
+     *            - time until the elevator re-evaluates
+     * @return new delay, which can be interrupted before its end
+     */
+    @Nonnull
+    default Delay getIdleDelay(long timeoutInMs) {
+        return getInterruptDelay(timeoutInMs);
+    }
+}
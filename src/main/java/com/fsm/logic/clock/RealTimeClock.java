@@ -0,0 +1,45 @@
+package com.fsm.logic.clock;
+
+import javax.annotation.Nonnull;
+import com.fsm.logic.delay.Delay;
+import com.fsm.logic.delay.UninterruptedDelay;
+import com.fsm.logic.delay.WheelDelay;
+
+/**
+ * Clock based on wall time
+ */
+public class RealTimeClock implements Clock {
+
+    public static final RealTimeClock INSTANCE = new RealTimeClock();
+
+    private RealTimeClock() {
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Nonnull
+    @Override
+    public Delay getUninterruptedDelay(long timeoutInMs) {
+        return new UninterruptedDelay(timeoutInMs);
+    }
+
+    @Nonnull
+    @Override
+    public Delay getInterruptDelay(long timeoutInMs) {
+        return WheelDelay.getWheelDelay(timeoutInMs);
+    }
+
+    @Nonnull
+    @Override
+    public Delay getInfinitiveInterruptDelay() {
+        return WheelDelay.getInfinitiveWheelDelay();
+    }
+}
@@ -0,0 +1,391 @@
+package com.fsm.logic.clock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.Step;
+import com.fsm.logic.delay.Delay;
+
+/**
+ * Discrete-event clock. Time doesn't flow by itself: when every elevator driven by the clock is waiting for a delay,
+ * the clock jumps straight to the nearest scheduled event or delay end. Only one elevator is running at a time, so a
+ * simulation with the same scheduled events always produces the same sequence of states. The simulation is over when
+ * no events are left and every elevator waits for commands; idle delays, which only re-evaluate where an idle
+ * elevator stands, don't keep it going.
+ * <p>
+ * Delays of the clock should be awaited only by elevators started with {@link #run(Elevator...)}.
+ */
+public class SimulatedClock implements Clock {
+
+    private static final long INFINITIVE = Long.MAX_VALUE;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final List<SimulatedDelay> blockedDelays = new ArrayList<>();
+    private final List<Elevator> elevators = new ArrayList<>();
+
+    private long now;
+    private long sequence;
+    // queued events and ends of delays which aren't idle
+    private int busyEntries;
+    private int parties;
+    private boolean finished;
+
+    @Override
+    public long currentTimeMillis() {
+        lock.lock();
+        try {
+            return now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedule event at required simulated time. The event is executed by one of elevator threads while other
+     * elevators are waiting, so it can safely send commands to the elevators.
+     *
+     * @param timeInMs
+     *            - simulated time of the event, past time means current time
+     * @param event
+     *            - event to execute
+     */
+    public void schedule(long timeInMs, @Nonnull Runnable event) {
+        lock.lock();
+        try {
+            queue.add(new Entry(Math.max(timeInMs, now), sequence++, event, null));
+            busyEntries++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run elevators until all scheduled events are processed and every elevator waits for a command. After that
+     * elevators are stopped. The first elevator is run in the current thread, others on virtual threads, since only
+     * one of them is running at a time anyway.
+     *
+     * @param elevators
+     *            - elevators using this clock
+     */
+    public void run(@Nonnull Elevator... elevators) {
+        if (elevators.length == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (parties != 0 || finished) {
+                throw new IllegalStateException("Simulation has been already started");
+            }
+            parties = elevators.length;
+            this.elevators.clear();
+            for (Elevator elevator : elevators) {
+                this.elevators.add(elevator);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Thread[] threads = new Thread[elevators.length - 1];
+        RuntimeException[] failures = new RuntimeException[elevators.length];
+        for (int i = 1; i < elevators.length; i++) {
+            int index = i;
+            threads[i - 1] = Thread.ofVirtual().name("simulated-elevator-" + i)
+                    .start(() -> failures[index] = runParty(elevators[index]));
+        }
+        failures[0] = runParty(elevators[0]);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Simulation has been interrupted", e);
+            }
+        }
+        for (RuntimeException failure : failures) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Run elevators on the current thread until all scheduled events are processed and every elevator waits for a
+     * command, then stop them. Elevators are driven by {@link Elevator#step()} instead of running on threads of their
+     * own: every elevator whose deadline has come or whose wait has been interrupted is stepped, then the clock jumps
+     * to the nearest deadline or scheduled event. Events run on the current thread too, so a simulation never hands
+     * the elevators over between threads, and independent simulations run in parallel as fast as single ones.
+     * <p>
+     * Elevators stepped by the clock replace their wake-up handlers and should not be started otherwise.
+     *
+     * @param elevators
+     *            - elevators using this clock
+     */
+    public void runOnCurrentThread(@Nonnull Elevator... elevators) {
+        lock.lock();
+        try {
+            if (parties != 0 || finished) {
+                throw new IllegalStateException("Simulation has been already started");
+            }
+            parties = elevators.length;
+        } finally {
+            lock.unlock();
+        }
+
+        // only elevators and events of this thread wake elevators up, so plain arrays are enough
+        boolean[] woken = new boolean[elevators.length];
+        Step[] steps = new Step[elevators.length];
+        for (int i = 0; i < elevators.length; i++) {
+            int index = i;
+            elevators[i].setWakeUpHandler(() -> woken[index] = true);
+        }
+        while (true) {
+            stepDueElevators(elevators, woken, steps);
+            long nextDeadline = Step.NO_DEADLINE;
+            long busyDeadline = Step.NO_DEADLINE;
+            for (Step step : steps) {
+                nextDeadline = Math.min(nextDeadline, step.getDeadlineInMs());
+                if (step.getState() != ElevatorState.IDLE) {
+                    busyDeadline = Math.min(busyDeadline, step.getDeadlineInMs());
+                }
+            }
+            Entry entry;
+            lock.lock();
+            try {
+                entry = queue.peek();
+                if (entry == null && busyDeadline == Step.NO_DEADLINE) {
+                    finished = true;
+                    break;
+                }
+                if (entry != null && entry.time <= nextDeadline) {
+                    queue.poll();
+                    busyEntries--;
+                    now = Math.max(now, entry.time);
+                } else {
+                    entry = null;
+                    now = Math.max(now, nextDeadline);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (entry != null && entry.event != null) {
+                entry.event.run();
+            }
+        }
+        for (Elevator elevator : elevators) {
+            elevator.stop();
+        }
+        stepDueElevators(elevators, woken, steps);
+        for (Elevator elevator : elevators) {
+            elevator.setWakeUpHandler(null);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Delay getUninterruptedDelay(long timeoutInMs) {
+        return new SimulatedDelay(timeoutInMs, false, false);
+    }
+
+    @Nonnull
+    @Override
+    public Delay getInterruptDelay(long timeoutInMs) {
+        return new SimulatedDelay(timeoutInMs, true, false);
+    }
+
+    @Nonnull
+    @Override
+    public Delay getInfinitiveInterruptDelay() {
+        return new SimulatedDelay(INFINITIVE, true, false);
+    }
+
+    @Nonnull
+    @Override
+    public Delay getIdleDelay(long timeoutInMs) {
+        return new SimulatedDelay(timeoutInMs, true, true);
+    }
+
+    /**
+     * Step every elevator which is woken up, hasn't been stepped yet or whose deadline has come, until none of them is
+     */
+    private void stepDueElevators(Elevator[] elevators, boolean[] woken, Step[] steps) {
+        long time = currentTimeMillis();
+        boolean stepped;
+        do {
+            stepped = false;
+            for (int i = 0; i < elevators.length; i++) {
+                if (woken[i] || steps[i] == null || steps[i].getDeadlineInMs() <= time) {
+                    woken[i] = false;
+                    steps[i] = elevators[i].step();
+                    stepped = true;
+                }
+            }
+        } while (stepped);
+    }
+
+    @Nullable
+    private RuntimeException runParty(@Nonnull Elevator elevator) {
+        try {
+            elevator.run();
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        } finally {
+            lock.lock();
+            try {
+                // the elevator will never wait again, so others shouldn't wait for it
+                parties--;
+                advance();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Move time forward while all elevators are waiting. Should be called under the lock.
+     */
+    private void advance() {
+        while (parties > 0 && blockedDelays.size() == parties && !finished) {
+            if (busyEntries == 0) {
+                finish();
+                return;
+            }
+            // the queue has at least the busy entries
+            Entry entry = queue.poll();
+            if (entry.delay != null) {
+                if (!entry.delay.done) {
+                    now = Math.max(now, entry.time);
+                    entry.delay.release(false);
+                }
+            } else {
+                busyEntries--;
+                now = Math.max(now, entry.time);
+                entry.event.run();
+            }
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        elevators.forEach(Elevator::stop);
+        // stopped elevators are woken up by their own delays, release the rest if any
+        while (!blockedDelays.isEmpty()) {
+            blockedDelays.get(blockedDelays.size() - 1).release(true);
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long time;
+        private final long sequence;
+        private final Runnable event;
+        private final SimulatedDelay delay;
+
+        private Entry(long time, long sequence, @Nullable Runnable event, @Nullable SimulatedDelay delay) {
+            this.time = time;
+            this.sequence = sequence;
+            this.event = event;
+            this.delay = delay;
+        }
+
+        @Override
+        public int compareTo(@Nonnull Entry other) {
+            int result = Long.compare(time, other.time);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final class SimulatedDelay implements Delay {
+        private final long deadline;
+        private final boolean interruptible;
+        private final boolean idle;
+        private final Condition released = lock.newCondition();
+
+        // guarded by the clock lock
+        private boolean queued;
+        private boolean waiting;
+        private boolean done;
+        private boolean interrupted;
+
+        private SimulatedDelay(long timeoutInMs, boolean interruptible, boolean idle) {
+            this.interruptible = interruptible;
+            this.idle = idle;
+            lock.lock();
+            try {
+                this.deadline = timeoutInMs == INFINITIVE ? INFINITIVE : now + timeoutInMs;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean waitForDelay() {
+            lock.lock();
+            try {
+                if (done) {
+                    return interrupted;
+                }
+                if (finished) {
+                    done = true;
+                    return interrupted = interruptible;
+                }
+                if (deadline != INFINITIVE) {
+                    queue.add(new Entry(deadline, sequence++, null, this));
+                    queued = true;
+                    if (!idle) {
+                        busyEntries++;
+                    }
+                }
+                waiting = true;
+                blockedDelays.add(this);
+                advance();
+                while (!done) {
+                    released.awaitUninterruptibly();
+                }
+                return interrupted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean interrupt() {
+            if (!interruptible) {
+                throw new UnsupportedOperationException("Trying to interrupt uninterruptible delay");
+            }
+            lock.lock();
+            try {
+                if (done) {
+                    return false;
+                }
+                release(true);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(boolean wasInterrupted) {
+            done = true;
+            interrupted = wasInterrupted;
+            if (queued) {
+                // the entry stays in the queue, but doesn't keep the simulation going anymore
+                queued = false;
+                if (!idle) {
+                    busyEntries--;
+                }
+            }
+            if (waiting) {
+                waiting = false;
+                blockedDelays.remove(this);
+                released.signal();
+            }
+        }
+    }
+}
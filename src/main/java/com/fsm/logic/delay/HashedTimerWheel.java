@@ -0,0 +1,200 @@
+package com.fsm.logic.delay;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Hashed timer wheel driven by one daemon thread. All timed delays of the application share one wheel, so the number
+ * of threads doesn't depend on how many delays were created. Tasks are executed on the wheel thread and should be
+ * short.
+ */
+final class HashedTimerWheel {
+
+    static final HashedTimerWheel SHARED = new HashedTimerWheel(10, TimeUnit.MILLISECONDS, 512);
+
+    private final long tickInNanos;
+    private final int mask;
+    private final Bucket[] wheel;
+    private final long startTime;
+
+    // timeouts are added by any thread, but only wheel thread places them into buckets
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    // scheduled timeouts which were not removed from the wheel yet (including cancelled ones)
+    private final AtomicInteger activeTimeouts = new AtomicInteger();
+    private final Thread workerThread;
+
+    // accessed by wheel thread only
+    private long tick;
+
+    HashedTimerWheel(long tickDuration, @Nonnull TimeUnit unit, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size should be power of two, but was " + wheelSize);
+        }
+        this.tickInNanos = unit.toNanos(tickDuration);
+        this.mask = wheelSize - 1;
+        this.wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.startTime = System.nanoTime();
+
+        workerThread = new Thread(this::work, "elevator-timer-wheel");
+        workerThread.setDaemon(true);
+        workerThread.start();
+    }
+
+    /**
+     * Schedule task execution
+     *
+     * @param task
+     *            - task to execute on the wheel thread
+     * @param delay
+     *            - delay before execution
+     * @param unit
+     *            - delay time unit
+     * @return handle which can be used to cancel the task
+     */
+    @Nonnull
+    Timeout schedule(@Nonnull Runnable task, long delay, @Nonnull TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0)));
+        activeTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        LockSupport.unpark(workerThread);
+        return timeout;
+    }
+
+    private void work() {
+        // noinspection InfiniteLoopStatement
+        while (true) {
+            if (activeTimeouts.get() == 0) {
+                // nothing to do, wait for a new timeout instead of ticking
+                LockSupport.park(this);
+                tick = (System.nanoTime() - startTime) / tickInNanos;
+                continue;
+            }
+            long tickDeadline = (tick + 1) * tickInNanos;
+            long sleepTime;
+            while ((sleepTime = tickDeadline - (System.nanoTime() - startTime)) > 0) {
+                LockSupport.parkNanos(this, sleepTime);
+            }
+            transferNewTimeouts();
+            wheel[(int) (tick & mask)].expire(tickDeadline);
+            tick++;
+        }
+    }
+
+    private void transferNewTimeouts() {
+        Timeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                activeTimeouts.decrementAndGet();
+                continue;
+            }
+            long calculatedTick = timeout.deadline / tickInNanos;
+            timeout.remainingRounds = (calculatedTick - tick) / wheel.length;
+            wheel[(int) (Math.max(calculatedTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Cancellable handle of scheduled task
+     */
+    static final class Timeout {
+        private static final int SCHEDULED = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(SCHEDULED);
+
+        // accessed by wheel thread only
+        private long remainingRounds;
+        @Nullable
+        private Timeout next;
+        @Nullable
+        private Timeout prev;
+
+        private Timeout(@Nonnull Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task
+         *
+         * @return true if task was cancelled, false if it has been already executed or cancelled
+         */
+        boolean cancel() {
+            // the timeout stays in its bucket until the wheel thread visits it
+            return state.compareAndSet(SCHEDULED, CANCELLED);
+        }
+
+        boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private void expire() {
+            if (state.compareAndSet(SCHEDULED, EXPIRED)) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, accessed by wheel thread only
+     */
+    private final class Bucket {
+        @Nullable
+        private Timeout head;
+        @Nullable
+        private Timeout tail;
+
+        void add(@Nonnull Timeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long tickDeadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(@Nonnull Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            activeTimeouts.decrementAndGet();
+        }
+    }
+}
@@ -1,68 +1,81 @@
 package com.fsm.logic.delay;
 
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nonnull;
 
-public class InterruptDelay implements Delay{
+/**
+ * Interruptible delay which parks the waiting thread itself. No thread or executor is created per delay, and parking
+ * releases the carrier of a virtual thread, so delays of any number of elevators run on virtual threads cost only
+ * their objects.
+ */
+public class InterruptDelay implements Delay {
 
-    private final Future<Void> delayFuture;
+    private static final int WAITING = 0;
+    private static final int EXPIRED = 1;
+    private static final int INTERRUPTED = 2;
 
-    private InterruptDelay(long timeoutInMs) {
-        delayFuture = Executors.newSingleThreadExecutor().submit(() -> {
-            try {
-                TimeUnit.MILLISECONDS.sleep(timeoutInMs);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            return null;
-        });
-    }
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    private final boolean infinitive;
+    private final long deadline;
+    private volatile Thread waiter;
 
-    private InterruptDelay() {
-        delayFuture = Executors.newSingleThreadExecutor().submit(() -> {
-            try {
-                //noinspection InfiniteLoopStatement
-                while(true) {
-                    TimeUnit.DAYS.sleep(Long.MAX_VALUE);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            return null;
-        });
+    private InterruptDelay(boolean infinitive, long deadline) {
+        this.infinitive = infinitive;
+        this.deadline = deadline;
     }
 
     @Nonnull
     public static InterruptDelay getInterruptDelay(long timeoutInMs) {
-        return new InterruptDelay(timeoutInMs);
+        return new InterruptDelay(false, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutInMs, 0)));
     }
 
     @Nonnull
     public static InterruptDelay getInfinitiveInterruptDelay() {
-        return new InterruptDelay();
+        return new InterruptDelay(true, 0);
     }
 
     @Override
     public boolean waitForDelay() {
+        Thread current = Thread.currentThread();
+        waiter = current;
         try {
-            delayFuture.get();
-            return false;
-        } catch (CancellationException e) {
-            return true;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return true;
-        } catch (ExecutionException e) {
-            throw new IllegalStateException("Unexpected exception", e);
+            // the state is checked after the waiter is published, so an interrupt never misses the waiting thread
+            while (state.get() == WAITING) {
+                if (current.isInterrupted()) {
+                    return true;
+                }
+                if (infinitive) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        state.compareAndSet(WAITING, EXPIRED);
+                    } else {
+                        LockSupport.parkNanos(this, remaining);
+                    }
+                }
+            }
+            return state.get() == INTERRUPTED;
+        } finally {
+            waiter = null;
         }
     }
 
     @Override
     public boolean interrupt() {
-        return delayFuture.cancel(true);
+        if (!infinitive && deadline - System.nanoTime() <= 0) {
+            // the delay is over even if nobody has noticed it yet
+            state.compareAndSet(WAITING, EXPIRED);
+        }
+        if (!state.compareAndSet(WAITING, INTERRUPTED)) {
+            return false;
+        }
+        Thread currentWaiter = waiter;
+        if (currentWaiter != null) {
+            LockSupport.unpark(currentWaiter);
+        }
+        return true;
     }
 }
@@ -0,0 +1,62 @@
+package com.fsm.logic.delay;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Wake-up signal between threads sending commands and the thread waiting for them, built on a sequence counter. Every
+ * signal moves the sequence forward and interrupts the delay armed at the moment. The waiting thread arms its delay
+ * and takes the sequence as a key before it checks for work, so a signal is never lost: it either comes before the
+ * key is taken and the work is already visible, or it moves the sequence past the key and the thread doesn't wait, or
+ * it finds the armed delay and interrupts it.
+ * <p>
+ * The signal object lives as long as its owner, so senders never see a half-replaced delay, and signalling allocates
+ * nothing. Only one thread may arm the signal at a time.
+ */
+public final class WakeUpSignal {
+
+    private final AtomicLong sequence = new AtomicLong();
+    @Nullable
+    private volatile Delay armed;
+
+    /**
+     * Arm the delay which the next signal should interrupt
+     *
+     * @param delay
+     *            - delay the thread is going to wait for
+     * @return key which {@link #isSignalledSince(long)} compares with later signals
+     */
+    public long arm(@Nonnull Delay delay) {
+        armed = delay;
+        // the delay is published before the sequence is read, senders do it the other way round
+        return sequence.get();
+    }
+
+    /**
+     * Forget the armed delay, later signals only move the sequence
+     */
+    public void disarm() {
+        armed = null;
+    }
+
+    /**
+     * @param key
+     *            - key returned by {@link #arm(Delay)}
+     * @return true if the signal has been sent after the key was taken
+     */
+    public boolean isSignalledSince(long key) {
+        return sequence.get() != key;
+    }
+
+    /**
+     * Wake up the waiting thread. Can be called by any thread, nothing is allocated.
+     *
+     * @return true if an armed delay has been interrupted
+     */
+    public boolean signal() {
+        sequence.incrementAndGet();
+        Delay delay = armed;
+        return delay != null && delay.interrupt();
+    }
+}
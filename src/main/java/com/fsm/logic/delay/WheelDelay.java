@@ -0,0 +1,68 @@
+package com.fsm.logic.delay;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Interruptible delay backed by the shared timer wheel. The thread of the wheel ends every delay, so any number of
+ * delays can be created without growing the number of threads.
+ */
+public class WheelDelay implements Delay {
+
+    private static final int WAITING = 0;
+    private static final int EXPIRED = 1;
+    private static final int INTERRUPTED = 2;
+
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    @Nullable
+    private volatile HashedTimerWheel.Timeout timeout;
+
+    private WheelDelay() {
+    }
+
+    @Nonnull
+    public static WheelDelay getWheelDelay(long timeoutInMs) {
+        WheelDelay delay = new WheelDelay();
+        delay.timeout = HashedTimerWheel.SHARED.schedule(delay::expire, timeoutInMs, TimeUnit.MILLISECONDS);
+        return delay;
+    }
+
+    @Nonnull
+    public static WheelDelay getInfinitiveWheelDelay() {
+        return new WheelDelay();
+    }
+
+    @Override
+    public boolean waitForDelay() {
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+        return state.get() == INTERRUPTED;
+    }
+
+    @Override
+    public boolean interrupt() {
+        if (!state.compareAndSet(WAITING, INTERRUPTED)) {
+            return false;
+        }
+        HashedTimerWheel.Timeout currentTimeout = timeout;
+        if (currentTimeout != null) {
+            currentTimeout.cancel();
+        }
+        finished.countDown();
+        return true;
+    }
+
+    private void expire() {
+        if (state.compareAndSet(WAITING, EXPIRED)) {
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.fsm.logic.event;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.ElevatorState;
+
+/**
+ * State transition or button change of an elevator, delivered by {@link ElevatorPublisher}
+ */
+public final class ElevatorEvent {
+
+    /**
+     * Kind of the change
+     */
+    public enum Type {
+        /**
+         * Elevator has entered new state at the level
+         */
+        TRANSITION,
+        /**
+         * Internal floor button has been pressed
+         */
+        INTERNAL_PRESSED,
+        /**
+         * External floor button has been pressed
+         */
+        EXTERNAL_PRESSED,
+        /**
+         * Internal open button has been pressed
+         */
+        OPEN_PRESSED,
+        /**
+         * Buttons of the level have been released as the door opens there
+         */
+        RELEASED
+    }
+
+    private final Type type;
+    private final int level;
+    @Nullable
+    private final ElevatorState state;
+    private final long nanoTime;
+
+    ElevatorEvent(@Nonnull Type type, int level, @Nullable ElevatorState state, long nanoTime) {
+        this.type = type;
+        this.level = level;
+        this.state = state;
+        this.nanoTime = nanoTime;
+    }
+
+    @Nonnull
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return level of transition or floor of button, zero for the open button
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return new state of transition, null for button changes
+     */
+    @Nullable
+    public ElevatorState getState() {
+        return state;
+    }
+
+    /**
+     * @return time of the change in nanoseconds, taken from elevator clock
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    @Override
+    public String toString() {
+        return state == null ? type + " " + level : type + " " + level + " " + state;
+    }
+}
@@ -0,0 +1,319 @@
+package com.fsm.logic.event;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorListener;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.Clock;
+import com.fsm.logic.event.ElevatorEvent.Type;
+
+/**
+ * Publishes transitions and button changes of an elevator to any number of {@link Flow.Subscriber}s. Every
+ * subscriber has its own bounded buffer and gets events on its own thread or on the executor as it requests them, so
+ * neither the elevator nor other subscribers wait for a slow one. Events are delivered only after
+ * {@link Flow.Subscriber#onSubscribe} has returned. When the buffer is full, the overflow policy decides which events
+ * are lost. The publisher should be added as a listener of the elevator before it is started.
+ */
+public class ElevatorPublisher implements Flow.Publisher<ElevatorEvent>, ElevatorListener, AutoCloseable {
+
+    /**
+     * What happens to events of a subscriber which doesn't keep up
+     */
+    public enum OverflowPolicy {
+        /**
+         * The oldest buffered event is dropped to make room for the new one
+         */
+        DROP_OLDEST,
+        /**
+         * Only the latest transition is kept, a new transition replaces the buffered one. Button changes are buffered
+         * and the oldest of them is dropped when the buffer is full.
+         */
+        CONFLATE
+    }
+
+    private final Clock clock;
+    private final OverflowPolicy policy;
+    private final int capacity;
+    // null when every subscriber is drained by a virtual thread of its own
+    @Nullable
+    private final Executor executor;
+    private final CopyOnWriteArrayList<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Create publisher delivering events of every subscriber on a virtual thread of its own, which is parked while
+     * there is nothing to deliver, so a subscriber blocking in {@link Flow.Subscriber#onNext} holds only its own thread
+     *
+     * @param elevator
+     *            - observed elevator
+     * @param policy
+     *            - overflow policy
+     * @param capacity
+     *            - number of events buffered for every subscriber
+     */
+    public ElevatorPublisher(@Nonnull Elevator elevator, @Nonnull OverflowPolicy policy, int capacity) {
+        this(elevator.getClock(), policy, capacity, null);
+    }
+
+    /**
+     * @param elevator
+     *            - observed elevator
+     * @param policy
+     *            - overflow policy
+     * @param capacity
+     *            - number of events buffered for every subscriber
+     * @param executor
+     *            - executor calling subscribers
+     */
+    public ElevatorPublisher(@Nonnull Elevator elevator, @Nonnull OverflowPolicy policy, int capacity,
+            @Nonnull Executor executor) {
+        this(elevator.getClock(), policy, capacity, executor);
+    }
+
+    private ElevatorPublisher(@Nonnull Clock clock, @Nonnull OverflowPolicy policy, int capacity,
+            @Nullable Executor executor) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive, but was " + capacity);
+        }
+        this.clock = clock;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(@Nonnull Flow.Subscriber<? super ElevatorEvent> subscriber) {
+        BufferedSubscription subscription = new BufferedSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+        if (closed) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * @return number of active subscribers
+     */
+    public int getNumberOfSubscribers() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void onStateChanged(@Nonnull ElevatorState state, int level) {
+        long nanoTime = clock.nanoTime();
+        publish(new ElevatorEvent(Type.TRANSITION, level, state, nanoTime));
+        if (state == ElevatorState.OPENING) {
+            publish(new ElevatorEvent(Type.RELEASED, level, null, nanoTime));
+        }
+    }
+
+    @Override
+    public void onInternalCommand(int floor) {
+        publish(new ElevatorEvent(Type.INTERNAL_PRESSED, floor, null, clock.nanoTime()));
+    }
+
+    @Override
+    public void onExternalCommand(int floor) {
+        publish(new ElevatorEvent(Type.EXTERNAL_PRESSED, floor, null, clock.nanoTime()));
+    }
+
+    @Override
+    public void onOpenCommand() {
+        publish(new ElevatorEvent(Type.OPEN_PRESSED, 0, null, clock.nanoTime()));
+    }
+
+    /**
+     * Complete all subscribers after they receive the buffered events. Events published later are ignored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    private void publish(@Nonnull ElevatorEvent event) {
+        if (closed) {
+            return;
+        }
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Buffer and demand of one subscriber. The buffer is locked only to add or take one event, subscriber methods are
+     * called outside the lock by one drain task at a time, or by the drain thread of the subscriber.
+     */
+    private class BufferedSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super ElevatorEvent> subscriber;
+        // guarded by itself
+        private final ArrayDeque<ElevatorEvent> buffer = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+        // number of drain requests, the drain task runs while it is positive; the request of onSubscribe holds
+        // drains until it returns
+        private final AtomicInteger pendingDrains = new AtomicInteger(1);
+        @Nullable
+        private final Thread drainThread;
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        @Nullable
+        private volatile Throwable requestError;
+
+        BufferedSubscription(@Nonnull Flow.Subscriber<? super ElevatorEvent> subscriber) {
+            this.subscriber = subscriber;
+            this.drainThread =
+                    executor == null ? Thread.ofVirtual().name("elevator-subscriber").unstarted(this::drainLoop)
+                            : null;
+        }
+
+        /**
+         * Release drains requested while onSubscribe was running
+         */
+        void start() {
+            int drains = pendingDrains.decrementAndGet();
+            if (drainThread != null) {
+                drainThread.start();
+            } else if (drains != 0) {
+                executor.execute(this);
+            }
+        }
+
+        void offer(@Nonnull ElevatorEvent event) {
+            synchronized (buffer) {
+                if (policy == OverflowPolicy.CONFLATE && event.getType() == Type.TRANSITION) {
+                    removeTransition();
+                }
+                if (buffer.size() == capacity) {
+                    buffer.pollFirst();
+                }
+                buffer.addLast(event);
+            }
+            scheduleDrain();
+        }
+
+        void complete() {
+            completed = true;
+            scheduleDrain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Requested number should be positive, but was " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE
+                        : current + added);
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            if (drainThread != null && Thread.currentThread() != drainThread) {
+                LockSupport.unpark(drainThread);
+            }
+        }
+
+        @Override
+        public void run() {
+            int drains = 1;
+            do {
+                drain();
+                drains = pendingDrains.addAndGet(-drains);
+            } while (drains != 0);
+        }
+
+        /**
+         * Drain the subscriber on its own thread until it is cancelled or completed, parked while nothing is requested
+         */
+        private void drainLoop() {
+            while (!cancelled) {
+                int drains = pendingDrains.get();
+                if (drains == 0) {
+                    // a request after the check unparks the thread, since it finds no pending drains
+                    LockSupport.park(this);
+                    continue;
+                }
+                drain();
+                pendingDrains.addAndGet(-drains);
+            }
+        }
+
+        private void drain() {
+            if (cancelled) {
+                return;
+            }
+            Throwable error = requestError;
+            if (error != null) {
+                cancel();
+                subscriber.onError(error);
+                return;
+            }
+            while (demand.get() > 0) {
+                ElevatorEvent event;
+                synchronized (buffer) {
+                    event = buffer.pollFirst();
+                }
+                if (event == null) {
+                    break;
+                }
+                demand.decrementAndGet();
+                try {
+                    subscriber.onNext(event);
+                } catch (Throwable e) {
+                    cancel();
+                    subscriber.onError(e);
+                    return;
+                }
+                if (cancelled) {
+                    return;
+                }
+            }
+            if (completed && isBufferEmpty()) {
+                cancel();
+                subscriber.onComplete();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (pendingDrains.getAndIncrement() != 0) {
+                return;
+            }
+            if (drainThread != null) {
+                LockSupport.unpark(drainThread);
+            } else {
+                executor.execute(this);
+            }
+        }
+
+        private boolean isBufferEmpty() {
+            synchronized (buffer) {
+                return buffer.isEmpty();
+            }
+        }
+
+        private void removeTransition() {
+            // there is at most one buffered transition
+            for (Iterator<ElevatorEvent> iterator = buffer.descendingIterator(); iterator.hasNext();) {
+                if (iterator.next().getType() == Type.TRANSITION) {
+                    iterator.remove();
+                    return;
+                }
+            }
+        }
+    }
+}
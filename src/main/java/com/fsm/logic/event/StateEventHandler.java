@@ -0,0 +1,35 @@
+package com.fsm.logic.event;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.ElevatorState;
+
+/**
+ * Consumer of elevator state changes, called on the subscriber thread
+ */
+public interface StateEventHandler {
+
+    /**
+     * Elevator has entered new state
+     *
+     * @param level
+     *            - current level
+     * @param state
+     *            - new state
+     * @param direction
+     *            - current direction, null if elevator doesn't move anywhere
+     * @param nanoTime
+     *            - time of the change in nanoseconds, taken from elevator clock
+     */
+    void onEvent(int level, @Nonnull ElevatorState state, @Nullable Direction direction, long nanoTime);
+
+    /**
+     * Subscriber was too slow and the events were overwritten before it read them
+     *
+     * @param count
+     *            - number of lost events
+     */
+    default void onEventsLost(long count) {
+    }
+}
@@ -0,0 +1,241 @@
+package com.fsm.logic.event;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.ElevatorState;
+
+/**
+ * Single-producer ring buffer of elevator state changes. Events are written into preallocated primitive arrays, so
+ * publishing neither allocates nor blocks: a subscriber which falls behind by the capacity or more loses the oldest
+ * events instead of holding the producer. The slot after the last published event may be being written, so only
+ * capacity - 1 events are kept for a subscriber. Every subscriber reads the ring on its own thread, which is parked
+ * while there is nothing to read and is unparked by the producer.
+ */
+public final class StateEventRing {
+
+    private static final ElevatorState[] STATES = ElevatorState.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int NO_DIRECTION = -1;
+
+    private final int mask;
+    private final int[] levels;
+    private final byte[] states;
+    private final byte[] directions;
+    private final long[] nanoTimes;
+
+    // sequence of the last published event, events are numbered from zero
+    private final AtomicLong published = new AtomicLong(-1);
+    // running subscriptions, copied on change since the producer reads them on every event
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    /**
+     * @param capacity
+     *            - number of slots, should be power of two; slow subscribers get up to capacity - 1 events
+     */
+    public StateEventRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity should be power of two, but was " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.levels = new int[capacity];
+        this.states = new byte[capacity];
+        this.directions = new byte[capacity];
+        this.nanoTimes = new long[capacity];
+    }
+
+    /**
+     * Publish state change. Should be called by one thread only.
+     *
+     * @param level
+     *            - current level
+     * @param state
+     *            - new state
+     * @param direction
+     *            - current direction
+     * @param nanoTime
+     *            - time of the change
+     */
+    public void publish(int level, @Nonnull ElevatorState state, Direction direction, long nanoTime) {
+        long sequence = published.get() + 1;
+        int index = (int) (sequence & mask);
+        levels[index] = level;
+        states[index] = (byte) state.ordinal();
+        directions[index] = (byte) (direction == null ? NO_DIRECTION : direction.ordinal());
+        nanoTimes[index] = nanoTime;
+        // the write makes the slot visible together with the sequence, and it is volatile rather than ordered, so
+        // a subscriber which checks the sequence after it has announced waiting either sees the event or is unparked
+        published.set(sequence);
+        for (Subscription subscription : subscriptions) {
+            if (subscription.waiting) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+    }
+
+    /**
+     * Start delivering events published after this call to the handler on a new daemon thread. The thread is virtual
+     * when the caller is, so subscribers of elevators run on virtual threads don't add platform threads.
+     *
+     * @param handler
+     *            - events handler
+     * @param threadName
+     *            - name of subscriber thread
+     * @return subscription, which should be closed to stop the thread
+     */
+    @Nonnull
+    public Subscription subscribe(@Nonnull StateEventHandler handler, @Nonnull String threadName) {
+        Thread.Builder builder = Thread.currentThread().isVirtual() ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon();
+        return subscribe(handler, builder.name(threadName));
+    }
+
+    /**
+     * Start delivering events published after this call to the handler on a new thread of the builder
+     *
+     * @param handler
+     *            - events handler
+     * @param threadBuilder
+     *            - builder of subscriber thread
+     * @return subscription, which should be closed to stop the thread
+     */
+    @Nonnull
+    public Subscription subscribe(@Nonnull StateEventHandler handler, @Nonnull Thread.Builder threadBuilder) {
+        Subscription subscription = new Subscription(handler, published.get() + 1, threadBuilder);
+        synchronized (this) {
+            Subscription[] newSubscriptions = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            newSubscriptions[subscriptions.length] = subscription;
+            subscriptions = newSubscriptions;
+        }
+        subscription.thread.start();
+        return subscription;
+    }
+
+    private synchronized void unsubscribe(@Nonnull Subscription subscription) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i] == subscription) {
+                Subscription[] newSubscriptions = new Subscription[subscriptions.length - 1];
+                System.arraycopy(subscriptions, 0, newSubscriptions, 0, i);
+                System.arraycopy(subscriptions, i + 1, newSubscriptions, i, newSubscriptions.length - i);
+                subscriptions = newSubscriptions;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Create reader of events published after this call, for subscribers which read the ring on a thread of their own,
+     * for example between other work of an event loop
+     *
+     * @return new reader
+     */
+    @Nonnull
+    public Reader newReader() {
+        return new Reader(published.get() + 1);
+    }
+
+    /**
+     * Position of a subscriber in the ring. Should be used by one thread at a time.
+     */
+    public final class Reader {
+        private long next;
+
+        private Reader(long next) {
+            this.next = next;
+        }
+
+        /**
+         * Deliver events published since the previous call to the handler on the calling thread
+         *
+         * @param handler
+         *            - events handler
+         * @return number of delivered events
+         */
+        public int poll(@Nonnull StateEventHandler handler) {
+            long available = published.get();
+            int delivered = 0;
+            while (next <= available) {
+                // the slot after the published one may be being written, it is the slot of next - mask - 1
+                if (available - next >= mask) {
+                    long oldest = available - mask + 1;
+                    handler.onEventsLost(oldest - next);
+                    next = oldest;
+                }
+                int index = (int) (next & mask);
+                int level = levels[index];
+                int state = states[index];
+                int direction = directions[index];
+                long nanoTime = nanoTimes[index];
+                // the volatile read below doesn't keep the plain reads of the slot before it, the fence does
+                VarHandle.acquireFence();
+                if (published.get() - next >= mask) {
+                    // the slot was overwritten while it was read
+                    available = published.get();
+                    continue;
+                }
+                handler.onEvent(level, STATES[state], direction == NO_DIRECTION ? null : DIRECTIONS[direction],
+                        nanoTime);
+                next++;
+                delivered++;
+            }
+            return delivered;
+        }
+    }
+
+    /**
+     * Running subscriber of the ring
+     */
+    public final class Subscription implements AutoCloseable {
+        private final StateEventHandler handler;
+        private final Thread thread;
+        private final Reader reader;
+        private volatile boolean running = true;
+        // set by the subscriber thread before it checks the ring for the last time and parks
+        private volatile boolean waiting;
+
+        private Subscription(@Nonnull StateEventHandler handler, long next, @Nonnull Thread.Builder threadBuilder) {
+            this.handler = handler;
+            this.reader = new Reader(next);
+            this.thread = threadBuilder.unstarted(this::consume);
+        }
+
+        /**
+         * Deliver already published events and stop the subscriber thread
+         */
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            unsubscribe(this);
+        }
+
+        private void consume() {
+            while (true) {
+                // read the flag before the sequence, so events published before close() are delivered
+                boolean stopping = !running;
+                if (reader.poll(handler) > 0) {
+                    continue;
+                }
+                if (stopping) {
+                    return;
+                }
+                waiting = true;
+                // an event published before the flag was set is seen here, one published after unparks the thread
+                if (published.get() < reader.next && running) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.fsm.logic.fleet;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator;
+
+/**
+ * Runs every elevator of a fleet on its own virtual thread. An elevator spends almost all its time waiting for a
+ * delay, and a waiting virtual thread doesn't hold a platform thread, so thousands of cars share a few carrier threads
+ * and the number of platform threads doesn't depend on the size of the fleet.
+ */
+public class FleetRunner implements AutoCloseable {
+
+    private final Elevator[] elevators;
+    private final Thread[] threads;
+    private boolean started;
+
+    public FleetRunner(@Nonnull Elevator... elevators) {
+        this.elevators = elevators.clone();
+        this.threads = new Thread[elevators.length];
+    }
+
+    /**
+     * @return number of elevators in the fleet
+     */
+    public int size() {
+        return elevators.length;
+    }
+
+    /**
+     * @param index
+     *            - elevator index
+     * @return elevator of the fleet
+     */
+    @Nonnull
+    public Elevator getElevator(int index) {
+        return elevators[index];
+    }
+
+    /**
+     * Start every elevator on a new virtual thread
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("Fleet has been already started");
+        }
+        started = true;
+        Thread.Builder builder = Thread.ofVirtual().name("fleet-elevator-", 0);
+        for (int i = 0; i < elevators.length; i++) {
+            threads[i] = builder.start(elevators[i]);
+        }
+    }
+
+    /**
+     * @return number of elevators whose threads haven't finished yet
+     */
+    public int getNumberOfRunningElevators() {
+        int running = 0;
+        for (Thread thread : threads) {
+            if (thread != null && thread.isAlive()) {
+                running++;
+            }
+        }
+        return running;
+    }
+
+    /**
+     * Stop every elevator and wait until their threads finish
+     *
+     * @param timeout
+     *            - maximum time to wait for all elevators
+     * @param unit
+     *            - timeout time unit
+     * @return true if all elevators have finished
+     * @throws InterruptedException
+     *             - throw when current thread is interrupted while waiting
+     */
+    public boolean stop(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        for (Elevator elevator : elevators) {
+            elevator.stop();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread thread : threads) {
+            if (thread == null) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !thread.join(Duration.ofNanos(remaining))) {
+                return getNumberOfRunningElevators() == 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop every elevator and wait until their threads finish
+     */
+    @Override
+    public void close() {
+        try {
+            // every elevator stops after its current state, so the wait is finite
+            stop(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
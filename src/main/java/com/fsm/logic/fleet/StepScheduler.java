@@ -0,0 +1,173 @@
+package com.fsm.logic.fleet;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.Step;
+
+/**
+ * Drives elevators by their non-blocking {@link Elevator#step()} on a small pool of threads. A car is stepped when the
+ * deadline of its wait comes or when a command wakes it up, and never by two threads at once, so a fleet of any size
+ * needs only the threads of the pool. Deadlines are taken from the clocks of the elevators, which should flow like
+ * the real time one.
+ */
+public class StepScheduler implements AutoCloseable {
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final Car[] cars;
+    private final CountDownLatch stoppedCars;
+    private boolean started;
+
+    /**
+     * @param threads
+     *            - number of threads stepping the elevators
+     * @param elevators
+     *            - elevators to drive, which are not run by other threads
+     */
+    public StepScheduler(int threads, @Nonnull Elevator... elevators) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads should be positive, but was " + threads);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "elevator-stepper-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cars = new Car[elevators.length];
+        for (int i = 0; i < elevators.length; i++) {
+            cars[i] = new Car(elevators[i]);
+        }
+        this.stoppedCars = new CountDownLatch(elevators.length);
+    }
+
+    /**
+     * @return number of elevators driven by the scheduler
+     */
+    public int size() {
+        return cars.length;
+    }
+
+    /**
+     * @param index
+     *            - elevator index
+     * @return elevator driven by the scheduler
+     */
+    @Nonnull
+    public Elevator getElevator(int index) {
+        return cars[index].elevator;
+    }
+
+    /**
+     * Start stepping the elevators
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("Scheduler has been already started");
+        }
+        started = true;
+        for (Car car : cars) {
+            car.elevator.setWakeUpHandler(car::wakeUp);
+            car.wakeUp();
+        }
+    }
+
+    /**
+     * @return number of elevators which haven't stopped yet
+     */
+    public int getNumberOfRunningElevators() {
+        return (int) stoppedCars.getCount();
+    }
+
+    /**
+     * Stop every elevator and wait until they finish their current states
+     *
+     * @param timeout
+     *            - maximum time to wait for all elevators
+     * @param unit
+     *            - timeout time unit
+     * @return true if all elevators have stopped
+     * @throws InterruptedException
+     *             - throw when current thread is interrupted while waiting
+     */
+    public boolean stop(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        for (Car car : cars) {
+            // an idle elevator is woken up by the stop itself
+            car.elevator.stop();
+        }
+        return stoppedCars.await(timeout, unit);
+    }
+
+    /**
+     * Stop every elevator, wait until they finish and release the threads
+     */
+    @Override
+    public void close() {
+        try {
+            if (started) {
+                stop(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private final class Car implements Runnable {
+        private final Elevator elevator;
+        // number of wake-ups since the car was last stepped, the car is stepped by one task while it isn't zero
+        private final AtomicInteger wakeUps = new AtomicInteger();
+
+        // accessed by the stepping task only
+        private long scheduledDeadline = Step.NO_DEADLINE;
+        private long scheduledWakeUpNanos;
+        private boolean stopped;
+
+        private Car(@Nonnull Elevator elevator) {
+            this.elevator = elevator;
+        }
+
+        private void wakeUp() {
+            if (wakeUps.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int handled;
+            do {
+                handled = wakeUps.get();
+                step();
+            } while (wakeUps.addAndGet(-handled) != 0);
+        }
+
+        private void step() {
+            if (stopped) {
+                return;
+            }
+            Step step = elevator.step();
+            if (step.isStopped()) {
+                stopped = true;
+                stoppedCars.countDown();
+                return;
+            }
+            long deadline = step.getDeadlineInMs();
+            if (deadline == Step.NO_DEADLINE) {
+                return;
+            }
+            // the wake-up may come before the clock of the elevator reaches the deadline, for example after the wall
+            // clock has been set back, then the car is still waiting and the wake-up is scheduled again
+            if (deadline != scheduledDeadline || System.nanoTime() - scheduledWakeUpNanos >= 0) {
+                long delay = Math.max(deadline - elevator.getClock().currentTimeMillis(), 0);
+                scheduledDeadline = deadline;
+                scheduledWakeUpNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                executor.schedule(this::wakeUp, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
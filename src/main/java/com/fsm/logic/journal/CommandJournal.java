@@ -0,0 +1,205 @@
+package com.fsm.logic.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorListener;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.Clock;
+
+/**
+ * Append-only binary journal of elevator commands and state transitions. Records are written straight into a
+ * memory-mapped file, so appending a record is a few memory stores and only every {@link #CHUNK_SIZE} bytes a new
+ * chunk of the file is mapped. The journal should be added as a listener before the elevator is started, and closed
+ * after the elevator is stopped.
+ * <p>
+ * The file starts with a header of {@link #HEADER_SIZE} bytes holding elevator params, followed by records of
+ * {@link #RECORD_SIZE} bytes: time in milliseconds, floor or level, state ordinal and record type. The first record
+ * with zero type ends the journal.
+ */
+public class CommandJournal implements ElevatorListener, Closeable {
+
+    /**
+     * Type of journal record
+     */
+    public enum RecordType {
+        INTERNAL_COMMAND, EXTERNAL_COMMAND, OPEN_COMMAND, TRANSITION
+    }
+
+    static final int MAGIC = 0x454C564A;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 48;
+    static final int RECORD_SIZE = 16;
+    static final int CHUNK_SIZE = 8 << 20;
+
+    // header offsets
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int LEVELS_OFFSET = 8;
+    static final int HEIGHT_OFFSET = 12;
+    static final int SPEED_OFFSET = 16;
+    static final int DOOR_MOVE_TIME_OFFSET = 24;
+    static final int OPEN_DOOR_TIME_OFFSET = 32;
+
+    // record offsets
+    static final int TIME_OFFSET = 0;
+    static final int FLOOR_OFFSET = 8;
+    static final int STATE_OFFSET = 12;
+    static final int TYPE_OFFSET = 15;
+
+    private static final byte NO_STATE = -1;
+    private static final RecordType[] TYPES = RecordType.values();
+
+    private final FileChannel channel;
+    private final Clock clock;
+    private final AtomicLong position = new AtomicLong(HEADER_SIZE);
+    // appends which may have seen the journal open, closing waits for them so every reserved record is forced
+    private final AtomicInteger appending = new AtomicInteger();
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private volatile boolean closed;
+
+    /**
+     * Create journal file, existing file is overwritten
+     *
+     * @param file
+     *            - journal file
+     * @param elevator
+     *            - recorded elevator, its params are saved in the header
+     * @throws IOException
+     *             - throw when the file can't be created
+     */
+    public CommandJournal(@Nonnull Path file, @Nonnull Elevator elevator) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.clock = elevator.getClock();
+        MappedByteBuffer header = chunk(0);
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(LEVELS_OFFSET, elevator.getNumberOfLevels());
+        header.putFloat(HEIGHT_OFFSET, elevator.getLevelHeightInMeter());
+        header.putFloat(SPEED_OFFSET, elevator.getSpeedInMeterPerSecond());
+        header.putLong(DOOR_MOVE_TIME_OFFSET, elevator.getDoorMoveTimeInMs());
+        header.putLong(OPEN_DOOR_TIME_OFFSET, elevator.getOpenDoorTimeInMs());
+    }
+
+    @Override
+    public void onStateChanged(@Nonnull ElevatorState state, int level) {
+        append(RecordType.TRANSITION, level, (byte) state.ordinal());
+    }
+
+    @Override
+    public void onInternalCommand(int floor) {
+        append(RecordType.INTERNAL_COMMAND, floor, NO_STATE);
+    }
+
+    @Override
+    public void onExternalCommand(int floor) {
+        append(RecordType.EXTERNAL_COMMAND, floor, NO_STATE);
+    }
+
+    @Override
+    public void onOpenCommand() {
+        append(RecordType.OPEN_COMMAND, 0, NO_STATE);
+    }
+
+    /**
+     * @return number of bytes written including the header
+     */
+    public long size() {
+        return position.get();
+    }
+
+    /**
+     * Flush written records to the storage and close the file. Records appended after closing are ignored, the ones
+     * being appended meanwhile are finished and flushed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        // outside the lock, since appends may need it to map a chunk
+        while (appending.get() != 0) {
+            Thread.onSpinWait();
+        }
+        synchronized (this) {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+            channel.close();
+        }
+    }
+
+    static RecordType typeOf(byte type) {
+        return type > 0 && type <= TYPES.length ? TYPES[type - 1] : null;
+    }
+
+    private void append(RecordType type, int floor, byte state) {
+        // announced before the flag is checked, so closing either waits for the append or the append sees the flag
+        appending.incrementAndGet();
+        try {
+            if (closed) {
+                return;
+            }
+            // every thread writes its own record, so concurrent commands and transitions don't block each other
+            long offset = position.getAndAdd(RECORD_SIZE);
+            MappedByteBuffer chunk = chunk((int) (offset / CHUNK_SIZE));
+            if (chunk == null) {
+                return;
+            }
+            int index = (int) (offset % CHUNK_SIZE);
+            chunk.putLong(index + TIME_OFFSET, clock.currentTimeMillis());
+            chunk.putInt(index + FLOOR_OFFSET, floor);
+            chunk.put(index + STATE_OFFSET, state);
+            chunk.put(index + TYPE_OFFSET, (byte) (type.ordinal() + 1));
+        } finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    @Nullable
+    private MappedByteBuffer chunk(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        return mapChunks(index);
+    }
+
+    @Nullable
+    private synchronized MappedByteBuffer mapChunks(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        if (!channel.isOpen()) {
+            // the journal has been closed
+            return null;
+        }
+        MappedByteBuffer[] mapped = new MappedByteBuffer[index + 1];
+        System.arraycopy(current, 0, mapped, 0, current.length);
+        try {
+            for (int i = current.length; i <= index; i++) {
+                mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * CHUNK_SIZE, CHUNK_SIZE);
+                mapped[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't map journal chunk " + index, e);
+        }
+        chunks = mapped;
+        return mapped[index];
+    }
+}
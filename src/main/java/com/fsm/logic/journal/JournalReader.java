@@ -0,0 +1,174 @@
+package com.fsm.logic.journal;
+
+import static com.fsm.logic.journal.CommandJournal.CHUNK_SIZE;
+import static com.fsm.logic.journal.CommandJournal.DOOR_MOVE_TIME_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.FLOOR_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.HEADER_SIZE;
+import static com.fsm.logic.journal.CommandJournal.HEIGHT_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.LEVELS_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.MAGIC;
+import static com.fsm.logic.journal.CommandJournal.MAGIC_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.OPEN_DOOR_TIME_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.RECORD_SIZE;
+import static com.fsm.logic.journal.CommandJournal.SPEED_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.STATE_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.TIME_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.TYPE_OFFSET;
+import static com.fsm.logic.journal.CommandJournal.VERSION;
+import static com.fsm.logic.journal.CommandJournal.VERSION_OFFSET;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.journal.CommandJournal.RecordType;
+
+/**
+ * Sequential reader of a journal written by {@link CommandJournal}. The file is mapped chunk by chunk and records are
+ * read in place, nothing is allocated per record.
+ */
+public class JournalReader implements Closeable {
+
+    private static final ElevatorState[] STATES = ElevatorState.values();
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int numberOfLevels;
+    private final float levelHeightInMeter;
+    private final float speedInMeterPerSecond;
+    private final long doorMoveTimeInMs;
+    private final long openDoorTimeInMs;
+
+    private MappedByteBuffer chunk;
+    private long chunkStart = -1;
+    private long position = HEADER_SIZE;
+
+    // current record
+    private RecordType type;
+    private long timeInMs;
+    private int floor;
+    private byte state;
+
+    /**
+     * @param file
+     *            - journal file
+     * @throws IOException
+     *             - throw when the file can't be read or isn't a journal
+     */
+    public JournalReader(@Nonnull Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        if (fileSize < HEADER_SIZE || !map(0)) {
+            channel.close();
+            throw new IOException("File is too short for a journal: " + file);
+        }
+        if (chunk.getInt(MAGIC_OFFSET) != MAGIC || chunk.getInt(VERSION_OFFSET) != VERSION) {
+            channel.close();
+            throw new IOException("File isn't a journal of supported version: " + file);
+        }
+        this.numberOfLevels = chunk.getInt(LEVELS_OFFSET);
+        this.levelHeightInMeter = chunk.getFloat(HEIGHT_OFFSET);
+        this.speedInMeterPerSecond = chunk.getFloat(SPEED_OFFSET);
+        this.doorMoveTimeInMs = chunk.getLong(DOOR_MOVE_TIME_OFFSET);
+        this.openDoorTimeInMs = chunk.getLong(OPEN_DOOR_TIME_OFFSET);
+    }
+
+    /**
+     * Move to the next record
+     *
+     * @return false if there are no more records
+     * @throws IOException
+     *             - throw when the file can't be read
+     */
+    public boolean next() throws IOException {
+        if (type == null && position > HEADER_SIZE) {
+            // the end has been already reached
+            return false;
+        }
+        if (position + RECORD_SIZE > chunkStart + chunk.limit() && !map(position)) {
+            type = null;
+            return false;
+        }
+        int index = (int) (position - chunkStart);
+        type = CommandJournal.typeOf(chunk.get(index + TYPE_OFFSET));
+        if (type == null) {
+            return false;
+        }
+        timeInMs = chunk.getLong(index + TIME_OFFSET);
+        floor = chunk.getInt(index + FLOOR_OFFSET);
+        state = chunk.get(index + STATE_OFFSET);
+        position += RECORD_SIZE;
+        return true;
+    }
+
+    /**
+     * @return type of the current record
+     */
+    @Nullable
+    public RecordType getType() {
+        return type;
+    }
+
+    /**
+     * @return time of the current record in milliseconds
+     */
+    public long getTimeInMs() {
+        return timeInMs;
+    }
+
+    /**
+     * @return pressed floor of a command or elevator level of a transition
+     */
+    public int getFloor() {
+        return floor;
+    }
+
+    /**
+     * @return new state of a transition, null for commands
+     */
+    @Nullable
+    public ElevatorState getState() {
+        return state < 0 ? null : STATES[state];
+    }
+
+    public int getNumberOfLevels() {
+        return numberOfLevels;
+    }
+
+    public float getLevelHeightInMeter() {
+        return levelHeightInMeter;
+    }
+
+    public float getSpeedInMeterPerSecond() {
+        return speedInMeterPerSecond;
+    }
+
+    public long getDoorMoveTimeInMs() {
+        return doorMoveTimeInMs;
+    }
+
+    public long getOpenDoorTimeInMs() {
+        return openDoorTimeInMs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean map(long start) throws IOException {
+        long size = Math.min(CHUNK_SIZE, fileSize - start);
+        if (size < RECORD_SIZE) {
+            return false;
+        }
+        chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        chunkStart = start;
+        return true;
+    }
+}
@@ -0,0 +1,235 @@
+package com.fsm.logic.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorListener;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.ServiceButton;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.journal.CommandJournal.RecordType;
+
+/**
+ * Replays commands of a journal on a new elevator under {@link SimulatedClock} and checks that the elevator goes
+ * through the same transitions. Commands are sent at their recorded time relative to the first record, and both the
+ * commands and the expected transitions are streamed from the file, so journals of any size can be replayed.
+ */
+public class JournalReplay {
+
+    private JournalReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: JournalReplay <journal file>");
+            return;
+        }
+        Result result = replay(Paths.get(args[0]));
+        System.out.println(result);
+        if (!result.isMatched()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Replay journal
+     *
+     * @param file
+     *            - journal file
+     * @return comparison of recorded and replayed transitions
+     * @throws IOException
+     *             - throw when the journal can't be read
+     */
+    @Nonnull
+    public static Result replay(@Nonnull Path file) throws IOException {
+        try (JournalReader commands = new JournalReader(file); JournalReader expected = new JournalReader(file)) {
+            SimulatedClock clock = new SimulatedClock();
+            Elevator elevator = new Elevator(commands.getNumberOfLevels(), commands.getLevelHeightInMeter(),
+                    commands.getSpeedInMeterPerSecond(), commands.getDoorMoveTimeInMs(),
+                    commands.getOpenDoorTimeInMs(), clock);
+            Result result = new Result();
+            if (!commands.next()) {
+                return result;
+            }
+            long startTime = commands.getTimeInMs();
+            elevator.addListener(new TransitionChecker(expected, clock, startTime, result));
+            clock.schedule(0, new CommandFeeder(commands, elevator, clock, startTime));
+            clock.run(elevator);
+            // transitions recorded after the replayed elevator has stopped
+            while (nextTransition(expected)) {
+                result.recorded++;
+            }
+            return result;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean nextTransition(JournalReader reader) throws IOException {
+        while (reader.next()) {
+            if (reader.getType() == RecordType.TRANSITION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends all commands of the current record time and schedules itself at the time of the next command
+     */
+    private static class CommandFeeder implements Runnable {
+        private final JournalReader reader;
+        private final Elevator elevator;
+        private final SimulatedClock clock;
+        private final long startTime;
+
+        CommandFeeder(JournalReader reader, Elevator elevator, SimulatedClock clock, long startTime) {
+            this.reader = reader;
+            this.elevator = elevator;
+            this.clock = clock;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void run() {
+            try {
+                do {
+                    long time = reader.getTimeInMs() - startTime;
+                    if (time > clock.currentTimeMillis()) {
+                        clock.schedule(time, this);
+                        return;
+                    }
+                    send(reader.getType(), reader.getFloor());
+                } while (reader.next());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void send(RecordType type, int floor) {
+            switch (type) {
+                case INTERNAL_COMMAND:
+                    elevator.addInternalCommand(floor);
+                    break;
+                case EXTERNAL_COMMAND:
+                    elevator.addExternalCommand(floor);
+                    break;
+                case OPEN_COMMAND:
+                    elevator.addInternalCommand(ServiceButton.OPEN);
+                    break;
+                default:
+                    // transitions are checked by TransitionChecker
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Compares every replayed transition with the next recorded one
+     */
+    private static class TransitionChecker implements ElevatorListener {
+        private final JournalReader reader;
+        private final SimulatedClock clock;
+        private final long startTime;
+        private final Result result;
+
+        TransitionChecker(JournalReader reader, SimulatedClock clock, long startTime, Result result) {
+            this.reader = reader;
+            this.clock = clock;
+            this.startTime = startTime;
+            this.result = result;
+        }
+
+        @Override
+        public void onStateChanged(@Nonnull ElevatorState state, int level) {
+            boolean recorded;
+            try {
+                recorded = nextTransition(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            long index = result.replayed++;
+            if (!recorded) {
+                result.setMismatch(index, state, level, null, 0);
+                return;
+            }
+            result.recorded++;
+            if (reader.getState() != state || reader.getFloor() != level) {
+                result.setMismatch(index, state, level, reader.getState(), reader.getFloor());
+            }
+            long drift = Math.abs(clock.currentTimeMillis() - (reader.getTimeInMs() - startTime));
+            result.maxTimeDriftInMs = Math.max(result.maxTimeDriftInMs, drift);
+        }
+    }
+
+    /**
+     * Result of the replay
+     */
+    public static class Result {
+        private long recorded;
+        private long replayed;
+        private long mismatchIndex = -1;
+        private String mismatch;
+        private long maxTimeDriftInMs;
+
+        /**
+         * @return true if the replayed elevator has gone through exactly the recorded transitions
+         */
+        public boolean isMatched() {
+            return mismatchIndex < 0 && recorded == replayed;
+        }
+
+        /**
+         * @return number of recorded transitions
+         */
+        public long getRecorded() {
+            return recorded;
+        }
+
+        /**
+         * @return number of replayed transitions
+         */
+        public long getReplayed() {
+            return replayed;
+        }
+
+        /**
+         * @return index of the first transition which differs from the recorded one, -1 if there is no such
+         */
+        public long getMismatchIndex() {
+            return mismatchIndex;
+        }
+
+        /**
+         * @return the biggest difference between recorded and replayed time of the same transition
+         */
+        public long getMaxTimeDriftInMs() {
+            return maxTimeDriftInMs;
+        }
+
+        private void setMismatch(long index, ElevatorState state, int level, ElevatorState expectedState,
+                int expectedLevel) {
+            if (mismatchIndex >= 0) {
+                return;
+            }
+            mismatchIndex = index;
+            mismatch = expectedState == null
+                    ? String.format("%s at level %d is not recorded", state, level)
+                    : String.format("%s at level %d instead of %s at level %d", state, level, expectedState,
+                            expectedLevel);
+        }
+
+        @Override
+        public String toString() {
+            String summary = String.format("Recorded transitions: %d, replayed: %d, max time drift: %d ms", recorded,
+                    replayed, maxTimeDriftInMs);
+            if (mismatchIndex >= 0) {
+                return summary + String.format(", transition %d differs: %s", mismatchIndex, mismatch);
+            }
+            return recorded == replayed ? summary + ", matched" : summary + ", replay has stopped earlier";
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.fsm.logic.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorListener;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.Clock;
+
+/**
+ * Passenger-facing latencies of an elevator, all in milliseconds:
+ * <ul>
+ * <li>hall call wait - from the first press of an external button until the door starts opening at its floor;</li>
+ * <li>ride time - from the first press of an internal button until the door starts opening at its floor;</li>
+ * <li>dwell time of every state;</li>
+ * </ul>
+ * and the number of door reopens, when the open button interrupts closing. Everything is recorded into lock-free
+ * histograms by the threads sending commands and by the elevator thread, and can be published as MBeans.
+ */
+public class ElevatorMetrics implements ElevatorListener, ElevatorMetricsMXBean {
+
+    private static final long NOT_PRESSED = Long.MIN_VALUE;
+
+    private final Clock clock;
+    private final LatencyHistogram hallCallWait = new LatencyHistogram();
+    private final LatencyHistogram rideTime = new LatencyHistogram();
+    private final Map<ElevatorState, LatencyHistogram> dwellTimes = new EnumMap<>(ElevatorState.class);
+    private final LongAdder doorReopens = new LongAdder();
+    private final LongAdder openButtonPresses = new LongAdder();
+    // time of the first press of each floor button which hasn't been served yet
+    private final AtomicLongArray externalPressTimes;
+    private final AtomicLongArray internalPressTimes;
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    // accessed by the elevator thread only
+    private ElevatorState previousState;
+    private long previousStateTime;
+
+    /**
+     * Create metrics, they should be added as a listener of the elevator before it is started
+     *
+     * @param elevator
+     *            - measured elevator
+     */
+    public ElevatorMetrics(@Nonnull Elevator elevator) {
+        this.clock = elevator.getClock();
+        for (ElevatorState state : ElevatorState.values()) {
+            dwellTimes.put(state, new LatencyHistogram());
+        }
+        externalPressTimes = new AtomicLongArray(elevator.getNumberOfLevels() + 1);
+        internalPressTimes = new AtomicLongArray(elevator.getNumberOfLevels() + 1);
+        for (int floor = 0; floor <= elevator.getNumberOfLevels(); floor++) {
+            externalPressTimes.set(floor, NOT_PRESSED);
+            internalPressTimes.set(floor, NOT_PRESSED);
+        }
+    }
+
+    @Override
+    public void onStateChanged(@Nonnull ElevatorState state, int level) {
+        long now = now();
+        if (previousState != null) {
+            dwellTimes.get(previousState).record(now - previousStateTime);
+            if (previousState == ElevatorState.CLOSING && state == ElevatorState.OPENING) {
+                doorReopens.increment();
+            }
+        }
+        previousState = state;
+        previousStateTime = now;
+        if (state == ElevatorState.OPENING) {
+            recordServed(externalPressTimes, hallCallWait, level, now);
+            recordServed(internalPressTimes, rideTime, level, now);
+        }
+    }
+
+    @Override
+    public void onInternalCommand(int floor) {
+        internalPressTimes.compareAndSet(floor, NOT_PRESSED, now());
+    }
+
+    @Override
+    public void onExternalCommand(int floor) {
+        externalPressTimes.compareAndSet(floor, NOT_PRESSED, now());
+    }
+
+    @Override
+    public void onOpenCommand() {
+        openButtonPresses.increment();
+    }
+
+    @Nonnull
+    public LatencyHistogram getHallCallWait() {
+        return hallCallWait;
+    }
+
+    @Nonnull
+    public LatencyHistogram getRideTime() {
+        return rideTime;
+    }
+
+    /**
+     * @param state
+     *            - elevator state
+     * @return histogram of time spent in the state
+     */
+    @Nonnull
+    public LatencyHistogram getDwellTime(@Nonnull ElevatorState state) {
+        return dwellTimes.get(state);
+    }
+
+    @Override
+    public long getDoorReopenCount() {
+        return doorReopens.sum();
+    }
+
+    @Override
+    public long getOpenButtonPressCount() {
+        return openButtonPresses.sum();
+    }
+
+    /**
+     * Register metrics and all histograms in the platform MBean server under {@code com.fsm:type=Elevator}
+     *
+     * @param name
+     *            - elevator name, unique in the server
+     * @throws JMException
+     *             - throw when the MBeans can't be registered
+     */
+    public void registerMBeans(@Nonnull String name) throws JMException {
+        registerMBeans(ManagementFactory.getPlatformMBeanServer(), name);
+    }
+
+    /**
+     * Register metrics and all histograms in the server under {@code com.fsm:type=Elevator}
+     *
+     * @param server
+     *            - MBean server
+     * @param name
+     *            - elevator name, unique in the server
+     * @throws JMException
+     *             - throw when the MBeans can't be registered
+     */
+    public synchronized void registerMBeans(@Nonnull MBeanServer server, @Nonnull String name) throws JMException {
+        String prefix = "com.fsm:type=Elevator,name=" + ObjectName.quote(name);
+        register(server, new ObjectName(prefix), this);
+        register(server, new ObjectName(prefix + ",metric=hallCallWait"), hallCallWait);
+        register(server, new ObjectName(prefix + ",metric=rideTime"), rideTime);
+        for (Map.Entry<ElevatorState, LatencyHistogram> dwellTime : dwellTimes.entrySet()) {
+            register(server, new ObjectName(prefix + ",metric=dwellTime,state=" + dwellTime.getKey().name()),
+                    dwellTime.getValue());
+        }
+    }
+
+    /**
+     * Unregister all MBeans registered by {@link #registerMBeans(MBeanServer, String)}
+     *
+     * @param server
+     *            - MBean server
+     * @throws JMException
+     *             - throw when the MBeans can't be unregistered
+     */
+    public synchronized void unregisterMBeans(@Nonnull MBeanServer server) throws JMException {
+        for (ObjectName objectName : registeredNames) {
+            server.unregisterMBean(objectName);
+        }
+        registeredNames.clear();
+    }
+
+    private void register(MBeanServer server, ObjectName objectName, Object bean) throws JMException {
+        server.registerMBean(bean, objectName);
+        registeredNames.add(objectName);
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(clock.nanoTime());
+    }
+
+    private static void recordServed(AtomicLongArray pressTimes, LatencyHistogram histogram, int level, long now) {
+        long pressTime = pressTimes.getAndSet(level, NOT_PRESSED);
+        if (pressTime != NOT_PRESSED) {
+            histogram.record(now - pressTime);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.fsm.logic.metrics;
+
+/**
+ * Management view of elevator counters, latencies are published as separate {@link LatencyHistogramMXBean}s
+ */
+public interface ElevatorMetricsMXBean {
+
+    /**
+     * @return number of times the closing door has been opened again by the open button
+     */
+    long getDoorReopenCount();
+
+    /**
+     * @return number of open button presses
+     */
+    long getOpenButtonPressCount();
+}
@@ -0,0 +1,19 @@
+package com.fsm.logic.metrics;
+
+/**
+ * Management view of a latency histogram, all values are in milliseconds
+ */
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getP50();
+
+    long getP99();
+
+    long getP999();
+}
@@ -0,0 +1,96 @@
+package com.fsm.logic.metrics;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import com.fsm.logic.ElevatorState;
+
+/**
+ * Timeline of one button press, all times are {@link com.fsm.logic.clock.Clock#nanoTime()} values
+ */
+public final class PressTrace {
+
+    /**
+     * Interrupt time of a press which hasn't interrupted any wait
+     */
+    public static final long NOT_INTERRUPTED = Long.MIN_VALUE;
+
+    public enum Button {
+        INTERNAL, EXTERNAL, OPEN
+    }
+
+    private final Button button;
+    private final int floor;
+    private final long pressTime;
+    private final long seenTime;
+    private final long interruptTime;
+    private final long transitionTime;
+    private final ElevatorState transitionState;
+
+    PressTrace(@Nonnull Button button, int floor, long pressTime, long seenTime, long interruptTime,
+            long transitionTime, @Nonnull ElevatorState transitionState) {
+        this.button = button;
+        this.floor = floor;
+        this.pressTime = pressTime;
+        this.seenTime = seenTime;
+        this.interruptTime = interruptTime;
+        this.transitionTime = transitionTime;
+        this.transitionState = transitionState;
+    }
+
+    @Nonnull
+    public Button getButton() {
+        return button;
+    }
+
+    /**
+     * @return pressed floor, zero for the open button
+     */
+    public int getFloor() {
+        return floor;
+    }
+
+    public long getPressTime() {
+        return pressTime;
+    }
+
+    public long getSeenTime() {
+        return seenTime;
+    }
+
+    /**
+     * @return time when the press interrupted the wait of the state, or {@link #NOT_INTERRUPTED}
+     */
+    public long getInterruptTime() {
+        return interruptTime;
+    }
+
+    public long getTransitionTime() {
+        return transitionTime;
+    }
+
+    /**
+     * @return state which the elevator entered in reaction to the press
+     */
+    @Nonnull
+    public ElevatorState getTransitionState() {
+        return transitionState;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder().append(button);
+        if (button != Button.OPEN) {
+            builder.append(' ').append(floor);
+        }
+        builder.append(": seen after ").append(toMicros(seenTime - pressTime)).append(" us");
+        if (interruptTime != NOT_INTERRUPTED) {
+            builder.append(", interrupted after ").append(toMicros(interruptTime - pressTime)).append(" us");
+        }
+        return builder.append(", ").append(transitionState).append(" after ")
+                .append(toMicros(transitionTime - pressTime)).append(" us").toString();
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
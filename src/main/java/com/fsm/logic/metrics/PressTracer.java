@@ -0,0 +1,203 @@
+package com.fsm.logic.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorListener;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.Clock;
+
+/**
+ * Traces every button press through the elevator, all stages in microseconds from the press:
+ * <ul>
+ * <li>seen - the state machine has applied the command to the buttons;</li>
+ * <li>interrupted - the command has interrupted the wait of the state, recorded only for presses which did;</li>
+ * <li>transition - the first transition after the command was seen, the reaction of the elevator.</li>
+ * </ul>
+ * A press whose reaction took longer than the threshold is reported to the slow press handler. Repeated presses of the
+ * same button before the command is seen are traced as one, from the first of them. Presses and interrupts are stamped
+ * by the threads sending commands without locks, everything else is done by the elevator thread.
+ */
+public class PressTracer implements ElevatorListener {
+
+    private static final long NOT_PRESSED = Long.MIN_VALUE;
+    private static final long NOT_INTERRUPTED = Long.MIN_VALUE;
+    private static final int OPEN_BUTTON = 0;
+
+    private final Clock clock;
+    private final long slowPressThresholdInNanos;
+    @Nullable
+    private final Consumer<PressTrace> slowPressHandler;
+    private final LatencyHistogram seenLatency = new LatencyHistogram();
+    private final LatencyHistogram interruptLatency = new LatencyHistogram();
+    private final LatencyHistogram transitionLatency = new LatencyHistogram();
+    private final LongAdder slowPresses = new LongAdder();
+    // press time of each button whose command hasn't been seen yet, the open button is kept at floor zero
+    private final AtomicLongArray internalPressTimes;
+    private final AtomicLongArray externalPressTimes;
+    // the first interrupt since the last transition
+    private final AtomicLong interruptTime = new AtomicLong(NOT_INTERRUPTED);
+
+    // commands seen since the last transition, accessed by the elevator thread only
+    private PressTrace.Button[] seenButtons = new PressTrace.Button[16];
+    private int[] seenFloors = new int[16];
+    private long[] seenPressTimes = new long[16];
+    private long[] seenTimes = new long[16];
+    private int seenCount;
+
+    /**
+     * Create tracer which only records latencies, it should be added as a listener of the elevator before it is
+     * started
+     *
+     * @param elevator
+     *            - traced elevator
+     */
+    public PressTracer(@Nonnull Elevator elevator) {
+        this(elevator, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Create tracer which reports slow presses, it should be added as a listener of the elevator before it is started
+     *
+     * @param elevator
+     *            - traced elevator
+     * @param slowPressThresholdInMicros
+     *            - the longest time from a press to the reaction which isn't reported
+     * @param slowPressHandler
+     *            - handler of slow presses, called on the elevator thread
+     */
+    public PressTracer(@Nonnull Elevator elevator, long slowPressThresholdInMicros,
+            @Nullable Consumer<PressTrace> slowPressHandler) {
+        this.clock = elevator.getClock();
+        this.slowPressThresholdInNanos = slowPressThresholdInMicros >= TimeUnit.NANOSECONDS.toMicros(Long.MAX_VALUE)
+                ? Long.MAX_VALUE : TimeUnit.MICROSECONDS.toNanos(slowPressThresholdInMicros);
+        this.slowPressHandler = slowPressHandler;
+        internalPressTimes = new AtomicLongArray(elevator.getNumberOfLevels() + 1);
+        externalPressTimes = new AtomicLongArray(elevator.getNumberOfLevels() + 1);
+        for (int floor = 0; floor <= elevator.getNumberOfLevels(); floor++) {
+            internalPressTimes.set(floor, NOT_PRESSED);
+            externalPressTimes.set(floor, NOT_PRESSED);
+        }
+    }
+
+    @Override
+    public void onInternalCommand(int floor) {
+        internalPressTimes.compareAndSet(floor, NOT_PRESSED, clock.nanoTime());
+    }
+
+    @Override
+    public void onExternalCommand(int floor) {
+        externalPressTimes.compareAndSet(floor, NOT_PRESSED, clock.nanoTime());
+    }
+
+    @Override
+    public void onOpenCommand() {
+        internalPressTimes.compareAndSet(OPEN_BUTTON, NOT_PRESSED, clock.nanoTime());
+    }
+
+    @Override
+    public void onDelayInterrupted(@Nonnull ElevatorState state) {
+        interruptTime.compareAndSet(NOT_INTERRUPTED, clock.nanoTime());
+    }
+
+    @Override
+    public void onInternalCommandApplied(int floor) {
+        seen(PressTrace.Button.INTERNAL, floor, internalPressTimes.getAndSet(floor, NOT_PRESSED));
+    }
+
+    @Override
+    public void onExternalCommandApplied(int floor) {
+        seen(PressTrace.Button.EXTERNAL, floor, externalPressTimes.getAndSet(floor, NOT_PRESSED));
+    }
+
+    @Override
+    public void onOpenCommandApplied() {
+        seen(PressTrace.Button.OPEN, OPEN_BUTTON, internalPressTimes.getAndSet(OPEN_BUTTON, NOT_PRESSED));
+    }
+
+    @Override
+    public void onStateChanged(@Nonnull ElevatorState state, int level) {
+        long now = clock.nanoTime();
+        long interrupted = interruptTime.getAndSet(NOT_INTERRUPTED);
+        for (int i = 0; i < seenCount; i++) {
+            long pressTime = seenPressTimes[i];
+            seenLatency.record(toMicros(seenTimes[i] - pressTime));
+            boolean wasInterrupted = interrupted != NOT_INTERRUPTED && interrupted >= pressTime;
+            if (wasInterrupted) {
+                interruptLatency.record(toMicros(interrupted - pressTime));
+            }
+            transitionLatency.record(toMicros(now - pressTime));
+            if (now - pressTime > slowPressThresholdInNanos) {
+                slowPresses.increment();
+                if (slowPressHandler != null) {
+                    slowPressHandler.accept(new PressTrace(seenButtons[i], seenFloors[i], pressTime, seenTimes[i],
+                            wasInterrupted ? interrupted : PressTrace.NOT_INTERRUPTED, now, state));
+                }
+            }
+            seenButtons[i] = null;
+        }
+        seenCount = 0;
+        // the open button works only while the door is closing, a press which wasn't seen by now has been ignored
+        internalPressTimes.set(OPEN_BUTTON, NOT_PRESSED);
+    }
+
+    /**
+     * @return microseconds from a press until the state machine applies the command
+     */
+    @Nonnull
+    public LatencyHistogram getSeenLatency() {
+        return seenLatency;
+    }
+
+    /**
+     * @return microseconds from a press until it interrupts the wait of the state
+     */
+    @Nonnull
+    public LatencyHistogram getInterruptLatency() {
+        return interruptLatency;
+    }
+
+    /**
+     * @return microseconds from a press until the transition which follows it
+     */
+    @Nonnull
+    public LatencyHistogram getTransitionLatency() {
+        return transitionLatency;
+    }
+
+    /**
+     * @return number of presses whose reaction took longer than the threshold
+     */
+    public long getSlowPressCount() {
+        return slowPresses.sum();
+    }
+
+    private void seen(@Nonnull PressTrace.Button button, int floor, long pressTime) {
+        if (pressTime == NOT_PRESSED) {
+            // the tracer was added after the press
+            return;
+        }
+        if (seenCount == seenPressTimes.length) {
+            int capacity = seenCount * 2;
+            seenButtons = Arrays.copyOf(seenButtons, capacity);
+            seenFloors = Arrays.copyOf(seenFloors, capacity);
+            seenPressTimes = Arrays.copyOf(seenPressTimes, capacity);
+            seenTimes = Arrays.copyOf(seenTimes, capacity);
+        }
+        seenButtons[seenCount] = button;
+        seenFloors[seenCount] = floor;
+        seenPressTimes[seenCount] = pressTime;
+        seenTimes[seenCount] = clock.nanoTime();
+        seenCount++;
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
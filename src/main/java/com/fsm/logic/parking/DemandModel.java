@@ -0,0 +1,158 @@
+package com.fsm.logic.parking;
+
+import static com.fsm.logic.FloorSet.NONE;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import com.fsm.logic.ElevatorListener;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.Clock;
+
+/**
+ * Frequency of hall calls per floor and time of day, learned from external commands. The day is split into buckets of
+ * equal length, every bucket keeps one float counter per floor. Counters of a bucket fade by half every half-life
+ * days, so the model follows changes of the building schedule. Decay is applied lazily when the bucket is touched
+ * on a new day, so recording a call is a few arithmetic operations.
+ * <p>
+ * The model should be added as a listener to every elevator it learns from.
+ */
+public class DemandModel implements ElevatorListener {
+
+    private static final long DAY_IN_MS = TimeUnit.DAYS.toMillis(1);
+
+    private final Clock clock;
+    private final int numberOfLevels;
+    private final long bucketInMs;
+    private final int bucketsPerDay;
+    private final double halfLifeInDays;
+    // counters of bucket b are at b * (numberOfLevels + 1), indexed by floor
+    private final float[] counters;
+    private final long[] bucketDays;
+
+    /**
+     * @param clock
+     *            - clock of the elevators
+     * @param numberOfLevels
+     *            - number of levels of the building
+     * @param bucketInMs
+     *            - length of time bucket, should divide the day evenly
+     * @param halfLifeInDays
+     *            - days after which old calls weigh half as much
+     */
+    public DemandModel(@Nonnull Clock clock, int numberOfLevels, long bucketInMs, double halfLifeInDays) {
+        if (bucketInMs <= 0 || DAY_IN_MS % bucketInMs != 0) {
+            throw new IllegalArgumentException("Bucket should divide the day evenly, but was " + bucketInMs);
+        }
+        if (halfLifeInDays <= 0) {
+            throw new IllegalArgumentException("Half-life should be positive, but was " + halfLifeInDays);
+        }
+        this.clock = clock;
+        this.numberOfLevels = numberOfLevels;
+        this.bucketInMs = bucketInMs;
+        this.bucketsPerDay = (int) (DAY_IN_MS / bucketInMs);
+        this.halfLifeInDays = halfLifeInDays;
+        this.counters = new float[bucketsPerDay * (numberOfLevels + 1)];
+        this.bucketDays = new long[bucketsPerDay];
+    }
+
+    @Override
+    public void onStateChanged(@Nonnull ElevatorState state, int level) {
+    }
+
+    @Override
+    public void onExternalCommand(int floor) {
+        record(floor, clock.currentTimeMillis());
+    }
+
+    /**
+     * Count hall call
+     *
+     * @param floor
+     *            - floor of the call
+     * @param timeInMs
+     *            - time of the call
+     */
+    public synchronized void record(int floor, long timeInMs) {
+        int bucket = bucketOf(timeInMs);
+        decay(bucket, timeInMs / DAY_IN_MS);
+        counters[bucket * (numberOfLevels + 1) + floor]++;
+    }
+
+    /**
+     * Expected number of calls from the floor during the bucket of the time, as learned so far
+     *
+     * @param floor
+     *            - floor number
+     * @param timeInMs
+     *            - time of day
+     * @return decayed number of calls
+     */
+    public synchronized double getDemand(int floor, long timeInMs) {
+        int bucket = bucketOf(timeInMs);
+        decay(bucket, timeInMs / DAY_IN_MS);
+        return counters[bucket * (numberOfLevels + 1) + floor];
+    }
+
+    /**
+     * Find floor with the lowest expected travel to the next call. Travel time grows with the number of levels, so
+     * it is the weighted median of the demand. The demand of the current bucket is blended with the next one as the
+     * time approaches it.
+     *
+     * @param timeInMs
+     *            - current time
+     * @return floor to wait at, or {@link com.fsm.logic.FloorSet#NONE} if less than one call is expected
+     */
+    public synchronized int getParkingFloor(long timeInMs) {
+        int bucket = bucketOf(timeInMs);
+        int nextBucket = (bucket + 1) % bucketsPerDay;
+        long day = timeInMs / DAY_IN_MS;
+        decay(bucket, day);
+        decay(nextBucket, nextBucket == 0 ? day + 1 : day);
+        double progress = (double) (timeInMs % bucketInMs) / bucketInMs;
+        double total = 0;
+        for (int floor = 1; floor <= numberOfLevels; floor++) {
+            total += weight(bucket, nextBucket, progress, floor);
+        }
+        if (total < 1) {
+            return NONE;
+        }
+        double accumulated = 0;
+        for (int floor = 1; floor <= numberOfLevels; floor++) {
+            accumulated += weight(bucket, nextBucket, progress, floor);
+            if (accumulated >= total / 2) {
+                return floor;
+            }
+        }
+        return numberOfLevels;
+    }
+
+    /**
+     * @param timeInMs
+     *            - current time
+     * @return start of the bucket following the one of the time
+     */
+    public long getNextBucketTime(long timeInMs) {
+        return timeInMs - timeInMs % bucketInMs + bucketInMs;
+    }
+
+    private double weight(int bucket, int nextBucket, double progress, int floor) {
+        return (1 - progress) * counters[bucket * (numberOfLevels + 1) + floor]
+                + progress * counters[nextBucket * (numberOfLevels + 1) + floor];
+    }
+
+    private int bucketOf(long timeInMs) {
+        return (int) (timeInMs % DAY_IN_MS / bucketInMs);
+    }
+
+    private void decay(int bucket, long day) {
+        long days = day - bucketDays[bucket];
+        if (days <= 0) {
+            return;
+        }
+        float factor = (float) Math.pow(0.5, days / halfLifeInDays);
+        int start = bucket * (numberOfLevels + 1);
+        for (int i = start; i <= start + numberOfLevels; i++) {
+            counters[i] *= factor;
+        }
+        bucketDays[bucket] = day;
+    }
+}
@@ -0,0 +1,74 @@
+package com.fsm.logic.parking;
+
+import static com.fsm.logic.FloorSet.NONE;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.FloorSet;
+import com.fsm.logic.SchedulingStrategy;
+import com.fsm.logic.clock.Clock;
+
+/**
+ * Strategy which moves an elevator without pressed buttons to the floor where the next call is expected, according
+ * to the demand model. The elevator parks with the closed door, and the parking floor is chosen again at the start of
+ * every time bucket of the model, since the expected calls change with it. While any button is pressed, all
+ * decisions are made by the wrapped strategy.
+ */
+public class ParkingStrategy implements SchedulingStrategy {
+
+    private final SchedulingStrategy strategy;
+    private final DemandModel demand;
+    private final Clock clock;
+
+    /**
+     * @param strategy
+     *            - strategy serving pressed buttons
+     * @param demand
+     *            - learned demand
+     * @param clock
+     *            - clock of the elevator
+     */
+    public ParkingStrategy(@Nonnull SchedulingStrategy strategy, @Nonnull DemandModel demand, @Nonnull Clock clock) {
+        this.strategy = strategy;
+        this.demand = demand;
+        this.clock = clock;
+    }
+
+    @Nullable
+    @Override
+    public Direction chooseDirection(int level, @Nonnull FloorSet internalButtons, @Nonnull FloorSet externalButtons) {
+        if (!internalButtons.isEmpty() || !externalButtons.isEmpty()) {
+            return strategy.chooseDirection(level, internalButtons, externalButtons);
+        }
+        int parkingFloor = demand.getParkingFloor(clock.currentTimeMillis());
+        if (parkingFloor == NONE || parkingFloor == level) {
+            return null;
+        }
+        return parkingFloor > level ? Direction.UP : Direction.DOWN;
+    }
+
+    @Override
+    public long getIdleTimeoutInMs(int level) {
+        // the wrapped strategy may need to be asked again before the next bucket starts
+        long now = clock.currentTimeMillis();
+        return Math.min(strategy.getIdleTimeoutInMs(level), demand.getNextBucketTime(now) - now);
+    }
+
+    @Nullable
+    @Override
+    public Direction continueDirection(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+            @Nonnull FloorSet externalButtons) {
+        if (!internalButtons.isEmpty() || !externalButtons.isEmpty()) {
+            return strategy.continueDirection(level, direction, internalButtons, externalButtons);
+        }
+        // keep going to the parking floor, but don't turn back on the way
+        Direction parkingDirection = chooseDirection(level, internalButtons, externalButtons);
+        return parkingDirection == direction ? direction : null;
+    }
+
+    @Override
+    public boolean shouldStop(int level, @Nonnull Direction direction, @Nonnull FloorSet internalButtons,
+            @Nonnull FloorSet externalButtons) {
+        return strategy.shouldStop(level, direction, internalButtons, externalButtons);
+    }
+}
@@ -0,0 +1,287 @@
+package com.fsm.logic.snapshot;
+
+import static com.fsm.logic.FloorSet.NONE;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.FloorSet;
+
+/**
+ * Elevator state which survives a restart: the last transition, pressed buttons and door progress.
+ * <p>
+ * Binary form is little-endian: header of {@link #HEADER_SIZE} bytes with number of levels, level, door closing time,
+ * state ordinal, direction and flags, then bitmasks of internal and external buttons, one bit per floor rounded up to
+ * whole longs, and CRC32 of everything before it.
+ */
+public final class ElevatorSnapshot {
+
+    static final int MAGIC = 0x454C5653;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final byte NO_DIRECTION = -1;
+    private static final byte OPEN_BUTTON_PRESSED = 1;
+    private static final ElevatorState[] STATES = ElevatorState.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int numberOfLevels;
+    private final int level;
+    private final ElevatorState state;
+    @Nullable
+    private final Direction direction;
+    private final int[] internalFloors;
+    private final int[] externalFloors;
+    private final boolean openButtonPressed;
+    private final long closingTimeSpent;
+
+    /**
+     * @param numberOfLevels
+     *            - number of levels of the elevator
+     * @param level
+     *            - current level
+     * @param state
+     *            - state the elevator is in
+     * @param direction
+     *            - direction of the elevator, null when it doesn't have one
+     * @param internalButtons
+     *            - pressed internal buttons, copied
+     * @param externalButtons
+     *            - pressed external buttons, copied
+     * @param openButtonPressed
+     *            - whether service button was pressed while the door was closing
+     * @param closingTimeSpent
+     *            - time in milliseconds the door spent closing last time
+     */
+    public ElevatorSnapshot(int numberOfLevels, int level, @Nonnull ElevatorState state,
+            @Nullable Direction direction, @Nonnull FloorSet internalButtons, @Nonnull FloorSet externalButtons,
+            boolean openButtonPressed, long closingTimeSpent) {
+        this(numberOfLevels, level, state, direction, toArray(internalButtons), toArray(externalButtons),
+                openButtonPressed, closingTimeSpent);
+    }
+
+    private ElevatorSnapshot(int numberOfLevels, int level, @Nonnull ElevatorState state,
+            @Nullable Direction direction, @Nonnull int[] internalFloors, @Nonnull int[] externalFloors,
+            boolean openButtonPressed, long closingTimeSpent) {
+        this.numberOfLevels = numberOfLevels;
+        this.level = level;
+        this.state = state;
+        this.direction = direction;
+        this.internalFloors = internalFloors;
+        this.externalFloors = externalFloors;
+        this.openButtonPressed = openButtonPressed;
+        this.closingTimeSpent = closingTimeSpent;
+    }
+
+    public int getNumberOfLevels() {
+        return numberOfLevels;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    @Nonnull
+    public ElevatorState getState() {
+        return state;
+    }
+
+    @Nullable
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return pressed internal floors in ascending order
+     */
+    @Nonnull
+    public int[] getInternalFloors() {
+        return internalFloors.clone();
+    }
+
+    /**
+     * @return pressed external floors in ascending order
+     */
+    @Nonnull
+    public int[] getExternalFloors() {
+        return externalFloors.clone();
+    }
+
+    public boolean isOpenButtonPressed() {
+        return openButtonPressed;
+    }
+
+    public long getClosingTimeSpent() {
+        return closingTimeSpent;
+    }
+
+    /**
+     * @return number of bytes written by {@link #writeTo(ByteBuffer)}
+     */
+    public int getSerializedSize() {
+        return serializedSize(numberOfLevels);
+    }
+
+    /**
+     * Write binary form of the snapshot at the buffer position, the position is moved after it
+     *
+     * @param buffer
+     *            - buffer with at least {@link #getSerializedSize()} bytes remaining, its order is set to little-endian
+     */
+    public void writeTo(@Nonnull ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(numberOfLevels);
+        buffer.putInt(level);
+        buffer.putLong(closingTimeSpent);
+        buffer.put((byte) state.ordinal());
+        buffer.put(direction == null ? NO_DIRECTION : (byte) direction.ordinal());
+        buffer.put(openButtonPressed ? OPEN_BUTTON_PRESSED : 0);
+        buffer.put((byte) 0);
+        buffer.putInt(0);
+        putFloors(buffer, internalFloors);
+        putFloors(buffer, externalFloors);
+        buffer.putInt(checksum(buffer, start, buffer.position()));
+    }
+
+    /**
+     * Read snapshot written by {@link #writeTo(ByteBuffer)} at the buffer position, the position is moved after it
+     *
+     * @param buffer
+     *            - buffer with the snapshot, its order is set to little-endian
+     * @return read snapshot
+     * @throws IOException
+     *             - throw when the buffer doesn't contain a whole snapshot of supported version, or the snapshot has
+     *             levels out of the building
+     */
+    @Nonnull
+    public static ElevatorSnapshot readFrom(@Nonnull ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(start) != MAGIC
+                || buffer.getInt(start + 4) != VERSION) {
+            throw new IOException("Buffer doesn't contain a snapshot of supported version");
+        }
+        int numberOfLevels = buffer.getInt(start + 8);
+        if (numberOfLevels < 0 || buffer.remaining() < serializedSize(numberOfLevels)) {
+            throw new IOException("Snapshot is truncated");
+        }
+        int end = start + serializedSize(numberOfLevels) - Integer.BYTES;
+        if (buffer.getInt(end) != checksum(buffer, start, end)) {
+            throw new IOException("Snapshot is corrupted");
+        }
+        buffer.position(start + 12);
+        int level = buffer.getInt();
+        long closingTimeSpent = buffer.getLong();
+        int state = buffer.get();
+        int direction = buffer.get();
+        boolean openButtonPressed = buffer.get() == OPEN_BUTTON_PRESSED;
+        buffer.position(start + HEADER_SIZE);
+        if (state < 0 || state >= STATES.length || direction < NO_DIRECTION || direction >= DIRECTIONS.length) {
+            throw new IOException("Snapshot contains unknown state or direction");
+        }
+        int[] internalFloors = getFloors(buffer, numberOfLevels);
+        int[] externalFloors = getFloors(buffer, numberOfLevels);
+        // level 0 is the position before the initial state
+        if (level < 0 || level > numberOfLevels || !inBuilding(internalFloors, numberOfLevels)
+                || !inBuilding(externalFloors, numberOfLevels)) {
+            throw new IOException(String.format("Snapshot contains levels out of %d levels", numberOfLevels));
+        }
+        buffer.position(end + Integer.BYTES);
+        return new ElevatorSnapshot(numberOfLevels, level, STATES[state],
+                direction == NO_DIRECTION ? null : DIRECTIONS[direction], internalFloors, externalFloors,
+                openButtonPressed, closingTimeSpent);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ElevatorSnapshot)) {
+            return false;
+        }
+        ElevatorSnapshot other = (ElevatorSnapshot) o;
+        return numberOfLevels == other.numberOfLevels && level == other.level && state == other.state
+                && direction == other.direction && openButtonPressed == other.openButtonPressed
+                && closingTimeSpent == other.closingTimeSpent && Arrays.equals(internalFloors, other.internalFloors)
+                && Arrays.equals(externalFloors, other.externalFloors);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * level + state.hashCode()) + Arrays.hashCode(internalFloors)
+                + Arrays.hashCode(externalFloors);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Level: %d State: %s Direction: %s Internal: %s External: %s", level, state, direction,
+                Arrays.toString(internalFloors), Arrays.toString(externalFloors));
+    }
+
+    private static int serializedSize(int numberOfLevels) {
+        return HEADER_SIZE + 2 * wordsOf(numberOfLevels) * Long.BYTES + Integer.BYTES;
+    }
+
+    private static int wordsOf(int numberOfLevels) {
+        return (numberOfLevels >>> 6) + 1;
+    }
+
+    private static int[] toArray(@Nonnull FloorSet floors) {
+        int[] result = new int[floors.size()];
+        int count = 0;
+        for (int floor = floors.first(); floor != NONE && count < result.length; floor = floors.higher(floor)) {
+            result[count++] = floor;
+        }
+        // the set may change while it is copied
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private void putFloors(@Nonnull ByteBuffer buffer, @Nonnull int[] floors) {
+        int next = 0;
+        for (int word = 0; word < wordsOf(numberOfLevels); word++) {
+            long bits = 0;
+            for (; next < floors.length && floors[next] >>> 6 == word; next++) {
+                bits |= 1L << floors[next];
+            }
+            buffer.putLong(bits);
+        }
+    }
+
+    private static int[] getFloors(@Nonnull ByteBuffer buffer, int numberOfLevels) {
+        int words = wordsOf(numberOfLevels);
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            count += Long.bitCount(buffer.getLong(buffer.position() + word * Long.BYTES));
+        }
+        int[] floors = new int[count];
+        count = 0;
+        for (int word = 0; word < words; word++) {
+            for (long bits = buffer.getLong(); bits != 0; bits &= bits - 1) {
+                floors[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return floors;
+    }
+
+    private static boolean inBuilding(@Nonnull int[] floors, int numberOfLevels) {
+        // floors are ascending
+        return floors.length == 0 || floors[0] >= 1 && floors[floors.length - 1] <= numberOfLevels;
+    }
+
+    private static int checksum(@Nonnull ByteBuffer buffer, int start, int end) {
+        CRC32 crc = new CRC32();
+        for (int i = start; i < end; i++) {
+            crc.update(buffer.get(i));
+        }
+        return (int) crc.getValue();
+    }
+}
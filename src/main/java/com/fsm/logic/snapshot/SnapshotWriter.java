@@ -0,0 +1,160 @@
+package com.fsm.logic.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.fsm.logic.Elevator;
+
+/**
+ * Writes snapshots of the elevator to a file periodically on its own thread, so the elevator thread isn't delayed by
+ * the storage. A snapshot is written to a temporary file which then replaces the previous one, so a crash in the
+ * middle of writing leaves the previous snapshot intact. Snapshot equal to the previous one isn't written again.
+ */
+public class SnapshotWriter implements Closeable {
+
+    private final Path file;
+    private final Path temporaryFile;
+    private final Elevator elevator;
+    private final ScheduledExecutorService executor;
+    // accessed under the writer lock
+    private final ByteBuffer buffer;
+    private ElevatorSnapshot lastWritten;
+    private long writtenCount;
+    private boolean closed;
+
+    private SnapshotWriter(@Nonnull Path file, @Nonnull Elevator elevator) {
+        this.file = file;
+        this.temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        this.elevator = elevator;
+        this.buffer = ByteBuffer.allocate(elevator.snapshot().getSerializedSize());
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start writing snapshots
+     *
+     * @param file
+     *            - snapshot file, existing file is replaced by the first snapshot
+     * @param elevator
+     *            - elevator to take snapshots of
+     * @param periodInMs
+     *            - time between snapshots
+     * @param errorConsumer
+     *            - receives errors of periodic writing, called on the writer thread
+     * @return writer, which should be closed to stop writing
+     */
+    @Nonnull
+    public static SnapshotWriter start(@Nonnull Path file, @Nonnull Elevator elevator, long periodInMs,
+            @Nonnull Consumer<String> errorConsumer) {
+        if (periodInMs <= 0) {
+            throw new IllegalArgumentException("Period should be positive, but was " + periodInMs);
+        }
+        // scheduled after construction, so the writer thread never sees a partly built writer
+        SnapshotWriter writer = new SnapshotWriter(file, elevator);
+        writer.executor.scheduleWithFixedDelay(() -> {
+            try {
+                writer.write();
+            } catch (IOException e) {
+                // the next period tries again
+                errorConsumer.accept("Can't write snapshot: " + e.getMessage());
+            }
+        }, periodInMs, periodInMs, TimeUnit.MILLISECONDS);
+        return writer;
+    }
+
+    /**
+     * Take snapshot and write it unless it is equal to the last written one
+     *
+     * @return true if the snapshot was written
+     * @throws IOException
+     *             - throw when the snapshot can't be written
+     */
+    public synchronized boolean write() throws IOException {
+        ElevatorSnapshot snapshot = elevator.snapshot();
+        if (closed || snapshot.equals(lastWritten)) {
+            return false;
+        }
+        buffer.clear();
+        snapshot.writeTo(buffer);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        lastWritten = snapshot;
+        writtenCount++;
+        return true;
+    }
+
+    /**
+     * @return number of written snapshots
+     */
+    public synchronized long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * Stop periodic writing and write the last snapshot
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            write();
+        } finally {
+            synchronized (this) {
+                closed = true;
+            }
+        }
+    }
+
+    /**
+     * Read snapshot written by the writer
+     *
+     * @param file
+     *            - snapshot file
+     * @return read snapshot, or null if the file doesn't exist
+     * @throws IOException
+     *             - throw when the file can't be read or doesn't contain a snapshot
+     */
+    @Nullable
+    public static ElevatorSnapshot read(@Nonnull Path file) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return ElevatorSnapshot.readFrom(ByteBuffer.wrap(bytes));
+    }
+}
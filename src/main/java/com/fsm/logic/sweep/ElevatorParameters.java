@@ -0,0 +1,76 @@
+package com.fsm.logic.sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.clock.Clock;
+
+/**
+ * Constructor parameters of an elevator which are varied by {@link ParameterSweep}
+ */
+public final class ElevatorParameters {
+
+    private final float levelHeightInMeter;
+    private final float speedInMeterPerSecond;
+    private final long doorMoveTimeInMs;
+    private final long openDoorDelayTimeInMs;
+
+    public ElevatorParameters(float levelHeightInMeter, float speedInMeterPerSecond, long doorMoveTimeInMs,
+            long openDoorDelayTimeInMs) {
+        this.levelHeightInMeter = levelHeightInMeter;
+        this.speedInMeterPerSecond = speedInMeterPerSecond;
+        this.doorMoveTimeInMs = doorMoveTimeInMs;
+        this.openDoorDelayTimeInMs = openDoorDelayTimeInMs;
+    }
+
+    /**
+     * All combinations of the given values
+     *
+     * @return parameters in the order of nested loops, the last argument changes first
+     */
+    @Nonnull
+    public static List<ElevatorParameters> grid(@Nonnull float[] levelHeightsInMeter,
+            @Nonnull float[] speedsInMeterPerSecond, @Nonnull long[] doorMoveTimesInMs,
+            @Nonnull long[] openDoorDelayTimesInMs) {
+        List<ElevatorParameters> grid = new ArrayList<>();
+        for (float height : levelHeightsInMeter) {
+            for (float speed : speedsInMeterPerSecond) {
+                for (long doorMoveTime : doorMoveTimesInMs) {
+                    for (long openDoorDelayTime : openDoorDelayTimesInMs) {
+                        grid.add(new ElevatorParameters(height, speed, doorMoveTime, openDoorDelayTime));
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    @Nonnull
+    public Elevator createElevator(int numberOfLevels, @Nonnull Clock clock) {
+        return new Elevator(numberOfLevels, levelHeightInMeter, speedInMeterPerSecond, doorMoveTimeInMs,
+                openDoorDelayTimeInMs, clock);
+    }
+
+    public float getLevelHeightInMeter() {
+        return levelHeightInMeter;
+    }
+
+    public float getSpeedInMeterPerSecond() {
+        return speedInMeterPerSecond;
+    }
+
+    public long getDoorMoveTimeInMs() {
+        return doorMoveTimeInMs;
+    }
+
+    public long getOpenDoorDelayTimeInMs() {
+        return openDoorDelayTimeInMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("height %.1f m, speed %.1f m/s, door move %d ms, open door %d ms", levelHeightInMeter,
+                speedInMeterPerSecond, doorMoveTimeInMs, openDoorDelayTimeInMs);
+    }
+}
@@ -0,0 +1,149 @@
+package com.fsm.logic.sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorGroup;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.traffic.TrafficGenerator;
+import com.fsm.logic.traffic.TrafficProfile;
+import com.fsm.logic.traffic.TrafficReport;
+
+/**
+ * Runs many independent simulations of a building with different elevator parameters in parallel. Every
+ * configuration is simulated with the same seeds, so configurations are compared on the same passengers.
+ * <p>
+ * Runs are split between workers of a {@link ForkJoinPool} by a parallel stream. Every run is stepped on the worker
+ * which took it by {@link SimulatedClock#runOnCurrentThread(Elevator...)}, so a run occupies exactly one core and
+ * runs scale with the number of workers. Each worker collects results into its own accumulator, without any shared
+ * state, and accumulators are merged when the stream completes. Runs of one configuration are adjacent, so a worker
+ * usually keeps statistics of only a few configurations.
+ */
+public class ParameterSweep {
+
+    private final int numberOfLevels;
+    private final int numberOfCars;
+    private final TrafficProfile profile;
+    private final double passengersPerHour;
+    private final long durationInMs;
+
+    /**
+     * @param numberOfLevels
+     *            - number of levels of the building
+     * @param numberOfCars
+     *            - number of elevators in the group
+     * @param profile
+     *            - traffic of every run
+     * @param passengersPerHour
+     *            - arrival rate of every run
+     * @param durationInMs
+     *            - simulated time of arrivals in every run
+     */
+    public ParameterSweep(int numberOfLevels, int numberOfCars, @Nonnull TrafficProfile profile,
+            double passengersPerHour, long durationInMs) {
+        this.numberOfLevels = numberOfLevels;
+        this.numberOfCars = numberOfCars;
+        this.profile = profile;
+        this.passengersPerHour = passengersPerHour;
+        this.durationInMs = durationInMs;
+    }
+
+    public static void main(String[] args) {
+        ParameterSweep sweep = new ParameterSweep(20, 4, TrafficProfile.UP_PEAK, 600, TimeUnit.HOURS.toMillis(1));
+        List<ElevatorParameters> configurations = ElevatorParameters.grid(new float[] {3, 4},
+                new float[] {1, 1.5f, 2.5f, 4}, new long[] {1000, 2000, 3000}, new long[] {2000, 3000, 5000});
+        int runs = args.length > 0 ? Integer.valueOf(args[0]) : 20;
+        long start = System.nanoTime();
+        List<SweepResult> results = sweep.run(configurations, runs, 1, ForkJoinPool.getCommonPoolParallelism());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        results.forEach(System.out::println);
+        System.out.printf("%d runs in %d ms%n", configurations.size() * runs, elapsed);
+    }
+
+    /**
+     * Simulate every configuration required number of times
+     *
+     * @param configurations
+     *            - elevator parameters
+     * @param runsPerConfiguration
+     *            - number of runs of each configuration, run i uses seed + i
+     * @param seed
+     *            - seed of the first run
+     * @param parallelism
+     *            - number of worker threads
+     * @return statistics in the order of configurations
+     */
+    @Nonnull
+    public List<SweepResult> run(@Nonnull List<ElevatorParameters> configurations, int runsPerConfiguration,
+            long seed, int parallelism) {
+        ElevatorParameters[] parameters = configurations.toArray(new ElevatorParameters[0]);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        SweepResult[] results;
+        try {
+            // a parallel stream started in a pool task runs on the workers of that pool
+            results = pool.submit(() -> IntStream.range(0, parameters.length * runsPerConfiguration).parallel()
+                    .collect(() -> new SweepResult[parameters.length], (accumulator, task) -> {
+                        int configuration = task / runsPerConfiguration;
+                        TrafficReport report =
+                                simulate(parameters[configuration], seed + task % runsPerConfiguration);
+                        if (accumulator[configuration] == null) {
+                            accumulator[configuration] = new SweepResult(parameters[configuration]);
+                        }
+                        accumulator[configuration].add(report);
+                    }, ParameterSweep::merge)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sweep has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Sweep has failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        List<SweepResult> list = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            list.add(results[i] == null ? new SweepResult(parameters[i]) : results[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Run one simulation on the current thread
+     *
+     * @param parameters
+     *            - elevator parameters
+     * @param seed
+     *            - seed of passengers
+     * @return traffic results
+     */
+    @Nonnull
+    public TrafficReport simulate(@Nonnull ElevatorParameters parameters, long seed) {
+        SimulatedClock clock = new SimulatedClock();
+        Elevator[] elevators = new Elevator[numberOfCars];
+        for (int i = 0; i < numberOfCars; i++) {
+            elevators[i] = parameters.createElevator(numberOfLevels, clock);
+        }
+        TrafficGenerator generator =
+                new TrafficGenerator(new ElevatorGroup(elevators), profile, passengersPerHour, seed);
+        generator.schedule(clock, durationInMs);
+        clock.runOnCurrentThread(elevators);
+        return generator.getReport();
+    }
+
+    private static void merge(SweepResult[] target, SweepResult[] source) {
+        for (int i = 0; i < target.length; i++) {
+            if (source[i] == null) {
+                continue;
+            }
+            if (target[i] == null) {
+                target[i] = source[i];
+            } else {
+                target[i].add(source[i]);
+            }
+        }
+    }
+}
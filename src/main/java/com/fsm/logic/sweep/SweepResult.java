@@ -0,0 +1,84 @@
+package com.fsm.logic.sweep;
+
+import javax.annotation.Nonnull;
+import com.fsm.logic.metrics.LatencyHistogram;
+import com.fsm.logic.traffic.TrafficReport;
+
+/**
+ * Statistics of all runs of one configuration
+ */
+public class SweepResult {
+
+    private final ElevatorParameters parameters;
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram rideTime = new LatencyHistogram();
+    private int runs;
+    private long delivered;
+    private long passengersPerHourSum;
+
+    SweepResult(@Nonnull ElevatorParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    void add(@Nonnull TrafficReport report) {
+        runs++;
+        delivered += report.getDelivered();
+        passengersPerHourSum += report.getPassengersPerHour();
+        waitTime.add(report.getWaitTime());
+        rideTime.add(report.getRideTime());
+    }
+
+    void add(@Nonnull SweepResult other) {
+        runs += other.runs;
+        delivered += other.delivered;
+        passengersPerHourSum += other.passengersPerHourSum;
+        waitTime.add(other.waitTime);
+        rideTime.add(other.rideTime);
+    }
+
+    @Nonnull
+    public ElevatorParameters getParameters() {
+        return parameters;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return passengers delivered in all runs
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * @return passengers per hour averaged over runs
+     */
+    public long getPassengersPerHour() {
+        return runs == 0 ? 0 : passengersPerHourSum / runs;
+    }
+
+    /**
+     * @return wait times of passengers of all runs
+     */
+    @Nonnull
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * @return ride times of passengers of all runs
+     */
+    @Nonnull
+    public LatencyHistogram getRideTime() {
+        return rideTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d runs, %d passengers per hour, wait p50 %d p99 %d ms, ride p50 %d p99 %d ms",
+                parameters, runs, getPassengersPerHour(), waitTime.getP50(), waitTime.getP99(), rideTime.getP50(),
+                rideTime.getP99());
+    }
+}
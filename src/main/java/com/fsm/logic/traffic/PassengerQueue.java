@@ -0,0 +1,56 @@
+package com.fsm.logic.traffic;
+
+/**
+ * Growable ring of passengers waiting at a level or riding to it. Every passenger is a pair of primitive values, so
+ * adding and removing passengers doesn't allocate once the ring has grown to the peak size.
+ */
+class PassengerQueue {
+
+    private long[] times = new long[4];
+    private int[] levels = new int[4];
+    private int head;
+    private int size;
+
+    synchronized void add(long time, int level) {
+        if (size == times.length) {
+            long[] newTimes = new long[size * 2];
+            int[] newLevels = new int[size * 2];
+            for (int i = 0; i < size; i++) {
+                newTimes[i] = times[(head + i) % size];
+                newLevels[i] = levels[(head + i) % size];
+            }
+            times = newTimes;
+            levels = newLevels;
+            head = 0;
+        }
+        int tail = (head + size) % times.length;
+        times[tail] = time;
+        levels[tail] = level;
+        size++;
+    }
+
+    /**
+     * Remove all passengers
+     *
+     * @param consumer
+     *            - receives time and level of every removed passenger
+     * @return number of removed passengers
+     */
+    synchronized int drain(PassengerConsumer consumer) {
+        int drained = size;
+        for (; size > 0; size--) {
+            consumer.accept(times[head], levels[head]);
+            head = (head + 1) % times.length;
+        }
+        head = 0;
+        return drained;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    interface PassengerConsumer {
+        void accept(long time, int level);
+    }
+}
@@ -0,0 +1,191 @@
+package com.fsm.logic.traffic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nonnull;
+
+/**
+ * Sequential reader of a recorded traffic trace in CSV. Every line is a passenger: arrival time in epoch milliseconds,
+ * origin level and destination level, further fields are ignored. The first line is skipped if it is a header, empty
+ * lines and lines starting with {@code #} are skipped too. Records should be sorted by time.
+ * <p>
+ * The file is mapped chunk by chunk and fields are parsed straight from the mapped bytes, nothing is allocated per
+ * record, so traces of any size are read in constant memory.
+ */
+public class TraceReader implements Closeable {
+
+    static final int CHUNK_SIZE = 8 << 20;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int chunkSize;
+
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    // file position of the next line
+    private long position;
+    private long lineNumber;
+    // parsing position and end of the current line in the chunk
+    private int cursor;
+    private int lineEnd;
+
+    // current record
+    private long timeInMs;
+    private int origin;
+    private int destination;
+
+    /**
+     * @param file
+     *            - trace file
+     * @throws IOException
+     *             - throw when the file can't be read
+     */
+    public TraceReader(@Nonnull Path file) throws IOException {
+        this(file, CHUNK_SIZE);
+    }
+
+    TraceReader(@Nonnull Path file, int chunkSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Move to the next record
+     *
+     * @return false if there are no more records
+     * @throws IOException
+     *             - throw when the file can't be read or the record is malformed
+     */
+    public boolean next() throws IOException {
+        while (position < fileSize) {
+            int lineStart = findLine();
+            lineNumber++;
+            cursor = lineStart;
+            skipSpaces();
+            if (cursor == lineEnd || chunk.get(cursor) == '#') {
+                continue;
+            }
+            if (lineNumber == 1 && !isDigit(chunk.get(cursor))) {
+                // header
+                continue;
+            }
+            timeInMs = parseField(Long.MAX_VALUE);
+            origin = (int) parseField(Integer.MAX_VALUE);
+            destination = (int) parseField(Integer.MAX_VALUE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return arrival time of the passenger in milliseconds
+     */
+    public long getTimeInMs() {
+        return timeInMs;
+    }
+
+    /**
+     * @return level where the passenger has pressed the external button
+     */
+    public int getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @return level where the passenger goes
+     */
+    public int getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return number of the line of the current record, starting from 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Find the line starting at the current position, remapping the chunk if the line doesn't fit into it
+     *
+     * @return index of the line start in the chunk, the line end is stored to {@link #lineEnd}
+     */
+    private int findLine() throws IOException {
+        if (chunk == null || position >= chunkStart + chunk.limit()) {
+            map(position);
+        }
+        while (true) {
+            int start = (int) (position - chunkStart);
+            int limit = chunk.limit();
+            int end = start;
+            while (end < limit && chunk.get(end) != '\n') {
+                end++;
+            }
+            if (end < limit || chunkStart + limit == fileSize) {
+                position = chunkStart + Math.min(end + 1, limit);
+                lineEnd = end > start && chunk.get(end - 1) == '\r' ? end - 1 : end;
+                return start;
+            }
+            if (start == 0) {
+                throw new IOException(String.format("Line %d of the trace is longer than %d bytes", lineNumber + 1,
+                        chunkSize));
+            }
+            // the line continues in the next chunk
+            map(position);
+        }
+    }
+
+    private void map(long start) throws IOException {
+        long size = Math.min(chunkSize, fileSize - start);
+        chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        chunkStart = start;
+    }
+
+    /**
+     * Parse non-negative decimal number and skip the comma after it
+     */
+    private long parseField(long max) throws IOException {
+        skipSpaces();
+        int digitsStart = cursor;
+        long value = 0;
+        while (cursor < lineEnd && isDigit(chunk.get(cursor))) {
+            int digit = chunk.get(cursor) - '0';
+            if (value > (max - digit) / 10) {
+                throw malformed();
+            }
+            value = value * 10 + digit;
+            cursor++;
+        }
+        boolean noDigits = cursor == digitsStart;
+        skipSpaces();
+        if (noDigits || cursor < lineEnd && chunk.get(cursor) != ',') {
+            throw malformed();
+        }
+        cursor++;
+        return value;
+    }
+
+    private void skipSpaces() {
+        while (cursor < lineEnd && (chunk.get(cursor) == ' ' || chunk.get(cursor) == '\t')) {
+            cursor++;
+        }
+    }
+
+    private IOException malformed() {
+        return new IOException("Malformed trace record at line " + lineNumber);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,269 @@
+package com.fsm.logic.traffic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorGroup;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.metrics.LatencyHistogram;
+
+/**
+ * Replays passengers of a recorded trace, read by {@link TraceReader}, on a group of elevators under
+ * {@link SimulatedClock}. Passengers arrive at their recorded time relative to the first record and travel the same
+ * way as passengers of {@link TrafficGenerator}. The trace is streamed: the next passenger is read only when the
+ * previous one has arrived, so memory depends on the number of passengers on the way, not on the trace size.
+ * <p>
+ * Wait and ride times are reported for every hour of the trace which has passengers, by the hour of arrival. An hour
+ * is reported as soon as all its passengers have been delivered and a later hour has started, so reports of finished
+ * hours don't pile up either.
+ * <p>
+ * The replay listens to the cars, so it should be created before the cars are started.
+ */
+public class TraceReplay {
+
+    private static final long HOUR_IN_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final SimulatedClock clock;
+    private final Elevator[] elevators;
+    private final ElevatorGroup group;
+    private final int levels;
+
+    private final PassengerQueue[] waiting;
+    // every riding passenger keeps boarding time and the index of the arrival hour
+    private final PassengerQueue[][] riding;
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram rideTime = new LatencyHistogram();
+    // hours with passengers on the way or the latest hour, the oldest first
+    private final List<Hour> openHours = new ArrayList<>();
+
+    // everything below is accessed by the simulation only, which runs one event at a time
+    private HourHandler hourHandler;
+    private long firstHourStart;
+    private long traceStartTime;
+    private long arrived;
+    private long delivered;
+    private long skipped;
+    private long lastDeliveryTime;
+
+    /**
+     * @param clock
+     *            - clock of the cars
+     * @param elevators
+     *            - cars serving passengers, all with the same number of levels
+     */
+    public TraceReplay(@Nonnull SimulatedClock clock, @Nonnull Elevator... elevators) {
+        this.clock = clock;
+        this.elevators = elevators.clone();
+        this.group = new ElevatorGroup(elevators);
+        this.levels = elevators[0].getNumberOfLevels();
+        this.waiting = new PassengerQueue[levels + 1];
+        this.riding = new PassengerQueue[elevators.length][levels + 1];
+        for (int level = 1; level <= levels; level++) {
+            waiting[level] = new PassengerQueue();
+            for (int car = 0; car < elevators.length; car++) {
+                riding[car][level] = new PassengerQueue();
+            }
+        }
+        for (int car = 0; car < elevators.length; car++) {
+            int index = car;
+            PassengerQueue.PassengerConsumer leave = this::deliver;
+            PassengerQueue.PassengerConsumer board = (arrivalTime, destination) -> board(index, arrivalTime,
+                    destination);
+            elevators[car].addListener((state, level) -> {
+                if (state == ElevatorState.OPENING) {
+                    riding[index][level].drain(leave);
+                    waiting[level].drain(board);
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: TraceReplay <trace file> <number of levels> [number of cars]");
+            return;
+        }
+        int levels = Integer.parseInt(args[1]);
+        int cars = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        SimulatedClock clock = new SimulatedClock();
+        Elevator[] elevators = new Elevator[cars];
+        for (int i = 0; i < cars; i++) {
+            elevators[i] = new Elevator(levels, 3, 1.5f, 2000, 3000, clock);
+        }
+        TraceReplay replay = new TraceReplay(clock, elevators);
+        TrafficReport total = replay.replay(Paths.get(args[0]), (hourStartInMs, report) -> System.out.printf(
+                "%s: %5d passengers, wait avg %6.0f p99 %6d ms, ride avg %6.0f p99 %6d ms%n",
+                Instant.ofEpochMilli(hourStartInMs), report.getArrived(), report.getWaitTime().getMean(),
+                report.getWaitTime().getP99(), report.getRideTime().getMean(), report.getRideTime().getP99()));
+        System.out.println(total);
+        if (replay.getSkipped() > 0) {
+            System.out.println("Skipped records with levels out of the building: " + replay.getSkipped());
+        }
+    }
+
+    /**
+     * Replay trace, can be done only once
+     *
+     * @param file
+     *            - trace file
+     * @param hourHandler
+     *            - receives report of every hour, called on the simulation thread in the order of hours
+     * @return report of the whole trace
+     * @throws IOException
+     *             - throw when the trace can't be read or has a malformed record
+     */
+    @Nonnull
+    public TrafficReport replay(@Nonnull Path file, @Nonnull HourHandler hourHandler) throws IOException {
+        this.hourHandler = hourHandler;
+        try (TraceReader reader = new TraceReader(file)) {
+            if (reader.next()) {
+                traceStartTime = reader.getTimeInMs();
+                firstHourStart = traceStartTime - traceStartTime % HOUR_IN_MS;
+                clock.schedule(0, new PassengerFeeder(reader));
+            }
+            clock.run(elevators);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // passengers left on the way, if any, are reported as not delivered
+        while (!openHours.isEmpty()) {
+            report(openHours.remove(0));
+        }
+        // simulated time starts at the first arrival
+        return new TrafficReport(arrived, delivered, lastDeliveryTime, waitTime, rideTime);
+    }
+
+    /**
+     * @return number of records with levels out of the building or the same origin and destination
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    private void arrive(int origin, int destination) {
+        if (origin < 1 || origin > levels || destination < 1 || destination > levels || origin == destination) {
+            skipped++;
+            return;
+        }
+        long now = clock.currentTimeMillis();
+        int hour = hourOf(now);
+        if (openHours.isEmpty() || openHours.get(openHours.size() - 1).index != hour) {
+            openHours.add(new Hour(hour));
+            // the previous hour is over, it can be reported once its passengers are delivered
+            reportDeliveredHours();
+        }
+        openHours.get(openHours.size() - 1).arrived++;
+        arrived++;
+        waiting[origin].add(now, destination);
+        group.addExternalCommand(origin);
+    }
+
+    private void board(int car, long arrivalTime, int destination) {
+        long now = clock.currentTimeMillis();
+        int hour = hourOf(arrivalTime);
+        waitTime.record(now - arrivalTime);
+        find(hour).waitTime.record(now - arrivalTime);
+        riding[car][destination].add(now, hour);
+        group.addInternalCommand(car, destination);
+    }
+
+    private void deliver(long boardingTime, int hour) {
+        long now = clock.currentTimeMillis();
+        rideTime.record(now - boardingTime);
+        delivered++;
+        lastDeliveryTime = now;
+        Hour passengerHour = find(hour);
+        passengerHour.rideTime.record(now - boardingTime);
+        passengerHour.delivered++;
+        reportDeliveredHours();
+    }
+
+    private void reportDeliveredHours() {
+        while (openHours.size() > 1 && openHours.get(0).delivered == openHours.get(0).arrived) {
+            report(openHours.remove(0));
+        }
+    }
+
+    private void report(Hour hour) {
+        hourHandler.accept(firstHourStart + hour.index * HOUR_IN_MS,
+                new TrafficReport(hour.arrived, hour.delivered, HOUR_IN_MS, hour.waitTime, hour.rideTime));
+    }
+
+    private int hourOf(long time) {
+        return (int) ((traceStartTime + time - firstHourStart) / HOUR_IN_MS);
+    }
+
+    private Hour find(int index) {
+        // passengers on the way are from the last few hours
+        for (int i = openHours.size() - 1; i >= 0; i--) {
+            if (openHours.get(i).index == index) {
+                return openHours.get(i);
+            }
+        }
+        throw new IllegalStateException("Hour " + index + " has been already reported");
+    }
+
+    /**
+     * Receiver of hourly reports
+     */
+    @FunctionalInterface
+    public interface HourHandler {
+        /**
+         * @param hourStartInMs
+         *            - start of the hour in the time of the trace
+         * @param report
+         *            - passengers who arrived during the hour
+         */
+        void accept(long hourStartInMs, @Nonnull TrafficReport report);
+    }
+
+    /**
+     * Passengers who arrived during one hour
+     */
+    private static class Hour {
+        private final int index;
+        private final LatencyHistogram waitTime = new LatencyHistogram();
+        private final LatencyHistogram rideTime = new LatencyHistogram();
+        private long arrived;
+        private long delivered;
+
+        Hour(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * Sends all passengers of the current record time and schedules itself at the time of the next passenger
+     */
+    private class PassengerFeeder implements Runnable {
+        private final TraceReader reader;
+
+        PassengerFeeder(TraceReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public void run() {
+            try {
+                do {
+                    long time = reader.getTimeInMs() - traceStartTime;
+                    if (time > clock.currentTimeMillis()) {
+                        clock.schedule(time, this);
+                        return;
+                    }
+                    arrive(reader.getOrigin(), reader.getDestination());
+                } while (reader.next());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.fsm.logic.traffic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorGroup;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.Clock;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.metrics.LatencyHistogram;
+
+/**
+ * Generates passengers with Poisson arrivals and origins and destinations of a {@link TrafficProfile}. A passenger
+ * presses the external button of the origin level, boards the first car opening there and presses the internal button
+ * of the destination level. Passengers are kept in primitive queues and the next arrival is generated only when the
+ * previous one has happened, so generation costs a few random numbers per passenger at any rate.
+ * <p>
+ * The generator listens to cars of the group, so it should be created before the cars are started.
+ */
+public class TrafficGenerator {
+
+    private final ElevatorGroup group;
+    private final TrafficProfile profile;
+    private final double meanArrivalIntervalInMs;
+    private final Random random;
+    private final Clock clock;
+    private final int levels;
+
+    private final PassengerQueue[] waiting;
+    private final PassengerQueue[][] riding;
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram rideTime = new LatencyHistogram();
+    private final AtomicLong arrived = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong lastDeliveryTime = new AtomicLong();
+    private volatile long firstArrivalTime = -1;
+
+    // time of the next arrival, accessed by the generating thread only
+    private double nextArrivalTime;
+
+    /**
+     * @param group
+     *            - cars serving passengers, all with the same number of levels and clock
+     * @param profile
+     *            - origins and destinations of passengers
+     * @param passengersPerHour
+     *            - mean arrival rate
+     * @param seed
+     *            - seed of random numbers, the same seed gives the same passengers
+     */
+    public TrafficGenerator(@Nonnull ElevatorGroup group, @Nonnull TrafficProfile profile, double passengersPerHour,
+            long seed) {
+        if (passengersPerHour <= 0) {
+            throw new IllegalArgumentException("Arrival rate should be positive, but was " + passengersPerHour);
+        }
+        this.group = group;
+        this.profile = profile;
+        this.meanArrivalIntervalInMs = TimeUnit.HOURS.toMillis(1) / passengersPerHour;
+        this.random = new Random(seed);
+        this.clock = group.getElevator(0).getClock();
+        this.levels = group.getElevator(0).getNumberOfLevels();
+        this.waiting = new PassengerQueue[levels + 1];
+        this.riding = new PassengerQueue[group.size()][levels + 1];
+        for (int level = 1; level <= levels; level++) {
+            waiting[level] = new PassengerQueue();
+            for (int car = 0; car < group.size(); car++) {
+                riding[car][level] = new PassengerQueue();
+            }
+        }
+        for (int car = 0; car < group.size(); car++) {
+            int index = car;
+            Elevator elevator = group.getElevator(car);
+            PassengerQueue.PassengerConsumer leave = (boardingTime, level) -> deliver(boardingTime);
+            PassengerQueue.PassengerConsumer board = (arrivalTime, destination) -> board(index, arrivalTime,
+                    destination);
+            elevator.addListener((state, level) -> {
+                if (state == ElevatorState.OPENING) {
+                    riding[index][level].drain(leave);
+                    waiting[level].drain(board);
+                }
+            });
+        }
+    }
+
+    /**
+     * Schedule arrivals on the simulated clock during required time from now. Each arrival schedules the next one.
+     *
+     * @param clock
+     *            - clock of the cars
+     * @param durationInMs
+     *            - time of arrivals
+     */
+    public void schedule(@Nonnull SimulatedClock clock, long durationInMs) {
+        long endTime = clock.currentTimeMillis() + durationInMs;
+        nextArrivalTime = clock.currentTimeMillis() + nextInterval();
+        Runnable arrival = new Runnable() {
+            @Override
+            public void run() {
+                arrive();
+                nextArrivalTime += nextInterval();
+                if (nextArrivalTime < endTime) {
+                    clock.schedule((long) nextArrivalTime, this);
+                }
+            }
+        };
+        if (nextArrivalTime < endTime) {
+            clock.schedule((long) nextArrivalTime, arrival);
+        }
+    }
+
+    /**
+     * Generate arrivals in real time on the current thread. Passengers who have arrived keep riding after return.
+     *
+     * @param durationInMs
+     *            - time of arrivals
+     * @throws InterruptedException
+     *             - throw when the thread is interrupted
+     */
+    public void run(long durationInMs) throws InterruptedException {
+        long endTime = clock.currentTimeMillis() + durationInMs;
+        nextArrivalTime = clock.currentTimeMillis() + nextInterval();
+        while (nextArrivalTime < endTime) {
+            long sleepTime = (long) nextArrivalTime - clock.currentTimeMillis();
+            if (sleepTime > 0) {
+                TimeUnit.MILLISECONDS.sleep(sleepTime);
+            }
+            arrive();
+            nextArrivalTime += nextInterval();
+        }
+    }
+
+    /**
+     * @return results of passengers who have arrived so far
+     */
+    @Nonnull
+    public TrafficReport getReport() {
+        long first = firstArrivalTime;
+        long duration = first < 0 ? 0 : lastDeliveryTime.get() - first;
+        return new TrafficReport(arrived.get(), delivered.get(), Math.max(duration, 0), waitTime, rideTime);
+    }
+
+    private void arrive() {
+        int origin = profile.origin(random, levels);
+        int destination = profile.destination(random, levels, origin);
+        long now = clock.currentTimeMillis();
+        if (firstArrivalTime < 0) {
+            firstArrivalTime = now;
+        }
+        arrived.incrementAndGet();
+        waiting[origin].add(now, destination);
+        group.addExternalCommand(origin);
+    }
+
+    private void board(int car, long arrivalTime, int destination) {
+        long now = clock.currentTimeMillis();
+        waitTime.record(now - arrivalTime);
+        riding[car][destination].add(now, destination);
+        group.addInternalCommand(car, destination);
+    }
+
+    private void deliver(long boardingTime) {
+        long now = clock.currentTimeMillis();
+        rideTime.record(now - boardingTime);
+        delivered.incrementAndGet();
+        lastDeliveryTime.set(now);
+    }
+
+    private double nextInterval() {
+        // exponential intervals between arrivals give a Poisson process
+        return -Math.log(1 - random.nextDouble()) * meanArrivalIntervalInMs;
+    }
+}
@@ -0,0 +1,110 @@
+package com.fsm.logic.traffic;
+
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+/**
+ * Origin and destination pattern of passengers. The first level is the lobby.
+ */
+public enum TrafficProfile {
+
+    /**
+     * Trips between random levels
+     */
+    UNIFORM {
+        @Override
+        int origin(@Nonnull Random random, int levels) {
+            return randomLevel(random, 1, levels);
+        }
+
+        @Override
+        int destination(@Nonnull Random random, int levels, int origin) {
+            return randomLevelExcept(random, levels, origin);
+        }
+    },
+
+    /**
+     * Morning up-peak: everybody arrives at the lobby and goes up
+     */
+    UP_PEAK {
+        @Override
+        int origin(@Nonnull Random random, int levels) {
+            return LOBBY;
+        }
+
+        @Override
+        int destination(@Nonnull Random random, int levels, int origin) {
+            return randomLevel(random, LOBBY + 1, levels);
+        }
+    },
+
+    /**
+     * Evening down-peak: everybody goes from upper levels to the lobby
+     */
+    DOWN_PEAK {
+        @Override
+        int origin(@Nonnull Random random, int levels) {
+            return randomLevel(random, LOBBY + 1, levels);
+        }
+
+        @Override
+        int destination(@Nonnull Random random, int levels, int origin) {
+            return LOBBY;
+        }
+    },
+
+    /**
+     * Lunchtime: trips to and from the lobby are equally likely, and some passengers move between upper levels
+     */
+    LUNCH {
+        private static final int INTERFLOOR_PERCENT = 20;
+
+        @Override
+        int origin(@Nonnull Random random, int levels) {
+            return random.nextBoolean() ? LOBBY : randomLevel(random, LOBBY + 1, levels);
+        }
+
+        @Override
+        int destination(@Nonnull Random random, int levels, int origin) {
+            if (origin == LOBBY) {
+                return randomLevel(random, LOBBY + 1, levels);
+            }
+            if (levels > 2 && random.nextInt(100) < INTERFLOOR_PERCENT) {
+                int destination = randomLevel(random, LOBBY + 1, levels - 1);
+                return destination >= origin ? destination + 1 : destination;
+            }
+            return LOBBY;
+        }
+    };
+
+    public static final int LOBBY = 1;
+
+    /**
+     * @param random
+     *            - source of randomness
+     * @param levels
+     *            - number of levels, at least two
+     * @return level where the next passenger arrives
+     */
+    abstract int origin(@Nonnull Random random, int levels);
+
+    /**
+     * @param random
+     *            - source of randomness
+     * @param levels
+     *            - number of levels, at least two
+     * @param origin
+     *            - level where the passenger arrives
+     * @return level where the passenger goes, never equal to the origin
+     */
+    abstract int destination(@Nonnull Random random, int levels, int origin);
+
+    private static int randomLevel(Random random, int lowest, int highest) {
+        return lowest + random.nextInt(highest - lowest + 1);
+    }
+
+    private static int randomLevelExcept(Random random, int levels, int excluded) {
+        int level = randomLevel(random, 1, levels - 1);
+        return level >= excluded ? level + 1 : level;
+    }
+}
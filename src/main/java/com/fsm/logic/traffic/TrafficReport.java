@@ -0,0 +1,73 @@
+package com.fsm.logic.traffic;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import com.fsm.logic.metrics.LatencyHistogram;
+
+/**
+ * Results of a traffic run: delivered passengers and distributions of their wait and ride times in milliseconds
+ */
+public class TrafficReport {
+
+    private final long arrived;
+    private final long delivered;
+    private final long durationInMs;
+    private final LatencyHistogram waitTime;
+    private final LatencyHistogram rideTime;
+
+    TrafficReport(long arrived, long delivered, long durationInMs, @Nonnull LatencyHistogram waitTime,
+            @Nonnull LatencyHistogram rideTime) {
+        this.arrived = arrived;
+        this.delivered = delivered;
+        this.durationInMs = durationInMs;
+        this.waitTime = waitTime;
+        this.rideTime = rideTime;
+    }
+
+    /**
+     * @return number of generated passengers
+     */
+    public long getArrived() {
+        return arrived;
+    }
+
+    /**
+     * @return number of passengers who reached their destination
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * @return time from the first arrival until the last delivery
+     */
+    public long getDurationInMs() {
+        return durationInMs;
+    }
+
+    public long getPassengersPerHour() {
+        return durationInMs == 0 ? 0 : delivered * TimeUnit.HOURS.toMillis(1) / durationInMs;
+    }
+
+    /**
+     * @return time from arrival until boarding
+     */
+    @Nonnull
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * @return time from boarding until arrival at the destination
+     */
+    @Nonnull
+    public LatencyHistogram getRideTime() {
+        return rideTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Passengers: %d arrived, %d delivered, %d per hour%nWait, ms: %s%nRide, ms: %s", arrived,
+                delivered, getPassengersPerHour(), waitTime, rideTime);
+    }
+}
@@ -0,0 +1,149 @@
+package com.fsm.gateway;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorListener;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.RealTimeClock;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class CommandGatewayTest {
+
+    private static final int LEVELS = 10;
+    private static final int PANELS = 200;
+    private static final InetSocketAddress LOCAL = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    public void testCallsFromManyPanelsAreServed() throws IOException, InterruptedException {
+        Elevator elevator = new Elevator(LEVELS, 1, 50, 20, 20, RealTimeClock.INSTANCE);
+        List<Socket> panels = new ArrayList<>();
+        try (CommandGateway gateway = new CommandGateway(elevator, LOCAL, errors::add)) {
+            Thread elevatorThread = new Thread(elevator);
+            elevatorThread.start();
+
+            Socket display = connect(gateway);
+            panels.add(display);
+            send(display, Frame.SUBSCRIBE, 0);
+            // the idle elevator doesn't change its state, but the display gets the current one
+            assertEquals(Frame.STATE, Frame.getType(receive(display), 0));
+            // the answer to a wrong command means the subscription has been processed
+            send(display, Frame.EXTERNAL_COMMAND, 0);
+            ByteBuffer error = receive(display);
+            while (Frame.getType(error, 0) == Frame.STATE) {
+                error = receive(display);
+            }
+            assertEquals(Frame.ERROR, Frame.getType(error, 0));
+            assertEquals(Frame.EXTERNAL_COMMAND, Frame.getArgument(error, 0));
+
+            for (int i = 0; i < PANELS; i++) {
+                Socket panel = connect(gateway);
+                panels.add(panel);
+                send(panel, Frame.EXTERNAL_COMMAND, 2 + i % (LEVELS - 1));
+            }
+
+            // every called floor is opened
+            BitSet opened = new BitSet();
+            while (opened.cardinality() < LEVELS - 1) {
+                ByteBuffer frame = receive(display);
+                assertEquals(Frame.STATE, Frame.getType(frame, 0));
+                if (Frame.getArgument(frame, 0) == ElevatorState.OPENING.ordinal()) {
+                    opened.set(Frame.getValue(frame, 0));
+                }
+            }
+            assertEquals(LEVELS - 1, opened.get(2, LEVELS + 1).cardinality());
+
+            elevator.stop();
+            elevatorThread.join();
+        } finally {
+            for (Socket panel : panels) {
+                panel.close();
+            }
+        }
+    }
+
+    @Test
+    public void testFramesSplitBetweenReads() throws IOException, InterruptedException {
+        Elevator elevator = new Elevator(LEVELS, 1, 50, 20, 20, RealTimeClock.INSTANCE);
+        BlockingQueue<Integer> internalCommands = new LinkedBlockingQueue<>();
+        elevator.addListener(new ElevatorListener() {
+            @Override
+            public void onStateChanged(ElevatorState state, int level) {
+            }
+
+            @Override
+            public void onInternalCommand(int floor) {
+                internalCommands.add(floor);
+            }
+        });
+        try (CommandGateway gateway = new CommandGateway(elevator, LOCAL, errors::add);
+                Socket panel = connect(gateway)) {
+            ByteBuffer frames = ByteBuffer.allocate(2 * Frame.SIZE);
+            Frame.put(frames, Frame.INTERNAL_COMMAND, (byte) 0, Frame.NO_DIRECTION, 5);
+            Frame.put(frames, (byte) 99, (byte) 0, Frame.NO_DIRECTION, 7);
+            OutputStream output = panel.getOutputStream();
+            output.write(frames.array(), 0, 3);
+            output.flush();
+            TimeUnit.MILLISECONDS.sleep(50);
+            output.write(frames.array(), 3, frames.capacity() - 3);
+            output.flush();
+
+            assertEquals(Integer.valueOf(5), internalCommands.poll(10, TimeUnit.SECONDS));
+            ByteBuffer error = receive(panel);
+            assertEquals(Frame.ERROR, Frame.getType(error, 0));
+            assertEquals(99, Frame.getArgument(error, 0));
+            assertEquals(7, Frame.getValue(error, 0));
+        }
+    }
+
+    @Test
+    public void testCloseRemovesListener() throws IOException {
+        Elevator elevator = new Elevator(LEVELS, 1, 50, 20, 20, RealTimeClock.INSTANCE);
+        CommandGateway gateway = new CommandGateway(elevator, LOCAL, errors::add);
+        gateway.close();
+
+        assertFalse(elevator.removeListener(gateway.wakeUpListener));
+    }
+
+    private static Socket connect(CommandGateway gateway) throws IOException {
+        Socket socket = new Socket(gateway.getAddress().getAddress(), gateway.getAddress().getPort());
+        socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(10));
+        return socket;
+    }
+
+    private static void send(Socket socket, byte type, int value) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(Frame.SIZE);
+        Frame.put(frame, type, (byte) 0, Frame.NO_DIRECTION, value);
+        socket.getOutputStream().write(frame.array());
+        socket.getOutputStream().flush();
+    }
+
+    private static ByteBuffer receive(Socket socket) throws IOException {
+        byte[] frame = new byte[Frame.SIZE];
+        new DataInputStream(socket.getInputStream()).readFully(frame);
+        return ByteBuffer.wrap(frame);
+    }
+}
@@ -0,0 +1,90 @@
+package com.fsm.gui;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.swing.SwingUtilities;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class DashboardUpdaterTest {
+
+    @Test
+    public void testUpdatesAreCoalescedOnEventDispatchThread()
+            throws InterruptedException, InvocationTargetException {
+        RecordingTarget target = new RecordingTarget();
+        DashboardUpdater updater = new DashboardUpdater(10, target, 20);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            updater.setStatusText("Level: " + (1 + i % 10));
+            updater.deselectLevel(1 + i % 10);
+            updater.deselectOpenButton();
+        }
+        updater.setStatusText("last");
+        long elapsed = System.nanoTime() - start;
+        // let the last batch be applied
+        TimeUnit.MILLISECONDS.sleep(200);
+        SwingUtilities.invokeAndWait(() -> {});
+
+        assertTrue(target.onEventDispatchThread);
+        assertEquals("last", target.statusTexts.get(target.statusTexts.size() - 1));
+        // at 20 frames per second there is a batch per 50 ms at most
+        long maxBatches = TimeUnit.NANOSECONDS.toMillis(elapsed) / 50 + 3;
+        assertThat((long) target.statusTexts.size(), lessThan(maxBatches));
+        assertThat(target.deselectedLevels.get(), lessThan((int) maxBatches * 10 + 1));
+        assertThat(target.openButtonDeselections.get(), lessThan((int) maxBatches));
+    }
+
+    @Test
+    public void testCancelledDeselectionIsNotApplied() throws InterruptedException, InvocationTargetException {
+        RecordingTarget target = new RecordingTarget();
+        DashboardUpdater updater = new DashboardUpdater(10, target, 20);
+
+        SwingUtilities.invokeAndWait(() -> {
+            updater.deselectLevel(3);
+            updater.deselectLevel(4);
+            assertTrue(updater.cancelLevelDeselection(3));
+        });
+        TimeUnit.MILLISECONDS.sleep(200);
+        SwingUtilities.invokeAndWait(() -> {});
+
+        assertEquals(1, target.deselectedLevels.get());
+    }
+
+    private static class RecordingTarget implements DashboardUpdater.Target {
+        final List<String> statusTexts = new ArrayList<>();
+        final AtomicInteger deselectedLevels = new AtomicInteger();
+        final AtomicInteger openButtonDeselections = new AtomicInteger();
+        volatile boolean onEventDispatchThread = true;
+
+        @Override
+        public void setStatusText(@Nonnull String text) {
+            checkThread();
+            statusTexts.add(text);
+        }
+
+        @Override
+        public void deselectLevel(int level) {
+            checkThread();
+            deselectedLevels.incrementAndGet();
+        }
+
+        @Override
+        public void deselectOpenButton() {
+            checkThread();
+            openButtonDeselections.incrementAndGet();
+        }
+
+        private void checkThread() {
+            onEventDispatchThread &= SwingUtilities.isEventDispatchThread();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.fsm.headless;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.clock.SimulatedClock;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HeadlessControllerTest {
+
+    @Test
+    public void testCommandsAreExecutedAndStatesWritten() throws IOException {
+        StringWriter output = new StringWriter();
+        BatchingStatusWriter statusWriter = new BatchingStatusWriter(output);
+        List<String> errors = new ArrayList<>();
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(10, 3, 1, 1000, 1000, level -> {}, statusWriter, () -> {}, clock);
+
+        HeadlessController controller = new HeadlessController(elevator, errors::add);
+        clock.schedule(0, () -> controller.readCommands(new StringReader("# comment\n\ne 3\nI 5\no\nx 1\ni\n")));
+        clock.run(elevator);
+        statusWriter.close();
+
+        assertEquals(2, errors.size());
+        String[] lines = output.toString().split(System.lineSeparator());
+        assertEquals("Level: 0 State: Init", lines[0]);
+        assertTrue(output.toString().contains("Level: 3 State: Opening"));
+        assertTrue(output.toString().contains("Level: 5 State: Opening"));
+        assertEquals("Level: 3 State: Idle", lines[lines.length - 1]);
+    }
+}
@@ -0,0 +1,97 @@
+package com.fsm.logic;
+
+import com.fsm.logic.clock.RealTimeClock;
+import java.util.concurrent.CountDownLatch;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CommandInboxTest {
+
+    @Test
+    public void testCommandsAreTakenInOrder() {
+        CommandInbox inbox = new CommandInbox(4);
+        assertEquals(CommandInbox.EMPTY, inbox.poll());
+        for (int lap = 0; lap < 3; lap++) {
+            for (int floor = 1; floor <= 4; floor++) {
+                assertTrue(inbox.offer(CommandInbox.command(CommandInbox.EXTERNAL, floor)));
+            }
+            assertFalse(inbox.offer(CommandInbox.command(CommandInbox.INTERNAL, 5)));
+            for (int floor = 1; floor <= 4; floor++) {
+                int command = inbox.poll();
+                assertEquals(CommandInbox.EXTERNAL, CommandInbox.typeOf(command));
+                assertEquals(floor, CommandInbox.floorOf(command));
+            }
+            assertEquals(CommandInbox.EMPTY, inbox.poll());
+        }
+        int command = CommandInbox.command(CommandInbox.INTERNAL, CommandInbox.MAX_FLOOR);
+        assertEquals(CommandInbox.INTERNAL, CommandInbox.typeOf(command));
+        assertEquals(CommandInbox.MAX_FLOOR, CommandInbox.floorOf(command));
+    }
+
+    @Test
+    public void testConcurrentProducersLoseNothing() throws InterruptedException {
+        int producers = 4;
+        int commandsPerProducer = 100_000;
+        CommandInbox inbox = new CommandInbox(64);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i++) {
+            int producer = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int sequence = 0; sequence < commandsPerProducer; sequence++) {
+                    int command = CommandInbox.command(CommandInbox.INTERNAL, sequence * producers + producer);
+                    while (!inbox.offer(command)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+
+        // commands of every producer come in the order they were offered
+        int[] nextSequence = new int[producers];
+        for (int taken = 0; taken < producers * commandsPerProducer;) {
+            int command = inbox.poll();
+            if (command == CommandInbox.EMPTY) {
+                Thread.yield();
+                continue;
+            }
+            int floor = CommandInbox.floorOf(command);
+            assertEquals(nextSequence[floor % producers]++, floor / producers);
+            taken++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(CommandInbox.EMPTY, inbox.poll());
+    }
+
+    @Test
+    public void testTypedCommandsReachButtonsOnDrain() {
+        Elevator elevator = new Elevator(10, 3, 1, 3000, 5000, RealTimeClock.INSTANCE);
+        elevator.addInternalCommand(3);
+        elevator.addExternalCommand("7");
+        elevator.addInternalCommand(ServiceButton.OPEN);
+        assertTrue(elevator.internalFloorsButtons.isEmpty());
+
+        elevator.drainCommands();
+        assertEquals("[3]", elevator.internalFloorsButtons.toString());
+        assertEquals("[7]", elevator.externalFloorsButtons.toString());
+        assertFalse(elevator.openButtonPressed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongFloorIsRejected() {
+        new Elevator(10, 3, 1, 3000, 5000, RealTimeClock.INSTANCE).addExternalCommand(11);
+    }
+}
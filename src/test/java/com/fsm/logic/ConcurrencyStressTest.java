@@ -0,0 +1,148 @@
+package com.fsm.logic;
+
+import com.fsm.logic.clock.RealTimeClock;
+import com.fsm.logic.fleet.FleetRunner;
+import com.fsm.logic.fleet.StepScheduler;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Many threads press buttons of one elevator at once, and every press has to be served: the elevator must not fall
+ * asleep in IDLE or close the door while a command is waiting for it.
+ */
+public class ConcurrencyStressTest {
+
+    private static final int LEVELS = 20;
+    private static final int PRODUCERS = 8;
+    private static final int ROUNDS = 20;
+    // all commands of a round fit into the inbox, so every one of them is applied by the elevator thread
+    private static final int COMMANDS_PER_PRODUCER = 25;
+
+    @Test
+    public void testPlatformThread() throws InterruptedException {
+        Elevator elevator = newElevator();
+        Counters counters = count(elevator);
+        Thread thread = new Thread(elevator, "stressed-elevator");
+        thread.start();
+        try {
+            hammer(elevator, counters);
+        } finally {
+            elevator.stop();
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testVirtualThread() throws InterruptedException {
+        Elevator elevator = newElevator();
+        Counters counters = count(elevator);
+        try (FleetRunner fleet = new FleetRunner(elevator)) {
+            fleet.start();
+            hammer(elevator, counters);
+        }
+    }
+
+    @Test
+    public void testStepScheduler() throws InterruptedException {
+        Elevator elevator = newElevator();
+        Counters counters = count(elevator);
+        try (StepScheduler scheduler = new StepScheduler(1, elevator)) {
+            scheduler.start();
+            hammer(elevator, counters);
+        }
+    }
+
+    private static Elevator newElevator() {
+        // 1 ms per level, door moves 1 ms and stays open 1 ms
+        return new Elevator(LEVELS, 1, 1000, 1, 1, RealTimeClock.INSTANCE);
+    }
+
+    private static Counters count(Elevator elevator) {
+        Counters counters = new Counters();
+        elevator.addListener(new ElevatorListener() {
+            @Override
+            public void onStateChanged(ElevatorState state, int level) {
+            }
+
+            @Override
+            public void onInternalCommandApplied(int floor) {
+                counters.applied.incrementAndGet();
+            }
+
+            @Override
+            public void onExternalCommandApplied(int floor) {
+                counters.applied.incrementAndGet();
+            }
+        });
+        return counters;
+    }
+
+    private static void hammer(Elevator elevator, Counters counters) throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] producers = new Thread[PRODUCERS];
+            for (int i = 0; i < PRODUCERS; i++) {
+                producers[i] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int command = 0; command < COMMANDS_PER_PRODUCER; command++) {
+                        int floor = 1 + random.nextInt(LEVELS);
+                        if (random.nextBoolean()) {
+                            elevator.addInternalCommand(floor);
+                        } else {
+                            elevator.addExternalCommand(floor);
+                        }
+                        counters.sent.incrementAndGet();
+                        if (random.nextInt(8) == 0) {
+                            elevator.addInternalCommand(ServiceButton.OPEN);
+                        }
+                        // bursts alternate with pauses, so presses land in every state
+                        if (random.nextInt(4) == 0) {
+                            LockSupport.parkNanos(random.nextInt(3_000_000));
+                        }
+                    }
+                }, "producer-" + i);
+                producers[i].start();
+            }
+            start.countDown();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            awaitServed(elevator, counters, round);
+        }
+    }
+
+    private static void awaitServed(Elevator elevator, Counters counters, int round) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            if (counters.applied.get() == counters.sent.get() && elevator.getState() == ElevatorState.IDLE
+                    && elevator.internalFloorsButtons.isEmpty() && elevator.externalFloorsButtons.isEmpty()) {
+                assertEquals(counters.sent.get(), counters.applied.get());
+                assertTrue(elevator.internalFloorsButtons.isEmpty() && elevator.externalFloorsButtons.isEmpty());
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        fail(String.format("Round %d: %d of %d commands applied, state %s, internal %s, external %s", round,
+                counters.applied.get(), counters.sent.get(), elevator.getState(), elevator.internalFloorsButtons,
+                elevator.externalFloorsButtons));
+    }
+
+    private static class Counters {
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong applied = new AtomicLong();
+    }
+}
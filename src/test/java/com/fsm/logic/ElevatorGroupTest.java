@@ -0,0 +1,156 @@
+package com.fsm.logic;
+
+import com.fsm.logic.clock.RealTimeClock;
+import com.fsm.logic.clock.SimulatedClock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class ElevatorGroupTest {
+
+    private static final int CARS = 4;
+    private static final int LEVELS = 20;
+    private static final int PASSENGERS = 2000;
+
+    @Test
+    public void testCallIsAssignedToNearestIdleElevator() {
+        Elevator[] elevators = new Elevator[3];
+        for (int i = 0; i < elevators.length; i++) {
+            elevators[i] = new Elevator(LEVELS, 3, 1, 3000, 5000, RealTimeClock.INSTANCE);
+        }
+        elevators[0].currentLevel = 1;
+        elevators[1].currentLevel = 10;
+        elevators[2].currentLevel = 18;
+        ElevatorGroup group = new ElevatorGroup(elevators);
+
+        assertEquals(1, group.addExternalCommand("12"));
+        assertEquals(2, group.addExternalCommand("20"));
+        assertEquals(0, group.addExternalCommand("2"));
+        // repeated call is served by the same elevator
+        assertEquals(1, group.addExternalCommand(12));
+        elevators[1].drainCommands();
+        assertEquals(1, elevators[1].externalFloorsButtons.size());
+    }
+
+    @Test
+    public void testUpperFloorIsAssignedToElevatorReachingIt() {
+        Elevator low = new Elevator(10, 3, 1, 3000, 5000, RealTimeClock.INSTANCE);
+        Elevator high = new Elevator(LEVELS, 3, 1, 3000, 5000, RealTimeClock.INSTANCE);
+        low.currentLevel = 10;
+        high.currentLevel = 1;
+        ElevatorGroup group = new ElevatorGroup(low, high);
+
+        // the low elevator is nearer but doesn't reach the floor
+        assertEquals(1, group.addExternalCommand("15"));
+        assertEquals(1, group.addExternalCommand(15));
+        assertEquals(0, group.addExternalCommand("9"));
+        high.drainCommands();
+        assertEquals(1, high.externalFloorsButtons.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFloorAboveAllElevatorsIsRejected() {
+        ElevatorGroup group = new ElevatorGroup(new Elevator(10, 3, 1, 3000, 5000, RealTimeClock.INSTANCE),
+                new Elevator(LEVELS, 3, 1, 3000, 5000, RealTimeClock.INSTANCE));
+        group.addExternalCommand(LEVELS + 1);
+    }
+
+    @Test
+    public void testThroughputComparedToBroadcast() {
+        Result grouped = simulate(true);
+        Result broadcast = simulate(false);
+        assertEquals(PASSENGERS, grouped.delivered);
+        assertEquals(PASSENGERS, broadcast.delivered);
+        // every passenger needs at least one stop to board, and some have to wait for a car
+        assertThat(grouped.stops, greaterThan(PASSENGERS / CARS));
+        assertThat(grouped.totalWait / PASSENGERS, greaterThan(0L));
+        assertThat(grouped.passengersPerHour(), greaterThan(0L));
+        assertThat(grouped.stops, lessThan(broadcast.stops));
+        assertThat(grouped.totalWait, lessThan(broadcast.totalWait));
+        assertThat(grouped.passengersPerHour(), greaterThan(broadcast.passengersPerHour()));
+    }
+
+    private static Result simulate(boolean useGroup) {
+        SimulatedClock clock = new SimulatedClock();
+        Result result = new Result();
+        // passengers by level, the list of level zero stays empty
+        List<List<long[]>> waiting = new ArrayList<>();
+        List<List<List<long[]>>> riding = new ArrayList<>();
+        for (int level = 0; level <= LEVELS; level++) {
+            waiting.add(new ArrayList<>());
+        }
+        for (int car = 0; car < CARS; car++) {
+            riding.add(new ArrayList<>());
+            for (int level = 0; level <= LEVELS; level++) {
+                riding.get(car).add(new ArrayList<>());
+            }
+        }
+
+        Elevator[] elevators = new Elevator[CARS];
+        for (int i = 0; i < CARS; i++) {
+            int car = i;
+            elevators[i] = new Elevator(LEVELS, 3, 1.5f, 2000, 3000, clock);
+            elevators[i].addListener((state, level) -> {
+                if (state != ElevatorState.OPENING) {
+                    return;
+                }
+                // every opening is a stop: passengers leave the car and waiting ones come in
+                result.stops++;
+                long now = clock.currentTimeMillis();
+                result.delivered += riding.get(car).get(level).size();
+                riding.get(car).get(level).clear();
+                for (long[] passenger : waiting.get(level)) {
+                    result.totalWait += now - passenger[0];
+                    int destination = (int) passenger[1];
+                    riding.get(car).get(destination).add(passenger);
+                    clock.schedule(now, () -> elevators[car].addInternalCommand(String.valueOf(destination)));
+                }
+                waiting.get(level).clear();
+                result.finishTime = now;
+            });
+        }
+        ElevatorGroup group = new ElevatorGroup(elevators);
+
+        Random random = new Random(7);
+        long time = 0;
+        for (int i = 0; i < PASSENGERS; i++) {
+            time += random.nextInt(1000);
+            int origin = 1 + random.nextInt(LEVELS);
+            int destination = 1 + random.nextInt(LEVELS - 1);
+            if (destination >= origin) {
+                destination++;
+            }
+            long[] passenger = new long[] {time, destination};
+            clock.schedule(time, () -> {
+                waiting.get(origin).add(passenger);
+                if (useGroup) {
+                    group.addExternalCommand(String.valueOf(origin));
+                } else {
+                    for (Elevator elevator : elevators) {
+                        elevator.addExternalCommand(String.valueOf(origin));
+                    }
+                }
+            });
+        }
+        clock.run(elevators);
+        return result;
+    }
+
+    private static class Result {
+        long totalWait;
+        int delivered;
+        int stops;
+        long finishTime;
+
+        long passengersPerHour() {
+            return delivered * TimeUnit.HOURS.toMillis(1) / finishTime;
+        }
+    }
+}
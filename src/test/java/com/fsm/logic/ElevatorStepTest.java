@@ -0,0 +1,180 @@
+package com.fsm.logic;
+
+import com.fsm.logic.clock.Clock;
+import com.fsm.logic.clock.RealTimeClock;
+import com.fsm.logic.delay.Delay;
+import com.fsm.logic.fleet.StepScheduler;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class ElevatorStepTest {
+
+    @Test
+    public void testStepsReturnDeadlinesAndWakeConditions() {
+        ManualClock clock = new ManualClock();
+        // 1000 ms per level, door moves 200 ms and stays open 500 ms
+        Elevator elevator = new Elevator(10, 3, 3, 200, 500, clock);
+        AtomicInteger wakeUps = new AtomicInteger();
+        elevator.setWakeUpHandler(wakeUps::incrementAndGet);
+
+        assertEquals("Idle until command", elevator.step().toString());
+        // nothing is due, stepping again does nothing
+        assertEquals("Idle until command", elevator.step().toString());
+
+        elevator.addInternalCommand(2);
+        assertEquals(1, wakeUps.get());
+        assertEquals("Moving up until 1000 ms", elevator.step().toString());
+        clock.now = 999;
+        assertEquals("Moving up until 1000 ms", elevator.step().toString());
+        clock.now = 1000;
+        assertEquals("Opening until 1200 ms", elevator.step().toString());
+        clock.now = 1200;
+        assertEquals("Open until 1700 ms", elevator.step().toString());
+        clock.now = 1700;
+        assertEquals("Closing until 1900 ms or command", elevator.step().toString());
+
+        // the open button interrupts closing, the door opens for the time it was closing
+        clock.now = 1750;
+        elevator.addInternalCommand(ServiceButton.OPEN);
+        assertEquals(2, wakeUps.get());
+        assertEquals("Opening until 1800 ms", elevator.step().toString());
+        clock.now = 1800;
+        assertEquals("Open until 2300 ms", elevator.step().toString());
+        clock.now = 2300;
+        assertEquals("Closing until 2500 ms or command", elevator.step().toString());
+        clock.now = 2500;
+        assertEquals("Idle until command", elevator.step().toString());
+        assertEquals(2, elevator.currentLevel);
+
+        elevator.stop();
+        assertTrue(elevator.step().isStopped());
+    }
+
+    @Test
+    public void testSchedulerDrivesCarsOnFewThreads() throws InterruptedException {
+        int cars = 1000;
+        Elevator[] elevators = new Elevator[cars];
+        CountDownLatch arrived = new CountDownLatch(cars);
+        for (int i = 0; i < cars; i++) {
+            elevators[i] = new Elevator(10, 3, 30, 10, 10, RealTimeClock.INSTANCE);
+            int floor = 2 + i % 9;
+            elevators[i].addListener((state, level) -> {
+                if (state == ElevatorState.OPENING && level == floor) {
+                    arrived.countDown();
+                }
+            });
+        }
+        try (StepScheduler scheduler = new StepScheduler(2, elevators)) {
+            scheduler.start();
+            for (int i = 0; i < cars; i++) {
+                scheduler.getElevator(i).addInternalCommand(2 + i % 9);
+            }
+            assertTrue(arrived.await(30, TimeUnit.SECONDS));
+            assertEquals(cars, scheduler.getNumberOfRunningElevators());
+            assertTrue(scheduler.stop(30, TimeUnit.SECONDS));
+            assertEquals(0, scheduler.getNumberOfRunningElevators());
+        }
+        for (Elevator elevator : elevators) {
+            assertFalse(elevator.internalFloorsButtons.contains(elevator.currentLevel));
+        }
+    }
+
+    @Test
+    public void testSchedulerDoesNotAddThreadsForCallbacks() throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+        int cars = 1000;
+        Elevator[] elevators = new Elevator[cars];
+        CountDownLatch arrived = new CountDownLatch(cars);
+        for (int i = 0; i < cars; i++) {
+            int floor = 2 + i % 9;
+            elevators[i] = new Elevator(10, 3, 30, 10, 10, level -> {
+                if (level == floor) {
+                    arrived.countDown();
+                }
+            }, status -> {}, () -> {}, RealTimeClock.INSTANCE);
+        }
+        try (StepScheduler scheduler = new StepScheduler(2, elevators)) {
+            scheduler.start();
+            for (int i = 0; i < cars; i++) {
+                scheduler.getElevator(i).addInternalCommand(2 + i % 9);
+            }
+            assertTrue(arrived.await(30, TimeUnit.SECONDS));
+            // callbacks subscribers are virtual, only the pool, carriers and the shared timer may be added
+            int carriers = Runtime.getRuntime().availableProcessors();
+            assertThat(threads.getThreadCount() - threadsBefore, lessThan(2 + carriers + 8));
+            assertTrue(scheduler.stop(30, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testSchedulerWakesUpCarAgainWhenClockIsSetBack() throws InterruptedException {
+        ShiftedClock clock = new ShiftedClock();
+        // 100 ms per level
+        Elevator elevator = new Elevator(10, 3, 30, 10, 10, clock);
+        CountDownLatch moving = new CountDownLatch(1);
+        CountDownLatch arrived = new CountDownLatch(1);
+        elevator.addListener((state, level) -> {
+            if (state == ElevatorState.MOVING_UP) {
+                moving.countDown();
+            } else if (state == ElevatorState.OPENING) {
+                arrived.countDown();
+            }
+        });
+        try (StepScheduler scheduler = new StepScheduler(1, elevator)) {
+            scheduler.start();
+            elevator.addInternalCommand(2);
+            assertTrue(moving.await(5, TimeUnit.SECONDS));
+            TimeUnit.MILLISECONDS.sleep(20);
+            // the wake-up scheduled for the deadline finds the clock of the elevator 50 ms short of it
+            clock.offset = -50;
+            assertTrue(arrived.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static class ManualClock implements Clock {
+        private long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public Delay getUninterruptedDelay(long timeoutInMs) {
+            throw new UnsupportedOperationException("Stepped elevator doesn't wait");
+        }
+
+        @Override
+        public Delay getInterruptDelay(long timeoutInMs) {
+            throw new UnsupportedOperationException("Stepped elevator doesn't wait");
+        }
+
+        @Override
+        public Delay getInfinitiveInterruptDelay() {
+            throw new UnsupportedOperationException("Stepped elevator doesn't wait");
+        }
+    }
+
+    /**
+     * Wall clock which can be set back
+     */
+    private static class ShiftedClock extends ManualClock {
+        private volatile long offset;
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis() + offset;
+        }
+    }
+}
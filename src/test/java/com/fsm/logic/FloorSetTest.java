@@ -0,0 +1,134 @@
+package com.fsm.logic;
+
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FloorSetTest {
+
+    @Test
+    public void testQueries() {
+        FloorSet floors = new FloorSet(20);
+        assertTrue(floors.isEmpty());
+        assertEquals(FloorSet.NONE, floors.first());
+        assertEquals(FloorSet.NONE, floors.higher(0));
+
+        assertTrue(floors.add(5));
+        assertFalse(floors.add(5));
+        assertTrue(floors.add(12));
+
+        assertEquals(5, floors.first());
+        assertEquals(12, floors.last());
+        assertEquals(12, floors.higher(5));
+        assertEquals(FloorSet.NONE, floors.higher(12));
+        assertEquals(5, floors.floor(5));
+        assertEquals(5, floors.floor(11));
+        assertEquals(FloorSet.NONE, floors.floor(4));
+        assertEquals(2, floors.size());
+
+        assertTrue(floors.remove(5));
+        assertFalse(floors.remove(5));
+        assertEquals("[12]", floors.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFloorOutOfRange() {
+        new FloorSet(20).add(21);
+    }
+
+    @Test
+    public void testSameAnswersAsNavigableSet() {
+        // one word of summary and several of them
+        checkSameAnswersAsNavigableSet(300);
+        checkSameAnswersAsNavigableSet(10_000);
+    }
+
+    @Test
+    public void testClear() {
+        FloorSet floors = new FloorSet(2000);
+        floors.add(1);
+        floors.add(1999);
+        floors.clear();
+        assertTrue(floors.isEmpty());
+        assertEquals(FloorSet.NONE, floors.floor(2000));
+        floors.add(700);
+        assertEquals(700, floors.higher(1));
+    }
+
+    private static void checkSameAnswersAsNavigableSet(int maxFloor) {
+        FloorSet floors = new FloorSet(maxFloor);
+        NavigableSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            // keep the set sparse, so lookups have to skip empty words
+            int floor = random.nextInt(maxFloor + 1);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.add(floor), floors.add(floor));
+            } else {
+                assertEquals(expected.remove(floor), floors.remove(floor));
+            }
+            int query = random.nextInt(maxFloor + 1);
+            assertEquals(toFloor(expected.higher(query)), floors.higher(query));
+            assertEquals(toFloor(expected.floor(query)), floors.floor(query));
+            assertEquals(toFloor(expected.ceiling(query)), floors.ceiling(query));
+            assertEquals(toFloor(expected.lower(query)), floors.lower(query));
+            assertEquals(expected.contains(query), floors.contains(query));
+            assertEquals(expected.isEmpty(), floors.isEmpty());
+        }
+        assertEquals(expected.size(), floors.size());
+    }
+
+    @Test
+    public void testConcurrentPresses() throws InterruptedException {
+        FloorSet floors = new FloorSet(127);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int offset = i;
+            threads[i] = new Thread(() -> {
+                for (int floor = offset; floor <= 127; floor += threads.length) {
+                    floors.add(floor);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(128, floors.size());
+    }
+
+    @Test
+    public void testPressIsSeenByOwnerDespiteOtherReaders() throws InterruptedException {
+        // floors of the second word, the first one stays empty
+        FloorSet floors = new FloorSet(127);
+        AtomicBoolean stopped = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!stopped.get()) {
+                floors.higher(0);
+                floors.floor(127);
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                int floor = 64 + i % 64;
+                floors.add(floor);
+                assertEquals(floor, floors.ceiling(0));
+                floors.remove(floor);
+            }
+        } finally {
+            stopped.set(true);
+            reader.join();
+        }
+    }
+
+    private static int toFloor(Integer floor) {
+        return floor == null ? FloorSet.NONE : floor;
+    }
+}
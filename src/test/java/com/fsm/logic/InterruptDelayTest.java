@@ -6,7 +6,7 @@ import java.util.stream.Stream;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
-import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 
 import org.junit.Test;
 
@@ -16,7 +16,7 @@ public class InterruptDelayTest {
         long startTime = System.currentTimeMillis();
         InterruptDelay interruptDelay = InterruptDelay.getInterruptDelay(1000);
         assertFalse(interruptDelay.waitForDelay());
-        assertThat(System.currentTimeMillis() - startTime, greaterThan(1000L));
+        assertThat(System.currentTimeMillis() - startTime, greaterThanOrEqualTo(1000L));
     }
 
     @Test
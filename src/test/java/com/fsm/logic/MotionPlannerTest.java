@@ -0,0 +1,130 @@
+package com.fsm.logic;
+
+import com.fsm.logic.clock.Clock;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.delay.Delay;
+import com.fsm.logic.delay.MockDelay;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MotionPlannerTest {
+
+    @Test
+    public void testTripPhases() {
+        // 3 m levels, 2 m/s cruise speed, 1 m/s2 acceleration: 2 m to accelerate and 2 m to brake
+        MotionPlanner planner = new MotionPlanner(1, 2, 3);
+        planner.plan(57);
+        assertEquals(2 + 26.5 + 2, planner.getDuration(), 1e-9);
+        assertEquals(2, planner.getDistanceAt(2), 1e-9);
+        assertEquals(2, planner.getSpeedAt(10), 1e-9);
+        assertEquals(57, planner.getDistanceAt(planner.getDuration()), 1e-9);
+        assertEquals(0, planner.getSpeedAt(planner.getDuration()), 1e-9);
+
+        // one level is too short to reach the cruise speed
+        planner.plan(3);
+        assertEquals(2 * Math.sqrt(3), planner.getDuration(), 1e-9);
+        assertEquals(1.5, planner.getDistanceAt(Math.sqrt(3)), 1e-9);
+    }
+
+    @Test
+    public void testExpressRunIsOneTrip() {
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(20, 3, 2, 1000, 1000, clock, SchedulingPolicy.COLLECTIVE_DOWN, 1);
+        List<String> transitions = record(elevator, clock);
+        clock.schedule(0, () -> elevator.addInternalCommand("20"));
+        clock.run(elevator);
+
+        assertEquals("[0 Moving up 1, 30500 Opening 20]", transitions.toString());
+    }
+
+    @Test
+    public void testCallAheadShortensTrip() {
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(20, 3, 2, 1000, 1000, clock, SchedulingPolicy.LOOK, 1);
+        List<String> transitions = record(elevator, clock);
+        clock.schedule(0, () -> elevator.addInternalCommand("20"));
+        // the car cruises at 2 m/s 2 m above level 3 and can stop at level 10
+        clock.schedule(5000, () -> elevator.addExternalCommand("10"));
+        // a call behind the car doesn't change the trip
+        clock.schedule(6000, () -> elevator.addExternalCommand("2"));
+        // the car is 1 m below level 5 and needs 2 m to brake, so it can't stop there
+        clock.schedule(6500, () -> elevator.addExternalCommand("5"));
+        // the car is 1 m above level 6, so the call is behind it although the trip has started below level 6
+        clock.schedule(9000, () -> elevator.addInternalCommand("6"));
+        clock.run(elevator);
+
+        // 19 m to level 10: 8.5 s at cruise speed and 2 s to brake
+        assertEquals("[0 Moving up 1, 5000 Moving up 3, 6500 Moving up 4, 15500 Opening 10]",
+                transitions.subList(0, 4).toString());
+    }
+
+    @Test
+    public void testCallAtTripEndArrives() {
+        ManualClock clock = new ManualClock();
+        Elevator elevator = new Elevator(20, 3, 2, 1000, 1000, clock, SchedulingPolicy.LOOK, 1);
+        elevator.currentLevel = 1;
+        elevator.direction = Elevator.Direction.UP;
+        elevator.addInternalCommand(10);
+        MotionPlanner planner = elevator.motionPlanner;
+
+        // 27 m to level 10: 2 s to accelerate, 11.5 s at cruise speed and 2 s to brake
+        planner.startTrip(elevator);
+        clock.now = 15499;
+        assertEquals(ElevatorState.MOVING_UP, planner.finishTrip(elevator, ElevatorState.MOVING_UP, true));
+        assertEquals(9, elevator.currentLevel);
+
+        // the re-planned trip ends before the next call, so the car stands at level 10 instead of passing it
+        planner.startTrip(elevator);
+        clock.now = 15500;
+        assertEquals(ElevatorState.OPENING, planner.finishTrip(elevator, ElevatorState.MOVING_UP, true));
+        assertEquals(10, elevator.currentLevel);
+        assertEquals(10, planner.getPositionAt(clock.nanoTime()), 1e-9);
+    }
+
+    private static List<String> record(Elevator elevator, SimulatedClock clock) {
+        List<String> transitions = new ArrayList<>();
+        elevator.addListener((state, level) -> {
+            if (state == ElevatorState.MOVING_UP || state == ElevatorState.MOVING_DOWN
+                    || state == ElevatorState.OPENING) {
+                transitions.add(clock.currentTimeMillis() + " " + state + " " + level);
+            }
+        });
+        return transitions;
+    }
+
+    /**
+     * Clock moved by the test, whose delays end immediately
+     */
+    private static class ManualClock implements Clock {
+        private static final Delay NO_DELAY = new MockDelay();
+
+        private long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Nonnull
+        @Override
+        public Delay getUninterruptedDelay(long timeoutInMs) {
+            return NO_DELAY;
+        }
+
+        @Nonnull
+        @Override
+        public Delay getInterruptDelay(long timeoutInMs) {
+            return NO_DELAY;
+        }
+
+        @Nonnull
+        @Override
+        public Delay getInfinitiveInterruptDelay() {
+            return NO_DELAY;
+        }
+    }
+}
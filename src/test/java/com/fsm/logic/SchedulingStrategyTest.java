@@ -0,0 +1,77 @@
+package com.fsm.logic;
+
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.traffic.TrafficGenerator;
+import com.fsm.logic.traffic.TrafficProfile;
+import com.fsm.logic.traffic.TrafficReport;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+import org.junit.Test;
+
+public class SchedulingStrategyTest {
+
+    @Test
+    public void testPoliciesStopAtDifferentLevels() {
+        // the elevator stopped at level 5 on the way up, then level 9 is pressed inside, levels 4 and 6 outside;
+        // levels in brackets are passed without opening the door
+        assertEquals("[5, 9, 6, 4]", stops(SchedulingPolicy.COLLECTIVE_DOWN).toString());
+        assertEquals("[5, 6, 9, (10), 4]", stops(SchedulingPolicy.SCAN).toString());
+        assertEquals("[5, 6, 9, 4]", stops(SchedulingPolicy.LOOK).toString());
+        assertEquals("[5, 6, 4, 9]", stops(SchedulingPolicy.NEAREST_CALL).toString());
+    }
+
+    @Test
+    public void testEveryPolicyDeliversAllPassengers() {
+        long arrived = simulate(SchedulingPolicy.COLLECTIVE_DOWN).getArrived();
+        assertThat(arrived, greaterThan(0L));
+        for (SchedulingPolicy policy : SchedulingPolicy.values()) {
+            TrafficReport report = simulate(policy);
+            assertEquals(arrived, report.getArrived());
+            assertEquals(arrived, report.getDelivered());
+            assertEquals(arrived, report.getWaitTime().getCount());
+            assertThat(report.getRideTime().getP50(), greaterThan(0L));
+        }
+    }
+
+    private static TrafficReport simulate(SchedulingPolicy policy) {
+        SimulatedClock clock = new SimulatedClock();
+        Elevator[] elevators = new Elevator[2];
+        for (int i = 0; i < elevators.length; i++) {
+            elevators[i] = new Elevator(15, 3, 1.5f, 2000, 3000, clock, policy);
+        }
+        // the same seed gives every policy the same passengers
+        TrafficGenerator generator = new TrafficGenerator(new ElevatorGroup(elevators), TrafficProfile.LUNCH, 400, 3);
+        generator.schedule(clock, TimeUnit.MINUTES.toMillis(30));
+        clock.run(elevators);
+        return generator.getReport();
+    }
+
+    private static List<String> stops(SchedulingPolicy policy) {
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, clock, policy);
+        List<String> stops = new ArrayList<>();
+        ElevatorState[] previousState = new ElevatorState[1];
+        elevator.addListener((state, level) -> {
+            if (state == ElevatorState.OPENING) {
+                stops.add(String.valueOf(level));
+            } else if (state == ElevatorState.CLOSE && previousState[0] != ElevatorState.CLOSING) {
+                stops.add("(" + level + ")");
+            }
+            previousState[0] = state;
+        });
+        clock.schedule(0, () -> elevator.addInternalCommand("5"));
+        // the door is open at level 5
+        clock.schedule(100, () -> {
+            elevator.addInternalCommand("9");
+            elevator.addExternalCommand("4");
+            elevator.addExternalCommand("6");
+        });
+        clock.run(elevator);
+        return stops;
+    }
+}
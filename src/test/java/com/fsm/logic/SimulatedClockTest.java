@@ -0,0 +1,129 @@
+package com.fsm.logic;
+
+import com.fsm.logic.clock.SimulatedClock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class SimulatedClockTest {
+
+    @Test
+    public void testSameStatesAsRealTime() throws InterruptedException {
+        List<String> realTimeStates = Collections.synchronizedList(new ArrayList<>());
+        // 20 ms per level, door moves 20 ms and stays open 20 ms
+        Elevator realTimeElevator = new Elevator(10, 1, 50, 20, 20, level -> {}, realTimeStates::add, () -> {});
+        realTimeElevator.addInternalCommand("3");
+        realTimeElevator.addExternalCommand("5");
+        Thread realTimeThread = new Thread(realTimeElevator);
+        realTimeThread.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!containsSecondIdle(realTimeStates) && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        realTimeElevator.stop();
+        realTimeThread.join();
+
+        List<String> simulatedStates = new ArrayList<>();
+        SimulatedClock clock = new SimulatedClock();
+        Elevator simulatedElevator =
+                new Elevator(10, 1, 50, 20, 20, level -> {}, simulatedStates::add, () -> {}, clock);
+        clock.schedule(0, () -> {
+            simulatedElevator.addInternalCommand("3");
+            simulatedElevator.addExternalCommand("5");
+        });
+        clock.run(simulatedElevator);
+
+        assertEquals(realTimeStates.subList(0, simulatedStates.size()), simulatedStates);
+        assertEquals(200, clock.currentTimeMillis());
+    }
+
+    @Test
+    public void testDayOfTrafficIsFast() {
+        SimulatedClock clock = new SimulatedClock();
+        int[] openings = new int[1];
+        Elevator elevator = new Elevator(20, 3, 1, 3000, 5000, clock);
+        elevator.addListener((state, level) -> {
+            if (state == ElevatorState.OPENING) {
+                openings[0]++;
+            }
+        });
+        Random random = new Random(42);
+        long dayInMs = TimeUnit.DAYS.toMillis(1);
+        for (long time = 0; time < dayInMs; time += 1 + random.nextInt(120_000)) {
+            String floor = String.valueOf(1 + random.nextInt(20));
+            if (random.nextBoolean()) {
+                clock.schedule(time, () -> elevator.addExternalCommand(floor));
+            } else {
+                clock.schedule(time, () -> elevator.addInternalCommand(floor));
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        clock.run(elevator);
+
+        assertThat(System.currentTimeMillis() - start, lessThan(TimeUnit.SECONDS.toMillis(10)));
+        assertThat(clock.currentTimeMillis(), greaterThan(dayInMs - 120_000));
+        assertThat(openings[0], greaterThan(1000));
+        assertTrue(elevator.internalFloorsButtons.isEmpty() && elevator.externalFloorsButtons.isEmpty());
+    }
+
+    @Test
+    public void testSteppedRunMatchesThreadedRun() {
+        List<List<String>> threaded = simulateGroup(false);
+        List<List<String>> stepped = simulateGroup(true);
+
+        assertThat(threaded.get(0).size(), greaterThan(100));
+        assertEquals(threaded, stepped);
+    }
+
+    /**
+     * @return transitions of every car, cars started by threads at the same time may report in any order
+     */
+    private static List<List<String>> simulateGroup(boolean onCurrentThread) {
+        SimulatedClock clock = new SimulatedClock();
+        Thread caller = Thread.currentThread();
+        List<List<String>> transitions = new ArrayList<>();
+        Elevator[] elevators = new Elevator[3];
+        for (int i = 0; i < elevators.length; i++) {
+            List<String> carTransitions = new ArrayList<>();
+            transitions.add(carTransitions);
+            elevators[i] = new Elevator(20, 3, 1.5f, 2000, 3000, clock);
+            elevators[i].addListener((state, level) -> {
+                if (onCurrentThread) {
+                    assertEquals(caller, Thread.currentThread());
+                }
+                carTransitions.add(clock.currentTimeMillis() + " " + level + " " + state);
+            });
+        }
+        ElevatorGroup group = new ElevatorGroup(elevators);
+        Random random = new Random(5);
+        for (long time = 0; time < TimeUnit.MINUTES.toMillis(30); time += 1 + random.nextInt(60_000)) {
+            int floor = 1 + random.nextInt(20);
+            clock.schedule(time, () -> group.addExternalCommand(floor));
+        }
+        if (onCurrentThread) {
+            clock.runOnCurrentThread(elevators);
+        } else {
+            clock.run(elevators);
+        }
+        for (Elevator elevator : elevators) {
+            assertTrue(elevator.externalFloorsButtons.isEmpty());
+        }
+        return transitions;
+    }
+
+    private static boolean containsSecondIdle(List<String> states) {
+        synchronized (states) {
+            return states.stream().filter(status -> status.endsWith(ElevatorState.IDLE.toString())).count() > 1;
+        }
+    }
+}
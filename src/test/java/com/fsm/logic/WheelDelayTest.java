@@ -0,0 +1,67 @@
+package com.fsm.logic;
+
+import com.fsm.logic.delay.WheelDelay;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.Test;
+
+public class WheelDelayTest {
+    @Test
+    public void testNonInterruptedCase() {
+        long startTime = System.currentTimeMillis();
+        WheelDelay wheelDelay = WheelDelay.getWheelDelay(1000);
+        assertFalse(wheelDelay.waitForDelay());
+        assertThat(System.currentTimeMillis() - startTime, greaterThanOrEqualTo(1000L));
+    }
+
+    @Test
+    public void testInterruptedCase() {
+        WheelDelay wheelDelay = WheelDelay.getWheelDelay(2000);
+        Thread interruptThread = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(1000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            wheelDelay.interrupt();
+
+        });
+        interruptThread.start();
+        assertTrue(wheelDelay.waitForDelay());
+    }
+
+    @Test
+    public void testAlreadyInterruptedTimer() {
+        WheelDelay wheelDelay = WheelDelay.getWheelDelay(1000);
+        assertTrue(wheelDelay.interrupt());
+        assertFalse(wheelDelay.interrupt());
+        assertTrue(wheelDelay.waitForDelay());
+    }
+
+    @Test
+    public void testInfinitiveDelayInterruption() {
+        WheelDelay wheelDelay = WheelDelay.getInfinitiveWheelDelay();
+        wheelDelay.interrupt();
+        assertTrue(wheelDelay.waitForDelay());
+    }
+
+    @Test
+    public void testThreadCountDoesNotGrow() {
+        WheelDelay.getWheelDelay(0).waitForDelay();
+        int threadsBefore = Thread.activeCount();
+        for (int i = 0; i < 10_000; i++) {
+            WheelDelay wheelDelay = i % 2 == 0 ? WheelDelay.getWheelDelay(60_000) : WheelDelay.getInfinitiveWheelDelay();
+            wheelDelay.interrupt();
+            assertTrue(wheelDelay.waitForDelay());
+        }
+        for (int i = 0; i < 100; i++) {
+            assertFalse(WheelDelay.getWheelDelay(1).waitForDelay());
+        }
+        assertThat(Thread.activeCount(), lessThanOrEqualTo(threadsBefore));
+    }
+}
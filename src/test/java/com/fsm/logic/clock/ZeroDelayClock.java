@@ -0,0 +1,41 @@
+package com.fsm.logic.clock;
+
+import javax.annotation.Nonnull;
+import com.fsm.logic.delay.Delay;
+import com.fsm.logic.delay.MockDelay;
+
+/**
+ * Clock whose delays end immediately and time doesn't move. Useful to measure cost of the state machine itself.
+ */
+public class ZeroDelayClock implements Clock {
+
+    public static final ZeroDelayClock INSTANCE = new ZeroDelayClock();
+
+    private static final Delay NO_DELAY = new MockDelay();
+
+    private ZeroDelayClock() {
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return 0;
+    }
+
+    @Nonnull
+    @Override
+    public Delay getUninterruptedDelay(long timeoutInMs) {
+        return NO_DELAY;
+    }
+
+    @Nonnull
+    @Override
+    public Delay getInterruptDelay(long timeoutInMs) {
+        return NO_DELAY;
+    }
+
+    @Nonnull
+    @Override
+    public Delay getInfinitiveInterruptDelay() {
+        return NO_DELAY;
+    }
+}
@@ -0,0 +1,224 @@
+package com.fsm.logic.event;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.event.ElevatorPublisher.OverflowPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ElevatorPublisherTest {
+
+    // more than threads of the common pool, which is sized by the number of cores
+    private static final int SLOW_SUBSCRIBERS = Runtime.getRuntime().availableProcessors() + 1;
+
+    @Test
+    public void testEventsAreDeliveredOnDemand() {
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, clock);
+        // the subscriber is called on the publishing thread
+        ElevatorPublisher publisher = new ElevatorPublisher(elevator, OverflowPolicy.DROP_OLDEST, 1024, Runnable::run);
+        elevator.addListener(publisher);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        clock.schedule(5, () -> elevator.addInternalCommand(3));
+        clock.run(elevator);
+        publisher.close();
+
+        List<String> events = subscriber.events;
+        assertEquals("TRANSITION 0 Init", events.get(0));
+        assertEquals("INTERNAL_PRESSED 3", events.get(2));
+        int opening = events.indexOf("TRANSITION 3 " + ElevatorState.OPENING);
+        assertEquals("RELEASED 3", events.get(opening + 1));
+        assertEquals("TRANSITION 3 " + ElevatorState.IDLE, events.get(events.size() - 2));
+        assertEquals("complete", events.get(events.size() - 1));
+        assertEquals(0, publisher.getNumberOfSubscribers());
+    }
+
+    @Test
+    public void testSlowSubscriberDropsOldestEvents() throws InterruptedException {
+        List<String> events = publishPastSlowSubscriber(OverflowPolicy.DROP_OLDEST);
+        // the first event was being handled, the buffer kept the latest four
+        assertEquals("[TRANSITION 1 Moving up, TRANSITION 97 Moving up, EXTERNAL_PRESSED 5, TRANSITION 98 Moving up, "
+                + "EXTERNAL_PRESSED 5, complete]", events.toString());
+    }
+
+    @Test
+    public void testSlowSubscriberGetsLatestTransition() throws InterruptedException {
+        List<String> events = publishPastSlowSubscriber(OverflowPolicy.CONFLATE);
+        // the buffered transition is replaced by every new one
+        assertEquals("[TRANSITION 1 Moving up, EXTERNAL_PRESSED 5, EXTERNAL_PRESSED 5, TRANSITION 98 Moving up, "
+                + "EXTERNAL_PRESSED 5, complete]", events.toString());
+    }
+
+    @Test
+    public void testWrongRequestIsReported() {
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, new SimulatedClock());
+        ElevatorPublisher publisher = new ElevatorPublisher(elevator, OverflowPolicy.CONFLATE, 4, Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        assertEquals("[error IllegalArgumentException]", subscriber.events.toString());
+        assertEquals(0, publisher.getNumberOfSubscribers());
+    }
+
+    @Test
+    public void testEventsWaitUntilOnSubscribeReturns() throws InterruptedException {
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, new SimulatedClock());
+        ElevatorPublisher publisher = new ElevatorPublisher(elevator, OverflowPolicy.DROP_OLDEST, 4);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE) {
+            private volatile boolean subscribing;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscribing = true;
+                super.onSubscribe(subscription);
+                // the elevator publishes while the subscriber is still being subscribed
+                Thread elevatorThread = new Thread(() -> publisher.onExternalCommand(5));
+                elevatorThread.start();
+                try {
+                    elevatorThread.join();
+                    TimeUnit.MILLISECONDS.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                subscribing = false;
+            }
+
+            @Override
+            public void onNext(ElevatorEvent event) {
+                if (subscribing) {
+                    events.add("onNext during onSubscribe");
+                }
+                super.onNext(event);
+            }
+        };
+        publisher.subscribe(subscriber);
+        publisher.close();
+
+        assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+        assertEquals("[EXTERNAL_PRESSED 5, complete]", subscriber.events.toString());
+    }
+
+    @Test
+    public void testSubscriberIsDrainedByOneThread() throws InterruptedException {
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, new SimulatedClock());
+        ElevatorPublisher publisher = new ElevatorPublisher(elevator, OverflowPolicy.DROP_OLDEST, 4);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Semaphore delivered = new Semaphore(0);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(ElevatorEvent event) {
+                super.onNext(event);
+                threads.add(Thread.currentThread());
+                delivered.release();
+            }
+        };
+        publisher.subscribe(subscriber);
+        for (int level = 1; level <= 10; level++) {
+            publisher.onStateChanged(ElevatorState.MOVING_UP, level);
+            assertTrue(delivered.tryAcquire(10, TimeUnit.SECONDS));
+            // the thread waits for the next event instead of finishing
+            Thread thread = threads.iterator().next();
+            while (thread.getState() != Thread.State.WAITING && thread.isAlive()) {
+                Thread.yield();
+            }
+            assertEquals(Thread.State.WAITING, thread.getState());
+        }
+        publisher.close();
+
+        assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+        assertEquals(1, threads.size());
+    }
+
+    private static List<String> publishPastSlowSubscriber(OverflowPolicy policy) throws InterruptedException {
+        Elevator elevator = new Elevator(100, 1, 50, 20, 20, new SimulatedClock());
+        // the default executor, slow subscribers of the same publisher block each other only if it is shared
+        ElevatorPublisher publisher = new ElevatorPublisher(elevator, policy, 4);
+        CountDownLatch slowStarted = new CountDownLatch(SLOW_SUBSCRIBERS);
+        CountDownLatch release = new CountDownLatch(1);
+        List<RecordingSubscriber> slow = new ArrayList<>();
+        for (int i = 0; i < SLOW_SUBSCRIBERS; i++) {
+            slow.add(new RecordingSubscriber(Long.MAX_VALUE) {
+                @Override
+                public void onNext(ElevatorEvent event) {
+                    super.onNext(event);
+                    slowStarted.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            publisher.subscribe(slow.get(i));
+        }
+        RecordingSubscriber fast = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(fast);
+
+        publisher.onStateChanged(ElevatorState.MOVING_UP, 1);
+        assertTrue(slowStarted.await(10, TimeUnit.SECONDS));
+        for (int level = 2; level < 99; level++) {
+            publisher.onExternalCommand(5);
+            publisher.onStateChanged(ElevatorState.MOVING_UP, level);
+        }
+        publisher.onExternalCommand(5);
+        publisher.close();
+
+        // the other subscriber isn't held by the slow ones
+        assertTrue(fast.completed.await(10, TimeUnit.SECONDS));
+        assertTrue(fast.events.contains("TRANSITION 98 Moving up"));
+        release.countDown();
+        for (RecordingSubscriber subscriber : slow) {
+            assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+            assertEquals(slow.get(0).events, subscriber.events);
+        }
+        return slow.get(0).events;
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<ElevatorEvent> {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        private final long batch;
+        private Flow.Subscription subscription;
+
+        RecordingSubscriber(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(ElevatorEvent event) {
+            events.add(event.toString());
+            if (batch == 1) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            events.add("error " + throwable.getClass().getSimpleName());
+        }
+
+        @Override
+        public void onComplete() {
+            events.add("complete");
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.fsm.logic.event;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.SimulatedClock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+import org.junit.Test;
+
+public class StateEventRingTest {
+
+    @Test
+    public void testEventsAreDeliveredInOrder() {
+        StateEventRing ring = new StateEventRing(8);
+        List<String> events = new ArrayList<>();
+        StateEventRing.Subscription subscription = ring.subscribe((level, state, direction, nanoTime) -> events
+                .add(level + " " + state + " " + direction + " " + nanoTime), "test-subscriber");
+
+        ring.publish(1, ElevatorState.IDLE, null, 10);
+        ring.publish(1, ElevatorState.MOVING_UP, Direction.UP, 20);
+        ring.publish(2, ElevatorState.OPENING, Direction.UP, 30);
+        subscription.close();
+
+        assertEquals(3, events.size());
+        assertEquals("1 Idle null 10", events.get(0));
+        assertEquals("1 Moving up UP 20", events.get(1));
+        assertEquals("2 Opening UP 30", events.get(2));
+    }
+
+    @Test
+    public void testCallbacksReleaseButtonsOfLostEvents() {
+        SimulatedClock clock = new SimulatedClock();
+        Set<Integer> deselected = ConcurrentHashMap.newKeySet();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong transitions = new AtomicLong();
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, deselected::add, status -> {
+            // the subscriber is stuck at the first status until the ring has been overwritten
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, () -> {}, clock);
+        elevator.addListener((state, level) -> {
+            if (transitions.incrementAndGet() == 1200) {
+                release.countDown();
+            }
+        });
+        // levels 3 to 10 are opened once, their events are lost
+        for (int level = 3; level <= 10; level++) {
+            int floor = level;
+            clock.schedule(level * 1000, () -> elevator.addInternalCommand(floor));
+        }
+        for (int trip = 0; trip < 300; trip++) {
+            int floor = 1 + trip % 2;
+            clock.schedule(20_000 + trip * 1000, () -> elevator.addInternalCommand(floor));
+        }
+        clock.run(elevator);
+
+        assertThat(transitions.get(), greaterThan(1200L));
+        assertEquals(Set.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), deselected);
+    }
+
+    @Test
+    public void testSlotBeingWrittenIsNotRead() {
+        StateEventRing ring = new StateEventRing(8);
+        StateEventRing.Reader reader = ring.newReader();
+        for (int i = 0; i < 8; i++) {
+            ring.publish(i, ElevatorState.IDLE, null, i);
+        }
+        // the next event goes into the slot of the first one, so it is lost even before it is overwritten
+        List<Integer> levels = new ArrayList<>();
+        AtomicLong lost = new AtomicLong();
+        assertEquals(7, reader.poll(new StateEventHandler() {
+            @Override
+            public void onEvent(int level, @Nonnull ElevatorState state, @Nullable Direction direction,
+                    long nanoTime) {
+                levels.add(level);
+            }
+
+            @Override
+            public void onEventsLost(long count) {
+                lost.addAndGet(count);
+            }
+        }));
+        assertEquals(1, lost.get());
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), levels);
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotBlockProducer() throws InterruptedException {
+        StateEventRing ring = new StateEventRing(8);
+        CountDownLatch firstEvent = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong received = new AtomicLong();
+        AtomicLong lost = new AtomicLong();
+        StateEventRing.Subscription subscription = ring.subscribe(new StateEventHandler() {
+            @Override
+            public void onEvent(int level, @Nonnull ElevatorState state, @Nullable Direction direction,
+                    long nanoTime) {
+                received.incrementAndGet();
+                firstEvent.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onEventsLost(long count) {
+                lost.addAndGet(count);
+            }
+        }, "slow-subscriber");
+
+        ring.publish(0, ElevatorState.IDLE, null, 0);
+        firstEvent.await();
+        // the subscriber is stuck, but publishing goes on
+        for (int i = 1; i < 100; i++) {
+            ring.publish(i, ElevatorState.IDLE, null, i);
+        }
+        release.countDown();
+        subscription.close();
+
+        assertThat(lost.get(), greaterThan(0L));
+        assertEquals(100, received.get() + lost.get());
+    }
+}
@@ -0,0 +1,89 @@
+package com.fsm.logic.fleet;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.RealTimeClock;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class FleetRunnerTest {
+
+    private static final int CARS = 2000;
+
+    @Test
+    public void testFleetDoesNotAddPlatformThreads() throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+        Elevator[] elevators = new Elevator[CARS];
+        CountDownLatch arrived = new CountDownLatch(CARS);
+        for (int i = 0; i < CARS; i++) {
+            elevators[i] = new Elevator(10, 3, 30, 10, 10, RealTimeClock.INSTANCE);
+            int floor = 2 + i % 9;
+            elevators[i].addListener((state, level) -> {
+                if (state == ElevatorState.OPENING && level == floor) {
+                    arrived.countDown();
+                }
+            });
+        }
+
+        try (FleetRunner fleet = new FleetRunner(elevators)) {
+            fleet.start();
+            for (int i = 0; i < CARS; i++) {
+                fleet.getElevator(i).addInternalCommand(2 + i % 9);
+            }
+            assertTrue(arrived.await(30, TimeUnit.SECONDS));
+            assertEquals(CARS, fleet.getNumberOfRunningElevators());
+            // virtual threads are not counted, only carriers and the shared timer may be added
+            int carriers = Runtime.getRuntime().availableProcessors();
+            assertThat(threads.getThreadCount() - threadsBefore, lessThan(carriers + 8));
+
+            assertTrue(fleet.stop(30, TimeUnit.SECONDS));
+            assertEquals(0, fleet.getNumberOfRunningElevators());
+        }
+    }
+
+    @Test
+    public void testIdleFleetWithCallbacksParksSubscribers() throws InterruptedException {
+        Elevator[] elevators = new Elevator[CARS];
+        Thread[] subscribers = new Thread[CARS];
+        CountDownLatch arrived = new CountDownLatch(CARS);
+        for (int i = 0; i < CARS; i++) {
+            int index = i;
+            int floor = 2 + i % 9;
+            // every car has a callbacks subscriber thread besides its own
+            elevators[i] = new Elevator(10, 3, 30, 10, 10, level -> {
+                subscribers[index] = Thread.currentThread();
+                if (level == floor) {
+                    arrived.countDown();
+                }
+            }, status -> {}, () -> {}, RealTimeClock.INSTANCE);
+        }
+
+        try (FleetRunner fleet = new FleetRunner(elevators)) {
+            fleet.start();
+            for (int i = 0; i < CARS; i++) {
+                fleet.getElevator(i).addInternalCommand(2 + i % 9);
+            }
+            assertTrue(arrived.await(30, TimeUnit.SECONDS));
+
+            // subscribers of idle cars are parked until the next event, they don't poll the ring
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            for (Thread subscriber : subscribers) {
+                while (subscriber.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(1);
+                }
+                assertEquals(Thread.State.WAITING, subscriber.getState());
+            }
+
+            assertTrue(fleet.stop(30, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.fsm.logic.journal;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.journal.CommandJournal.RecordType;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordsAreReadInOrder() throws IOException {
+        Path file = folder.newFile().toPath();
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, clock);
+        try (CommandJournal journal = new CommandJournal(file, elevator)) {
+            elevator.addListener(journal);
+            clock.schedule(5, () -> {
+                elevator.addInternalCommand("3");
+                elevator.addInternalCommand(Elevator.OPEN_COMMAND);
+            });
+            clock.run(elevator);
+        }
+
+        try (JournalReader reader = new JournalReader(file)) {
+            assertEquals(10, reader.getNumberOfLevels());
+            assertEquals(20, reader.getDoorMoveTimeInMs());
+            assertTrue(reader.next());
+            assertEquals(RecordType.TRANSITION, reader.getType());
+            assertEquals(ElevatorState.INIT, reader.getState());
+            skipTransitions(reader);
+            assertEquals(RecordType.INTERNAL_COMMAND, reader.getType());
+            assertEquals(3, reader.getFloor());
+            assertEquals(5, reader.getTimeInMs());
+            assertTrue(reader.next());
+            assertEquals(RecordType.OPEN_COMMAND, reader.getType());
+            skipTransitions(reader);
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testReplayedTransitionsMatchRecorded() throws IOException {
+        Path file = folder.newFile().toPath();
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(20, 3, 1, 3000, 5000, clock);
+        try (CommandJournal journal = new CommandJournal(file, elevator)) {
+            elevator.addListener(journal);
+            Random random = new Random(3);
+            for (long time = 0; time < 3_600_000; time += random.nextInt(30_000)) {
+                String floor = String.valueOf(1 + random.nextInt(20));
+                int command = random.nextInt(10);
+                if (command == 0) {
+                    clock.schedule(time, () -> elevator.addInternalCommand(Elevator.OPEN_COMMAND));
+                } else if (command < 5) {
+                    clock.schedule(time, () -> elevator.addExternalCommand(floor));
+                } else {
+                    clock.schedule(time, () -> elevator.addInternalCommand(floor));
+                }
+            }
+            clock.run(elevator);
+        }
+
+        JournalReplay.Result result = JournalReplay.replay(file);
+
+        assertTrue(result.toString(), result.isMatched());
+        assertTrue(result.getRecorded() > 1000);
+        assertEquals(0, result.getMaxTimeDriftInMs());
+    }
+
+    @Test
+    public void testCloseWaitsForConcurrentAppends() throws Exception {
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, new SimulatedClock());
+        for (int round = 0; round < 20; round++) {
+            Path file = folder.newFile().toPath();
+            CommandJournal journal = new CommandJournal(file, elevator);
+            // the next appends map the second chunk while the journal is being closed
+            while (journal.size() < CommandJournal.CHUNK_SIZE - 4 * CommandJournal.RECORD_SIZE) {
+                journal.onExternalCommand(1);
+            }
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            CyclicBarrier start = new CyclicBarrier(5);
+            Thread[] senders = new Thread[4];
+            for (int i = 0; i < senders.length; i++) {
+                senders[i] = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 1000; j++) {
+                            journal.onExternalCommand(1);
+                        }
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                });
+                senders[i].start();
+            }
+            start.await();
+            journal.close();
+            for (Thread sender : senders) {
+                sender.join();
+            }
+
+            assertEquals(null, failure.get());
+            // every reserved record has been written, the journal doesn't end at a hole
+            long records = 0;
+            try (JournalReader reader = new JournalReader(file)) {
+                while (reader.next()) {
+                    records++;
+                }
+            }
+            assertEquals((journal.size() - CommandJournal.HEADER_SIZE) / CommandJournal.RECORD_SIZE, records);
+        }
+    }
+
+    private static void skipTransitions(JournalReader reader) throws IOException {
+        while (reader.next() && reader.getType() == RecordType.TRANSITION) {
+            // only commands are checked
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.fsm.logic.metrics;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.clock.SimulatedClock;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ElevatorMetricsTest {
+
+    @Test
+    public void testLatenciesOfSimulatedRun() throws JMException {
+        SimulatedClock clock = new SimulatedClock();
+        // 20 ms per level, door moves 20 ms and stays open 20 ms
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, clock);
+        ElevatorMetrics metrics = new ElevatorMetrics(elevator);
+        elevator.addListener(metrics);
+        long[] openingTimes = new long[11];
+        elevator.addListener((state, level) -> {
+            if (state == ElevatorState.OPENING && openingTimes[level] == 0) {
+                openingTimes[level] = clock.currentTimeMillis();
+            }
+            if (state == ElevatorState.CLOSING && level == 5 && metrics.getDoorReopenCount() == 0) {
+                clock.schedule(clock.currentTimeMillis() + 10,
+                        () -> elevator.addInternalCommand(Elevator.OPEN_COMMAND));
+            }
+        });
+        clock.schedule(0, () -> elevator.addExternalCommand("5"));
+        clock.schedule(10, () -> elevator.addExternalCommand("5"));
+        clock.schedule(30, () -> elevator.addInternalCommand("3"));
+        clock.run(elevator);
+
+        assertEquals(1, metrics.getHallCallWait().getCount());
+        assertEquals(openingTimes[5], metrics.getHallCallWait().getMax());
+        assertEquals(1, metrics.getRideTime().getCount());
+        assertEquals(openingTimes[3] - 30, metrics.getRideTime().getMax());
+        assertEquals(1, metrics.getDoorReopenCount());
+        assertEquals(1, metrics.getOpenButtonPressCount());
+        // the elevator stops at level 3 on the way to level 5
+        assertEquals(4, metrics.getDwellTime(ElevatorState.MOVING_UP).getCount());
+        assertEquals(20, metrics.getDwellTime(ElevatorState.MOVING_UP).getP99());
+        assertEquals(0, metrics.getDwellTime(ElevatorState.MOVING_DOWN).getCount());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        metrics.registerMBeans(server, "test");
+        try {
+            assertEquals(1L, server.getAttribute(new ObjectName("com.fsm:type=Elevator,name=\"test\""),
+                    "DoorReopenCount"));
+            assertEquals(openingTimes[5], server.getAttribute(
+                    new ObjectName("com.fsm:type=Elevator,name=\"test\",metric=hallCallWait"), "P999"));
+        } finally {
+            metrics.unregisterMBeans(server);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.fsm.logic.metrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        long previousHighest = -1;
+        for (int index = 0; index <= LatencyHistogram.indexOf(Long.MAX_VALUE); index++) {
+            long highest = LatencyHistogram.highestValueOf(index);
+            assertEquals(index, LatencyHistogram.indexOf(previousHighest + 1));
+            assertEquals(index, LatencyHistogram.indexOf(highest));
+            previousHighest = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previousHighest);
+    }
+
+    @Test
+    public void testPercentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000.5, histogram.getMean(), 0.001);
+        assertEquals(100_000, histogram.getMax());
+        assertThat(histogram.getP50(), both(greaterThanOrEqualTo(50_000L)).and(lessThanOrEqualTo(50_000L * 65 / 64)));
+        assertThat(histogram.getP99(), both(greaterThanOrEqualTo(99_000L)).and(lessThanOrEqualTo(100_000L)));
+        assertThat(histogram.getP999(), both(greaterThanOrEqualTo(99_900L)).and(lessThanOrEqualTo(100_000L)));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void testConcurrentRecordsAreNotLost() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 4;
+        int values = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                for (int value = 0; value < values; value++) {
+                    histogram.record(value % 100);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(threads * values, histogram.getCount());
+        assertEquals(99, histogram.getMax());
+        assertEquals(49, histogram.getP50());
+    }
+}
@@ -0,0 +1,69 @@
+package com.fsm.logic.metrics;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.ServiceButton;
+import com.fsm.logic.clock.SimulatedClock;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PressTracerTest {
+
+    @Test
+    public void testStagesOfSimulatedPresses() {
+        SimulatedClock clock = new SimulatedClock();
+        // 20 ms per level, door moves 20 ms and stays open 20 ms
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, clock);
+        List<PressTrace> slowPresses = new ArrayList<>();
+        PressTracer tracer = new PressTracer(elevator, 5000, slowPresses::add);
+        elevator.addListener(tracer);
+        boolean[] reopened = new boolean[1];
+        elevator.addListener((state, level) -> {
+            if (state == ElevatorState.CLOSING && level == 3 && !reopened[0]) {
+                reopened[0] = true;
+                clock.schedule(clock.currentTimeMillis() + 10, () -> elevator.addInternalCommand(ServiceButton.OPEN));
+            }
+        });
+        // the idle elevator is woken up at once
+        clock.schedule(0, () -> elevator.addExternalCommand(5));
+        // the moving elevator sees the press only when it reaches the next level
+        clock.schedule(10, () -> elevator.addInternalCommand(3));
+        clock.run(elevator);
+
+        assertEquals(3, tracer.getSeenLatency().getCount());
+        assertEquals(10_000, tracer.getSeenLatency().getMax());
+        // the hall call interrupts idle and the open button interrupts closing
+        assertEquals(2, tracer.getInterruptLatency().getCount());
+        assertEquals(0, tracer.getInterruptLatency().getMax());
+        assertEquals(3, tracer.getTransitionLatency().getCount());
+        assertEquals(10_000, tracer.getTransitionLatency().getMax());
+
+        assertEquals(1, tracer.getSlowPressCount());
+        assertEquals("[INTERNAL 3: seen after 10000 us, Moving up after 10000 us]", slowPresses.toString());
+    }
+
+    @Test
+    public void testPressesBeyondFullInboxAreTraced() {
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(10, 1, 50, 20, 20, clock);
+        PressTracer tracer = new PressTracer(elevator);
+        elevator.addListener(tracer);
+        clock.schedule(0, () -> {
+            // the elevator doesn't drain the inbox while the event runs, so the last press doesn't fit into it
+            for (int i = 0; i < 5000; i++) {
+                elevator.addExternalCommand(2);
+            }
+            elevator.addInternalCommand(8);
+        });
+        clock.schedule(1000, () -> elevator.addInternalCommand(1));
+        // traced from its own press, not from the press which overflowed the inbox
+        clock.schedule(2000, () -> elevator.addInternalCommand(8));
+        clock.run(elevator);
+
+        assertEquals(4, tracer.getSeenLatency().getCount());
+        assertEquals(0, tracer.getSeenLatency().getMax());
+    }
+}
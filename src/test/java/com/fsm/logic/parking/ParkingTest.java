@@ -0,0 +1,165 @@
+package com.fsm.logic.parking;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.ElevatorGroup;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.FloorSet;
+import com.fsm.logic.SchedulingPolicy;
+import com.fsm.logic.SchedulingStrategy;
+import com.fsm.logic.clock.SimulatedClock;
+import com.fsm.logic.traffic.TrafficGenerator;
+import com.fsm.logic.traffic.TrafficProfile;
+import com.fsm.logic.traffic.TrafficReport;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class ParkingTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    public void testDemandIsLearnedPerBucketAndDecays() {
+        DemandModel demand = new DemandModel(new SimulatedClock(), 10, HOUR, 1);
+        assertEquals(FloorSet.NONE, demand.getParkingFloor(0));
+
+        // mornings come from the lobby, evenings from upper floors
+        for (int i = 0; i < 6; i++) {
+            demand.record(1, 8 * HOUR);
+        }
+        demand.record(9, 8 * HOUR);
+        demand.record(7, 18 * HOUR);
+        demand.record(9, 18 * HOUR);
+        demand.record(9, 18 * HOUR);
+
+        assertEquals(1, demand.getParkingFloor(8 * HOUR));
+        assertEquals(9, demand.getParkingFloor(18 * HOUR));
+        assertEquals(FloorSet.NONE, demand.getParkingFloor(12 * HOUR));
+        // close to the next bucket its demand counts more
+        assertEquals(1, demand.getParkingFloor(8 * HOUR - HOUR / 10));
+
+        assertEquals(6, demand.getDemand(1, 8 * HOUR), 1e-6);
+        assertEquals(3, demand.getDemand(1, DAY + 8 * HOUR), 1e-6);
+        assertEquals(0.75, demand.getDemand(1, 3 * DAY + 8 * HOUR), 1e-6);
+        assertEquals(9 * HOUR, demand.getNextBucketTime(8 * HOUR));
+        assertEquals(9 * HOUR, demand.getNextBucketTime(9 * HOUR - 1));
+    }
+
+    @Test
+    public void testIdleElevatorParksWithClosedDoor() {
+        SimulatedClock clock = new SimulatedClock();
+        DemandModel demand = new DemandModel(clock, 10, HOUR, 7);
+        demand.record(8, 0);
+        demand.record(8, 0);
+        Elevator elevator =
+                new Elevator(10, 3, 1.5f, 2000, 3000, clock, new ParkingStrategy(SchedulingPolicy.LOOK, demand, clock));
+        List<String> transitions = new ArrayList<>();
+        elevator.addListener((state, level) -> transitions.add(level + " " + state));
+        clock.schedule(0, () -> elevator.addInternalCommand(3));
+        clock.run(elevator);
+
+        assertEquals("8 " + ElevatorState.IDLE, transitions.get(transitions.size() - 1));
+        assertEquals(1, transitions.stream().filter(t -> t.endsWith(" " + ElevatorState.OPENING)).count());
+    }
+
+    @Test
+    public void testIdleTimeoutOfWrappedStrategyIsKept() {
+        SimulatedClock clock = new SimulatedClock();
+        DemandModel demand = new DemandModel(clock, 10, HOUR, 7);
+        SchedulingStrategy polling = new SchedulingStrategy() {
+            @Override
+            public Direction chooseDirection(int level, FloorSet internalButtons, FloorSet externalButtons) {
+                return SchedulingPolicy.LOOK.chooseDirection(level, internalButtons, externalButtons);
+            }
+
+            @Override
+            public long getIdleTimeoutInMs(int level) {
+                return 1000;
+            }
+
+            @Override
+            public Direction continueDirection(int level, Direction direction, FloorSet internalButtons,
+                    FloorSet externalButtons) {
+                return SchedulingPolicy.LOOK.continueDirection(level, direction, internalButtons, externalButtons);
+            }
+
+            @Override
+            public boolean shouldStop(int level, Direction direction, FloorSet internalButtons,
+                    FloorSet externalButtons) {
+                return SchedulingPolicy.LOOK.shouldStop(level, direction, internalButtons, externalButtons);
+            }
+        };
+
+        assertEquals(1000, new ParkingStrategy(polling, demand, clock).getIdleTimeoutInMs(1));
+        assertEquals(HOUR, new ParkingStrategy(SchedulingPolicy.LOOK, demand, clock).getIdleTimeoutInMs(1));
+    }
+
+    @Test
+    public void testParkedElevatorMovesWhenDemandChanges() {
+        assertEquals(List.of(1, 8, 2), parkThroughDemandChange(false));
+        assertEquals(List.of(1, 8, 2), parkThroughDemandChange(true));
+    }
+
+    @Test
+    public void testParkingShortensWaitOfPeakTraffic() {
+        for (TrafficProfile profile : new TrafficProfile[] {TrafficProfile.UP_PEAK, TrafficProfile.DOWN_PEAK}) {
+            TrafficReport staying = simulate(profile, false);
+            TrafficReport parking = simulate(profile, true);
+            assertEquals(staying.getArrived(), parking.getDelivered());
+            assertThat(parking.getWaitTime().getMean(), lessThan(staying.getWaitTime().getMean()));
+        }
+    }
+
+    /**
+     * @return levels where the elevator becomes idle
+     */
+    private static List<Integer> parkThroughDemandChange(boolean onCurrentThread) {
+        SimulatedClock clock = new SimulatedClock();
+        // the first hour calls come from level 8, the second hour from level 2
+        DemandModel demand = new DemandModel(clock, 10, HOUR, 7);
+        demand.record(8, 0);
+        demand.record(8, 0);
+        demand.record(2, HOUR);
+        demand.record(2, HOUR);
+        Elevator elevator =
+                new Elevator(10, 3, 1.5f, 2000, 3000, clock, new ParkingStrategy(SchedulingPolicy.LOOK, demand, clock));
+        List<Integer> idleLevels = new ArrayList<>();
+        elevator.addListener((state, level) -> {
+            // the idle elevator wakes up every hour to choose the floor again
+            int lastLevel = idleLevels.isEmpty() ? 0 : idleLevels.get(idleLevels.size() - 1);
+            if (state == ElevatorState.IDLE && level != lastLevel) {
+                idleLevels.add(level);
+            }
+        });
+        // nothing happens during the hours, the simulation lasts until the last event
+        clock.schedule(3 * HOUR, () -> {});
+        if (onCurrentThread) {
+            clock.runOnCurrentThread(elevator);
+        } else {
+            clock.run(elevator);
+        }
+        assertEquals(3 * HOUR, clock.currentTimeMillis());
+        return idleLevels;
+    }
+
+    private static TrafficReport simulate(TrafficProfile profile, boolean parking) {
+        SimulatedClock clock = new SimulatedClock();
+        DemandModel demand = new DemandModel(clock, 20, TimeUnit.MINUTES.toMillis(30), 7);
+        SchedulingStrategy strategy =
+                parking ? new ParkingStrategy(SchedulingPolicy.LOOK, demand, clock) : SchedulingPolicy.LOOK;
+        Elevator elevator = new Elevator(20, 3, 1.5f, 2000, 3000, clock, strategy);
+        elevator.addListener(demand);
+        // the same seed gives both elevators the same passengers
+        TrafficGenerator generator = new TrafficGenerator(new ElevatorGroup(elevator), profile, 60, 1);
+        generator.schedule(clock, TimeUnit.HOURS.toMillis(8));
+        clock.run(elevator);
+        return generator.getReport();
+    }
+}
@@ -0,0 +1,182 @@
+package com.fsm.logic.snapshot;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.Elevator.Direction;
+import com.fsm.logic.ElevatorState;
+import com.fsm.logic.FloorSet;
+import com.fsm.logic.clock.RealTimeClock;
+import com.fsm.logic.clock.SimulatedClock;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        FloorSet internal = new FloorSet(100);
+        FloorSet external = new FloorSet(100);
+        internal.add(1);
+        internal.add(64);
+        internal.add(100);
+        external.add(63);
+        ElevatorSnapshot snapshot =
+                new ElevatorSnapshot(100, 42, ElevatorState.CLOSING, Direction.DOWN, internal, external, true, 1500);
+        ByteBuffer buffer = ByteBuffer.allocate(snapshot.getSerializedSize());
+        snapshot.writeTo(buffer);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+
+        ElevatorSnapshot read = ElevatorSnapshot.readFrom(buffer);
+        assertEquals(snapshot, read);
+        assertEquals(42, read.getLevel());
+        assertEquals(ElevatorState.CLOSING, read.getState());
+        assertEquals(Direction.DOWN, read.getDirection());
+        assertArrayEquals(new int[] {1, 64, 100}, read.getInternalFloors());
+        assertArrayEquals(new int[] {63}, read.getExternalFloors());
+        assertTrue(read.isOpenButtonPressed());
+        assertEquals(1500, read.getClosingTimeSpent());
+
+        buffer.put(ElevatorSnapshot.HEADER_SIZE, (byte) 1);
+        buffer.rewind();
+        try {
+            ElevatorSnapshot.readFrom(buffer);
+            fail("Corrupted snapshot was read");
+        } catch (IOException expected) {
+            // checksum doesn't match
+        }
+    }
+
+    @Test
+    public void testRestoredElevatorContinuesTrip() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("elevator.snapshot");
+        assertNull(SnapshotWriter.read(file));
+
+        SimulatedClock clock = new SimulatedClock();
+        Elevator elevator = new Elevator(10, 3, 1, 2000, 3000, clock);
+        ElevatorSnapshot[] taken = new ElevatorSnapshot[1];
+        elevator.addListener((state, level) -> {
+            if (state == ElevatorState.MOVING_UP && level == 4 && taken[0] == null) {
+                taken[0] = elevator.snapshot();
+            }
+        });
+        clock.schedule(0, () -> {
+            elevator.addInternalCommand(8);
+            elevator.addExternalCommand(3);
+            elevator.addExternalCommand(6);
+        });
+        clock.run(elevator);
+
+        ElevatorSnapshot snapshot = taken[0];
+        List<String> errors = new ArrayList<>();
+        assertNotNull(snapshot);
+        assertEquals(4, snapshot.getLevel());
+        assertEquals(Direction.UP, snapshot.getDirection());
+        assertArrayEquals(new int[] {8}, snapshot.getInternalFloors());
+
+        // the process restarts: the snapshot is saved and restored into a new elevator
+        Elevator restored = new Elevator(10, 3, 1, 2000, 3000, RealTimeClock.INSTANCE);
+        restored.restore(snapshot);
+        try (SnapshotWriter writer = SnapshotWriter.start(file, restored, TimeUnit.HOURS.toMillis(1), errors::add)) {
+            assertTrue(writer.write());
+            assertFalse(writer.write());
+        }
+        assertEquals(List.of(), errors);
+        SimulatedClock restartedClock = new SimulatedClock();
+        Elevator restarted = new Elevator(10, 3, 1, 2000, 3000, restartedClock);
+        restarted.restore(SnapshotWriter.read(file));
+        List<String> transitions = new ArrayList<>();
+        restarted.addListener((state, level) -> transitions.add(level + " " + state));
+        restartedClock.run(restarted);
+
+        assertEquals("4 " + ElevatorState.MOVING_UP, transitions.get(0));
+        for (int floor : new int[] {3, 6, 8}) {
+            assertTrue(transitions.contains(floor + " " + ElevatorState.OPENING));
+        }
+        ElevatorSnapshot last = restarted.snapshot();
+        assertEquals(ElevatorState.IDLE, last.getState());
+        assertEquals(0, last.getInternalFloors().length + last.getExternalFloors().length);
+    }
+
+    @Test
+    public void testSnapshotsAreWrittenPeriodically() throws IOException, InterruptedException {
+        Path file = folder.getRoot().toPath().resolve("elevator.snapshot");
+        Elevator elevator = new Elevator(10, 3, 1, 2000, 3000, RealTimeClock.INSTANCE);
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        SnapshotWriter writer = SnapshotWriter.start(file, elevator, 10, errors::add);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (writer.getWrittenCount() == 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        writer.close();
+
+        // nothing changed, so the snapshot is written once
+        assertEquals(1, writer.getWrittenCount());
+        assertEquals(elevator.snapshot(), SnapshotWriter.read(file));
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    public void testLevelsOutOfBuildingAreRejected() {
+        FloorSet internal = new FloorSet(100);
+        FloorSet external = new FloorSet(100);
+        assertUnreadable(new ElevatorSnapshot(50, 51, ElevatorState.IDLE, null, internal, external, false, 0));
+        assertUnreadable(new ElevatorSnapshot(50, -1, ElevatorState.IDLE, null, internal, external, false, 0));
+        external.add(60);
+        assertUnreadable(new ElevatorSnapshot(50, 5, ElevatorState.IDLE, null, internal, external, false, 0));
+    }
+
+    @Test
+    public void testWriteErrorsGoToConsumer() throws IOException, InterruptedException {
+        Path file = folder.getRoot().toPath().resolve("missing").resolve("elevator.snapshot");
+        Elevator elevator = new Elevator(10, 3, 1, 2000, 3000, RealTimeClock.INSTANCE);
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        SnapshotWriter writer = SnapshotWriter.start(file, elevator, 10, errors::add);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (errors.isEmpty() && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        try {
+            writer.close();
+            fail("Snapshot was written to a missing directory");
+        } catch (IOException expected) {
+            // the last snapshot can't be written either
+        }
+
+        assertFalse(errors.isEmpty());
+        assertTrue(errors.get(0).startsWith("Can't write snapshot: "));
+        assertEquals(0, writer.getWrittenCount());
+    }
+
+    private static void assertUnreadable(ElevatorSnapshot snapshot) {
+        ByteBuffer buffer = ByteBuffer.allocate(snapshot.getSerializedSize());
+        snapshot.writeTo(buffer);
+        buffer.flip();
+        try {
+            ElevatorSnapshot.readFrom(buffer);
+            fail("Snapshot with levels out of the building was read");
+        } catch (IOException e) {
+            assertEquals("Snapshot contains levels out of 50 levels", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.fsm.logic.sweep;
+
+import com.fsm.logic.traffic.TrafficProfile;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class ParameterSweepTest {
+
+    private static final int RUNS = 6;
+
+    @Test
+    public void testParallelSweepMatchesSequential() {
+        ParameterSweep sweep = new ParameterSweep(12, 2, TrafficProfile.LUNCH, 300, TimeUnit.MINUTES.toMillis(20));
+        List<ElevatorParameters> configurations = ElevatorParameters.grid(new float[] {3}, new float[] {1, 4},
+                new long[] {1000, 3000}, new long[] {3000});
+
+        List<SweepResult> sequential = sweep.run(configurations, RUNS, 5, 1);
+        List<SweepResult> parallel = sweep.run(configurations, RUNS, 5, Runtime.getRuntime().availableProcessors());
+
+        assertEquals(configurations.size(), parallel.size());
+        for (int i = 0; i < configurations.size(); i++) {
+            SweepResult expected = sequential.get(i);
+            SweepResult actual = parallel.get(i);
+            assertEquals(configurations.get(i), actual.getParameters());
+            assertEquals(RUNS, actual.getRuns());
+            assertEquals(expected.getDelivered(), actual.getDelivered());
+            assertEquals(expected.getWaitTime().getCount(), actual.getWaitTime().getCount());
+            assertEquals(expected.getWaitTime().getP99(), actual.getWaitTime().getP99());
+            assertEquals(expected.getRideTime().getP50(), actual.getRideTime().getP50());
+        }
+        // the fastest elevator with the fastest door beats the slowest one
+        assertThat(parallel.get(2).getWaitTime().getMean(), lessThan(parallel.get(1).getWaitTime().getMean()));
+    }
+}
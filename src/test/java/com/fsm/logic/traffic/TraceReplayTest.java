@@ -0,0 +1,120 @@
+package com.fsm.logic.traffic;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.clock.SimulatedClock;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.hamcrest.Matchers.greaterThan;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TraceReplayTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    // 2024-01-01T00:00:00Z
+    private static final long START = 1_704_067_200_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordsAreParsedAcrossChunks() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, ("time,origin,destination\r\n"
+                + "1000,1,5,lobby\r\n"
+                + "\r\n"
+                + "# maintenance\n"
+                + " 2500 , 12 ,3\n"
+                + "9223372036854775807,7,1").getBytes(StandardCharsets.US_ASCII));
+        // lines are split between chunks of 32 bytes
+        try (TraceReader reader = new TraceReader(file, 32)) {
+            assertTrue(reader.next());
+            assertEquals(1000, reader.getTimeInMs());
+            assertEquals(1, reader.getOrigin());
+            assertEquals(5, reader.getDestination());
+            assertEquals(2, reader.getLineNumber());
+            assertTrue(reader.next());
+            assertEquals(2500, reader.getTimeInMs());
+            assertEquals(12, reader.getOrigin());
+            assertEquals(3, reader.getDestination());
+            assertEquals(5, reader.getLineNumber());
+            assertTrue(reader.next());
+            assertEquals(Long.MAX_VALUE, reader.getTimeInMs());
+            assertEquals(7, reader.getOrigin());
+            assertFalse(reader.next());
+        }
+
+        Files.write(file, "1000,1,5\n2000,x,5\n".getBytes(StandardCharsets.US_ASCII));
+        try (TraceReader reader = new TraceReader(file)) {
+            assertTrue(reader.next());
+            reader.next();
+            fail("Malformed record is read");
+        } catch (IOException e) {
+            assertEquals("Malformed trace record at line 2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWaitAndRideAreReportedPerHour() throws IOException {
+        Path file = folder.newFile().toPath();
+        Random random = new Random(3);
+        int passengers = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("time,origin,destination\n");
+            // the trace starts in the middle of an hour and has no passengers during the third hour
+            for (long time = START + HOUR / 2; time < START + 4 * HOUR; time += random.nextInt(40_000)) {
+                if (time >= START + 2 * HOUR && time < START + 3 * HOUR) {
+                    continue;
+                }
+                int origin = 1 + random.nextInt(10);
+                int destination = 1 + (origin + random.nextInt(9)) % 10;
+                writer.write(time + "," + origin + "," + destination + "\n");
+                passengers++;
+            }
+            writer.write((START + 4 * HOUR) + ",3,30\n");
+        }
+
+        SimulatedClock clock = new SimulatedClock();
+        Elevator[] elevators = new Elevator[2];
+        for (int i = 0; i < elevators.length; i++) {
+            elevators[i] = new Elevator(10, 3, 1.5f, 2000, 3000, clock);
+        }
+        TraceReplay replay = new TraceReplay(clock, elevators);
+        List<Long> hours = new ArrayList<>();
+        List<TrafficReport> reports = new ArrayList<>();
+        TrafficReport total = replay.replay(file, (hourStart, report) -> {
+            hours.add(hourStart);
+            reports.add(report);
+        });
+
+        assertEquals(List.of(START, START + HOUR, START + 3 * HOUR), hours);
+        long hourlyPassengers = 0;
+        for (TrafficReport report : reports) {
+            assertEquals(report.getArrived(), report.getDelivered());
+            assertEquals(report.getArrived(), report.getWaitTime().getCount());
+            assertEquals(report.getArrived(), report.getRideTime().getCount());
+            assertEquals(report.getDelivered(), report.getPassengersPerHour());
+            hourlyPassengers += report.getArrived();
+        }
+        assertEquals(passengers, hourlyPassengers);
+        assertEquals(passengers, total.getArrived());
+        assertEquals(passengers, total.getDelivered());
+        assertEquals(passengers, total.getWaitTime().getCount());
+        assertThat(total.getRideTime().getP50(), greaterThan(0L));
+        assertEquals(1, replay.getSkipped());
+    }
+}
@@ -0,0 +1,62 @@
+package com.fsm.logic.traffic;
+
+import com.fsm.logic.Elevator;
+import com.fsm.logic.ElevatorGroup;
+import com.fsm.logic.clock.SimulatedClock;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class TrafficGeneratorTest {
+
+    private static final int LEVELS = 20;
+
+    @Test
+    public void testProfilesProduceValidTrips() {
+        Random random = new Random(1);
+        for (TrafficProfile profile : TrafficProfile.values()) {
+            for (int i = 0; i < 10_000; i++) {
+                int origin = profile.origin(random, LEVELS);
+                int destination = profile.destination(random, LEVELS, origin);
+                assertTrue(origin >= 1 && origin <= LEVELS && destination >= 1 && destination <= LEVELS);
+                assertNotEquals(origin, destination);
+                if (profile == TrafficProfile.UP_PEAK) {
+                    assertEquals(TrafficProfile.LOBBY, origin);
+                } else if (profile == TrafficProfile.DOWN_PEAK) {
+                    assertEquals(TrafficProfile.LOBBY, destination);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEveryPassengerIsDelivered() {
+        for (TrafficProfile profile : TrafficProfile.values()) {
+            SimulatedClock clock = new SimulatedClock();
+            Elevator[] elevators = new Elevator[4];
+            for (int i = 0; i < elevators.length; i++) {
+                elevators[i] = new Elevator(LEVELS, 3, 1.5f, 2000, 3000, clock);
+            }
+            TrafficGenerator generator = new TrafficGenerator(new ElevatorGroup(elevators), profile, 500, 11);
+            generator.schedule(clock, TimeUnit.HOURS.toMillis(1));
+            clock.run(elevators);
+
+            TrafficReport report = generator.getReport();
+            // 500 passengers per hour on average
+            assertThat(report.getArrived(), both(greaterThan(400L)).and(lessThan(600L)));
+            assertEquals(report.getArrived(), report.getDelivered());
+            assertEquals(report.getArrived(), report.getWaitTime().getCount());
+            assertEquals(report.getArrived(), report.getRideTime().getCount());
+            assertThat(report.getPassengersPerHour(), both(greaterThan(400L)).and(lessThan(600L)));
+            assertThat(report.getRideTime().getP50(), greaterThan(0L));
+        }
+    }
+}